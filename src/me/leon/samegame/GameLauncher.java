@@ -1,27 +1,107 @@
 package me.leon.samegame;
 
+import me.leon.samegame.benchmark.NeighborScanBenchmark;
+import me.leon.samegame.bot.LargestGroupPolicy;
+import me.leon.samegame.bot.Policy;
 import me.leon.samegame.controller.GameController;
 import me.leon.samegame.controller.SameGameController;
+import me.leon.samegame.model.CompactBoard;
 import me.leon.samegame.model.Difficulty;
-import me.leon.samegame.model.GameModel;
 import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.race.RaceClient;
+import me.leon.samegame.race.RaceServer;
+import me.leon.samegame.solver.EndgameSolver;
+import me.leon.samegame.util.HighscoreStore;
 import me.leon.samegame.util.SoundManager;
 import me.leon.samegame.view.GameView;
+import me.leon.samegame.view.RaceView;
 import me.leon.samegame.view.SameGameConsoleView;
 import me.leon.samegame.view.SameGameView;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
 /**
  * The {@code GameLauncher} class is the entry point for the SameGame application.
- * It initializes the model, views, and controller, sets up the {@code SoundManager},
- * and ensures that all components are properly registered and instantiated.
+ * The mode is selected by a command line flag:
+ * <ul>
+ *  <li>{@code --gui} (default) - the Swing window together with the console view, with sound.</li>
+ *  <li>{@code --console} - the console view only, moves are read as {@code row col} lines from standard input.
+ *  No window is opened and no sound is played.</li>
+ *  <li>{@code --headless-bot} - plays games with a bot on {@link CompactBoard}s and prints one score per line.
+ *  Neither Swing nor the audio system is initialized, so short-lived batch workers start in milliseconds.
+ *  Options: {@code --games=N} (default 1) and {@code --seed=S} (default random).</li>
+ *  <li>{@code --race-server} - hosts a {@link RaceServer} for races on the loopback address.
+ *  Options: {@code --port=P} (default 4711) and {@code --seed=S} (default random).</li>
+ *  <li>{@code --race} - joins the race on {@code --port=P} with a {@link RaceView}.</li>
+ *  <li>{@code --benchmark} - runs the {@link NeighborScanBenchmark}.</li>
+ * </ul>
+ * Swing and audio are only initialized in the modes that use them. The interactive modes {@code --gui} and
+ * {@code --console} give exact hints in the endgame with an {@link EndgameSolver}.
+ * <p>
+ * Startup can be shortened further with an AppCDS archive (JDK 13+), which maps the already parsed classes
+ * of a training run into memory instead of loading them from the jar:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=samegame.jsa -cp samegame.jar me.leon.samegame.GameLauncher --headless-bot --games=100
+ * java -XX:SharedArchiveFile=samegame.jsa -cp samegame.jar me.leon.samegame.GameLauncher --headless-bot
+ * </pre>
  */
 public class GameLauncher {
     /**
      * Entry point of the game.
      */
     public static void main(String[] args) {
+        String mode = "--gui";
+        int games = 1;
+        Long seed = null;
+        int port = 4711;
+        for (String arg : args) {
+            if (arg.startsWith("--games=")) {
+                games = Integer.parseInt(arg.substring("--games=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else {
+                mode = arg;
+            }
+        }
+
+        switch (mode) {
+            case "--gui":
+                launchGui();
+                break;
+            case "--console":
+                launchConsole();
+                break;
+            case "--headless-bot":
+                launchHeadlessBot(games, seed == null ? System.nanoTime() : seed);
+                break;
+            case "--race-server":
+                launchRaceServer(seed == null ? System.nanoTime() : seed, port);
+                break;
+            case "--race":
+                launchRace(port);
+                break;
+            case "--benchmark":
+                NeighborScanBenchmark.main(new String[0]);
+                break;
+            default:
+                System.err.println("Unknown option: " + mode);
+                System.err.println("Usage: GameLauncher [--gui | --console | --headless-bot [--games=N] [--seed=S]"
+                        + " | --race-server [--port=P] [--seed=S] | --race [--port=P] | --benchmark]");
+                System.exit(2);
+        }
+    }
+
+    /**
+     * Starts the game with the Swing window and the console view.
+     */
+    private static void launchGui() {
         // MODEL
-        GameModel sameGameModel = new SameGameModel(6, 9, Difficulty.MEDIUM);
+        SameGameModel sameGameModel = new SameGameModel(6, 9, Difficulty.MEDIUM);
+        sameGameModel.setEndgameSolver(new EndgameSolver());
 
         // VIEWS
         GameView sameGameView = new SameGameView(sameGameModel);
@@ -30,11 +110,111 @@ public class GameLauncher {
         // CONTROLLER (Singleton: Only one Controller should exist at any time)
         GameController sameGameController = SameGameController.get(sameGameModel);
 
-        // make sure SoundManager is instantiated and so has loaded sound files before the game starts (performance)
-        SoundManager.get();
+        // load the sound files in the background, so they are ready before the first click without delaying the window
+        Thread soundLoader = new Thread(() -> SoundManager.get().preload(), "SameGame-Sound");
+        soundLoader.setDaemon(true);
+        soundLoader.start();
+
+        // load the highscores in the background as well, so the first game over dialog shows the scores on the disk
+        HighscoreStore.get();
 
         // register views to controller
         sameGameController.registerView(sameGameView);
         sameGameController.registerView(sameGameConsoleView);
     }
+
+    /**
+     * Starts the game with the console view only, reading moves from standard input until the game is over.
+     */
+    private static void launchConsole() {
+        SoundManager.setEnabled(false);
+        SameGameModel sameGameModel = new SameGameModel(6, 9, Difficulty.MEDIUM);
+        sameGameModel.setEndgameSolver(new EndgameSolver());
+        GameView sameGameConsoleView = new SameGameConsoleView(sameGameModel);
+        sameGameConsoleView.updateView();
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        try {
+            String line;
+            while (!sameGameModel.getGameOver() && (line = in.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                try {
+                    int row = Integer.parseInt(parts[0]);
+                    int col = Integer.parseInt(parts[1]);
+                    if (row < 0 || row >= sameGameModel.getGameRows() || col < 0 || col >= sameGameModel.getGameCols()) {
+                        throw new NumberFormatException();
+                    }
+                    sameGameModel.processGameInteraction(row, col);
+                    sameGameConsoleView.updateView();
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    System.err.println("Enter a move as: row col");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Some unforeseen error occurred: " + e);
+        }
+    }
+
+    /**
+     * Hosts a race on the default board until the process is stopped.
+     *
+     * @param seed seed of the board all players race on
+     * @param port port on the loopback address
+     */
+    private static void launchRaceServer(long seed, int port) {
+        SoundManager.setEnabled(false);
+        try {
+            RaceServer server = new RaceServer(6, 9, Difficulty.MEDIUM, seed, port);
+            System.out.println("Race on seed " + seed + " hosted on port " + server.getPort());
+        } catch (IOException e) {
+            System.err.println("Race server could not be started: " + e);
+            System.exit(1);
+        }
+        try {
+            Thread.currentThread().join(); // the server runs on daemon threads
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Joins a race with a window showing the own board and the boards of the opponents.
+     *
+     * @param port port of the race server on the loopback address
+     */
+    private static void launchRace(int port) {
+        SoundManager.setEnabled(false);
+        RaceView raceView = new RaceView();
+        try {
+            RaceClient client = new RaceClient(port, System.getProperty("user.name", "Player"), raceView);
+            raceView.setClient(client);
+            raceView.setVisible(true);
+        } catch (IOException e) {
+            System.err.println("Race could not be joined: " + e);
+            raceView.dispose();
+        }
+    }
+
+    /**
+     * Plays games with the {@link LargestGroupPolicy} without any user interface
+     * and prints the score of every game and the time until the first move was made.
+     *
+     * @param games number of games to play
+     * @param seed  seed of the first game, the following games use the next seeds
+     */
+    private static void launchHeadlessBot(int games, long seed) {
+        long start = System.nanoTime();
+        SoundManager.setEnabled(false);
+        Policy policy = new LargestGroupPolicy();
+        long firstMoveNanos = -1;
+        for (int game = 0; game < games; game++) {
+            CompactBoard board = CompactBoard.random(6, 9, Difficulty.MEDIUM, seed + game);
+            if (firstMoveNanos < 0) {
+                policy.chooseMove(board);
+                firstMoveNanos = System.nanoTime() - start;
+            }
+            System.out.println(policy.play(board));
+        }
+        System.err.printf("time to first move: %.1f ms%n", firstMoveNanos / 1e6);
+    }
 }
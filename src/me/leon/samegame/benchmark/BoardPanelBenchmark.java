@@ -0,0 +1,99 @@
+package me.leon.samegame.benchmark;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.GameSnapshot;
+import me.leon.samegame.model.PackedCells;
+import me.leon.samegame.model.PersistentBoard;
+import me.leon.samegame.view.BoardPanel;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * The {@code BoardPanelBenchmark} class measures the time per frame of the {@link BoardPanel}
+ * for boards from 100x100 to 10000x10000 cells in a 1000x750 pixel window:
+ * <ul>
+ *  <li>{@code fitted} - the whole board fitted into the window.</li>
+ *  <li>{@code zoom 8px} / {@code zoom 32px} - a window sized section in the middle of the zoomed board.</li>
+ *  <li>{@code move 8px} / {@code move 32px} - as before, but every frame shows a new board version
+ *  in which the middle column changed, as after a move.</li>
+ * </ul>
+ * Run with {@code java -Xmx2g -Djava.awt.headless=true me.leon.samegame.benchmark.BoardPanelBenchmark}.
+ */
+public class BoardPanelBenchmark {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 750;
+    private static final Color[] COLORS = {Color.red, Color.yellow, Color.blue, Color.green, Color.orange};
+
+    /**
+     * Entry point of the benchmark.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%-12s %12s %12s %12s %12s %12s%n", "board", "fitted ms", "zoom 8px ms", "zoom 32px ms",
+                "move 8px ms", "move 32px ms");
+        BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int boardSize = 100; boardSize <= 10_000; boardSize *= 10) {
+            CompactBoard board = new CompactBoard(boardSize, boardSize);
+            Random r = new Random(boardSize);
+            for (int col = 0; col < boardSize; col++) {
+                for (int row = 0; row < boardSize; row++) {
+                    board.set(row, col, r.nextInt(COLORS.length) + 1);
+                }
+            }
+            GameSnapshot[] versions = twoVersions(board, boardSize);
+            BoardPanel panel = new BoardPanel();
+            panel.setAnimated(false);
+            panel.setSnapshot(versions[0]);
+
+            double fitted = frameMillis(panel, screen, WIDTH, HEIGHT, null);
+            double zoom8 = frameMillis(panel, screen, Math.max(WIDTH, boardSize * 8), Math.max(HEIGHT, boardSize * 8), null);
+            double zoom32 = frameMillis(panel, screen, Math.max(WIDTH, boardSize * 32), Math.max(HEIGHT, boardSize * 32), null);
+            double move8 = frameMillis(panel, screen, Math.max(WIDTH, boardSize * 8), Math.max(HEIGHT, boardSize * 8), versions);
+            double move32 = frameMillis(panel, screen, Math.max(WIDTH, boardSize * 32), Math.max(HEIGHT, boardSize * 32), versions);
+            System.out.printf("%-12s %12.3f %12.3f %12.3f %12.3f %12.3f%n", boardSize + "x" + boardSize,
+                    fitted, zoom8, zoom32, move8, move32);
+        }
+    }
+
+    /**
+     * Creates two versions of a board that only differ in the middle column.
+     */
+    private static GameSnapshot[] twoVersions(CompactBoard board, int size) {
+        PersistentBoard first = PersistentBoard.of(board, COLORS);
+        boolean[] changed = new boolean[size];
+        PackedCells[] columns = new PackedCells[size];
+        changed[size / 2] = true;
+        columns[size / 2] = new PackedCells(size, COLORS.length);
+        for (int row = 0; row < size; row++) {
+            columns[size / 2].set(row, first.get((row + 1) % size, size / 2));
+        }
+        PersistentBoard second = first.withColumns(changed, columns);
+        return new GameSnapshot[]{GameSnapshot.of(first, false, 0), GameSnapshot.of(second, false, 1)};
+    }
+
+    /**
+     * Paints the middle window of a panel of the given size repeatedly.
+     *
+     * @param versions snapshots to alternate between frames, or {@code null} to paint the current snapshot
+     * @return average time per frame in milliseconds
+     */
+    private static double frameMillis(BoardPanel panel, BufferedImage screen, int width, int height, GameSnapshot[] versions) {
+        panel.setSize(width, height);
+        int x = (width - WIDTH) / 2;
+        int y = (height - HEIGHT) / 2;
+        int frames = 0;
+        long start = 0;
+        for (int i = 0; i < 200; i++) {
+            if (i == 50) start = System.nanoTime(); // warm up
+            if (versions != null) panel.setSnapshot(versions[i % 2]);
+            Graphics2D g = screen.createGraphics();
+            g.translate(-x, -y);
+            g.setClip(x, y, WIDTH, HEIGHT);
+            panel.paint(g);
+            g.dispose();
+            if (i >= 50) frames++;
+        }
+        return (System.nanoTime() - start) / 1e6 / frames;
+    }
+}
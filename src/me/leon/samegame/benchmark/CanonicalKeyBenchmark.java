@@ -0,0 +1,113 @@
+package me.leon.samegame.benchmark;
+
+import me.leon.samegame.bot.LargestGroupPolicy;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.solver.ExactSolver;
+import me.leon.samegame.util.SuggestionCache;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The {@code CanonicalKeyBenchmark} class measures how many more positions a cache finds with keys of the
+ * canonical form ({@link CompactBoard#canonicalHash64()}, {@link SuggestionCache.Key#of(CompactBoard)})
+ * than with keys of the raw cells. Every position of the played games is looked up once, so the hit rate of
+ * an unbounded cache is {@code 1 - distinct keys / lookups}:
+ * <ul>
+ *  <li>{@code seeds} - different seeded games on the default board, played with the largest group policy.
+ *  Only late positions with few tiles recur as color permutations.</li>
+ *  <li>{@code permuted} - every seeded deal is also played with 4 random permutations of its colors,
+ *  as bots on a daily seed with shuffled colors do.</li>
+ * </ul>
+ * Finally one {@link ExactSolver} solves the positions with 16 tiles left of many games, keeping its table,
+ * and reports the searched nodes and the table size.
+ * Run with {@code java me.leon.samegame.benchmark.CanonicalKeyBenchmark}.
+ */
+public class CanonicalKeyBenchmark {
+    private static final int GAMES = 5000;
+    private static final int PERMUTATIONS = 4;
+
+    /**
+     * Entry point of the benchmark.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%-10s %10s %14s %18s%n", "scenario", "lookups", "raw hit rate", "canonical hit rate");
+        measure("seeds", 1);
+        measure("permuted", PERMUTATIONS + 1);
+
+        ExactSolver solver = new ExactSolver(6, 9);
+        LargestGroupPolicy policy = new LargestGroupPolicy();
+        int[] counts = new int[Difficulty.MEDIUM + 1];
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (long seed = 0; seed < GAMES; seed++) {
+            CompactBoard board = CompactBoard.random(6, 9, Difficulty.MEDIUM, seed);
+            while (board.countColors(counts) > 16 && !board.isGameOver()) {
+                board.removeGroupAt(policy.chooseMove(board));
+            }
+            nodes += solver.solve(board).getNodes();
+        }
+        System.out.printf("solver: %d endgames, %d nodes, %d table entries, %.0f ms%n",
+                GAMES, nodes, solver.getTableSize(), (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Plays the seeded games, each in the given number of color variants, and counts the distinct keys.
+     *
+     * @param scenario name of the scenario
+     * @param variants variants per deal, the first one with the original colors
+     */
+    private static void measure(String scenario, int variants) {
+        LargestGroupPolicy policy = new LargestGroupPolicy();
+        Set<SuggestionCache.Key> raw = new HashSet<>();
+        Set<SuggestionCache.Key> canonical = new HashSet<>();
+        Random random = new Random(408);
+        long lookups = 0;
+        for (long seed = 0; seed < GAMES; seed++) {
+            CompactBoard deal = CompactBoard.random(6, 9, Difficulty.MEDIUM, seed);
+            for (int variant = 0; variant < variants; variant++) {
+                CompactBoard board = variant == 0 ? deal.copy() : permute(deal, random);
+                while (true) {
+                    raw.add(rawKey(board));
+                    canonical.add(SuggestionCache.Key.of(board));
+                    lookups++;
+                    int move = policy.chooseMove(board);
+                    if (move < 0) break;
+                    board.removeGroupAt(move);
+                }
+            }
+        }
+        System.out.printf("%-10s %10d %13.1f%% %17.1f%%%n", scenario, lookups,
+                100.0 * (lookups - raw.size()) / lookups, 100.0 * (lookups - canonical.size()) / lookups);
+    }
+
+    /**
+     * Key of the raw cells, like the suggestion cache keyed positions before the canonical form.
+     */
+    private static SuggestionCache.Key rawKey(CompactBoard board) {
+        long low = board.getRows();
+        for (int i = 0; i < board.getRows() * board.getCols(); i++) {
+            low = low * 0x100000001B3L + board.getAt(i);
+        }
+        return new SuggestionCache.Key(board.hash64(), low);
+    }
+
+    /**
+     * Copies a board with randomly permuted colors.
+     */
+    private static CompactBoard permute(CompactBoard board, Random random) {
+        int[] permutation = new int[Difficulty.MEDIUM + 1];
+        for (int color = 1; color < permutation.length; color++) {
+            int other = 1 + random.nextInt(color);
+            permutation[color] = permutation[other];
+            permutation[other] = color;
+        }
+        CompactBoard permuted = new CompactBoard(board.getRows(), board.getCols());
+        for (int i = 0; i < board.getRows() * board.getCols(); i++) {
+            permuted.setAt(i, permutation[board.getAt(i)]);
+        }
+        return permuted;
+    }
+}
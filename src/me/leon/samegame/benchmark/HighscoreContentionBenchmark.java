@@ -0,0 +1,108 @@
+package me.leon.samegame.benchmark;
+
+import me.leon.samegame.util.HighscoreManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The {@code HighscoreContentionBenchmark} class measures {@link HighscoreManager#mergeHighscores(File, List)}
+ * with up to 48 local processes writing the same highscore file at the same time.
+ * Every process merges its scores one by one, which is the worst case, as the {@code HighscoreStore}
+ * of a game batches its scores. The benchmark reports the merges per second of all processes together,
+ * the average and maximum time of a merge including the wait for the lock, and checks that no score was lost.
+ * Run with {@code java me.leon.samegame.benchmark.HighscoreContentionBenchmark [file]}.
+ */
+public class HighscoreContentionBenchmark {
+    private static final int MERGES_PER_PROCESS = 40;
+
+    /**
+     * Entry point of the benchmark, also of its worker processes.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 3 && args[0].equals("--worker")) {
+            work(new File(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        File file = new File(args.length > 0 ? args[0] : "highscores-benchmark.dat");
+        System.out.printf("%-10s %12s %12s %12s %8s%n", "processes", "merges/s", "avg ms", "max ms", "lost");
+        for (int processes : new int[]{1, 4, 12, 24, 48}) {
+            run(file, processes);
+        }
+        file.delete();
+        new File(file.getPath() + ".lock").delete();
+    }
+
+    /**
+     * Starts the worker processes on a new file and reports their results.
+     *
+     * @param file      shared highscore file
+     * @param processes number of worker processes
+     */
+    private static void run(File file, int processes) throws IOException, InterruptedException {
+        file.delete();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<Process> workers = new ArrayList<>();
+        for (int id = 0; id < processes; id++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    HighscoreContentionBenchmark.class.getName(), "--worker", file.getPath(), String.valueOf(id))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start());
+        }
+        long totalNanos = 0;
+        long maxNanos = 0;
+        long firstStart = Long.MAX_VALUE;
+        long lastEnd = 0;
+        for (Process worker : workers) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(worker.getInputStream()))) {
+                String[] result = in.readLine().split(" ");
+                firstStart = Math.min(firstStart, Long.parseLong(result[0]));
+                lastEnd = Math.max(lastEnd, Long.parseLong(result[1]));
+                totalNanos += Long.parseLong(result[2]);
+                maxNanos = Math.max(maxNanos, Long.parseLong(result[3]));
+            }
+            if (worker.waitFor() != 0) throw new IllegalStateException("Worker failed");
+        }
+
+        Set<Long> expected = new HashSet<>();
+        for (int id = 0; id < processes; id++) {
+            for (int i = 0; i < MERGES_PER_PROCESS; i++) {
+                expected.add(score(id, i));
+            }
+        }
+        expected.removeAll(HighscoreManager.loadHighscores(file.getPath()).getHighscores());
+        int merges = processes * MERGES_PER_PROCESS;
+        System.out.printf("%-10d %12.0f %12.2f %12.2f %8d%n", processes, merges / ((lastEnd - firstStart) / 1e3),
+                totalNanos / 1e6 / merges, maxNanos / 1e6, expected.size());
+    }
+
+    /**
+     * Merges the scores of one worker process and prints its start, end (wall clock milliseconds),
+     * total and maximum merge time (nanoseconds).
+     *
+     * @param file shared highscore file
+     * @param id   number of the worker
+     */
+    private static void work(File file, int id) throws IOException {
+        long start = System.currentTimeMillis();
+        long totalNanos = 0;
+        long maxNanos = 0;
+        for (int i = 0; i < MERGES_PER_PROCESS; i++) {
+            long before = System.nanoTime();
+            HighscoreManager.mergeHighscores(file, List.of(score(id, i)));
+            long nanos = System.nanoTime() - before;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+        System.out.println(start + " " + System.currentTimeMillis() + " " + totalNanos + " " + maxNanos);
+    }
+
+    private static long score(int id, int i) {
+        return id * 1_000_000L + i;
+    }
+}
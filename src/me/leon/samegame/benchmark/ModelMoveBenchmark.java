@@ -0,0 +1,49 @@
+package me.leon.samegame.benchmark;
+
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.util.SoundManager;
+
+/**
+ * The {@code ModelMoveBenchmark} class measures the time per move of {@link SameGameModel#processGameInteraction(int, int)}
+ * on boards from 64x64 to 512x512. Every game follows the next best move of the model for up to 200 moves,
+ * so the time includes the removal, the collapse of the touched columns, the column shift and the next hint.
+ * Run with {@code java -Xmx2g -Djava.awt.headless=true me.leon.samegame.benchmark.ModelMoveBenchmark}.
+ */
+public class ModelMoveBenchmark {
+    private static final int MOVES = 200;
+
+    /**
+     * Entry point of the benchmark.
+     */
+    public static void main(String[] args) {
+        SoundManager.setEnabled(false);
+        System.out.printf("%-10s %14s%n", "board", "us/move");
+        for (int boardSize = 64; boardSize <= 512; boardSize *= 2) {
+            measure(boardSize); // warm up
+            System.out.printf("%-10s %14.1f%n", boardSize + "x" + boardSize, measure(boardSize) / 1e3);
+        }
+    }
+
+    /**
+     * Plays seeded games on a board of the given size.
+     *
+     * @param size number of rows and cols
+     * @return average time per move in nanoseconds
+     */
+    private static double measure(int size) {
+        long nanos = 0;
+        int moves = 0;
+        for (long seed = 0; seed < 3; seed++) {
+            SameGameModel sgm = new SameGameModel(size, size, Difficulty.EASY, seed);
+            for (int move = 0; move < MOVES && !sgm.getGameOver(); move++) {
+                int[] next = sgm.getNextBestMove();
+                long start = System.nanoTime();
+                sgm.processGameInteraction(next[0], next[1]);
+                nanos += System.nanoTime() - start;
+                moves++;
+            }
+        }
+        return (double) nanos / moves;
+    }
+}
@@ -0,0 +1,78 @@
+package me.leon.samegame.benchmark;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.NeighborScan;
+import me.leon.samegame.model.SameGameModel;
+
+/**
+ * The {@code NeighborScanBenchmark} class compares the game over scans on boards from 64x64 to 4096x4096.
+ * Every board is colored without any adjacent pair, which is the worst case where every cell has to be checked:
+ * <ul>
+ *  <li>{@code model} - {@link SameGameModel#checkGameOver()}, only up to 512x512 as the model keeps several
+ *  buffers and versions of its grid.</li>
+ *  <li>{@code scalar} - {@link NeighborScan#scalarHasAdjacentPair(byte[], int, int)} on a byte grid.</li>
+ *  <li>{@code swar} - {@link NeighborScan#swarHasAdjacentPair(byte[], int, int)} on a byte grid.</li>
+ * </ul>
+ * Run with {@code java me.leon.samegame.benchmark.NeighborScanBenchmark}.
+ */
+public class NeighborScanBenchmark {
+    private static final int MAX_MODEL_SIZE = 512;
+
+    /**
+     * Entry point of the benchmark.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%-10s %14s %14s %14s%n", "board", "model ns/cell", "scalar ns/cell", "swar ns/cell");
+        for (int boardSize = 64; boardSize <= 4096; boardSize *= 2) {
+            int size = boardSize;
+            byte[] cells = new byte[size * size];
+            for (int col = 0; col < size; col++) {
+                for (int row = 0; row < size; row++) {
+                    cells[col * size + row] = (byte) ((row + col) % 3 + 1);
+                }
+            }
+            int repetitions = Math.max(3, (1 << 26) / cells.length);
+
+            String model = "-";
+            if (size <= MAX_MODEL_SIZE) {
+                CompactBoard board = new CompactBoard(size, size);
+                for (int col = 0; col < size; col++) {
+                    for (int row = 0; row < size; row++) {
+                        board.set(row, col, (row + col) % 3 + 1);
+                    }
+                }
+                SameGameModel sgm = new SameGameModel(board);
+                model = String.format("%.3f", measure(() -> sgm.checkGameOver(), Math.max(3, repetitions / 16), cells.length));
+            }
+            double scalar = measure(() -> !NeighborScan.scalarHasAdjacentPair(cells, size, size), repetitions, cells.length);
+            double swar = measure(() -> !NeighborScan.swarHasAdjacentPair(cells, size, size), repetitions, cells.length);
+            System.out.printf("%-10s %14s %14.3f %14.3f%n", size + "x" + size, model, scalar, swar);
+        }
+    }
+
+    /**
+     * Measures a game over scan after a warm-up.
+     *
+     * @param scan        scan to be measured, has to report game over
+     * @param repetitions number of measured runs
+     * @param cellCount   cells per run
+     * @return nanoseconds per cell
+     */
+    private static double measure(Scan scan, int repetitions, int cellCount) {
+        for (int i = 0; i < repetitions; i++) {
+            if (!scan.isGameOver()) throw new IllegalStateException("Benchmark board shall not have any move");
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            if (!scan.isGameOver()) throw new IllegalStateException("Benchmark board shall not have any move");
+        }
+        return (System.nanoTime() - start) / (double) repetitions / cellCount;
+    }
+
+    /**
+     * A game over scan under measurement.
+     */
+    private interface Scan {
+        boolean isGameOver();
+    }
+}
@@ -0,0 +1,138 @@
+package me.leon.samegame.benchmark;
+
+import me.leon.samegame.bot.LargestGroupPolicy;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.race.RaceClient;
+import me.leon.samegame.race.RaceServer;
+import me.leon.samegame.util.SoundManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code RaceBenchmark} class measures races of simulated players on a {@link RaceServer} over the loopback address.
+ * Every player is a {@link RaceClient} with a bot thread that plays the largest group of its own board as soon as its
+ * previous move was applied, so all players move at once as fast as the server lets them.
+ * For every move, every client records the time from sending the click to applying the delta (the broadcast latency),
+ * and the server counts the bytes it sent for the moves, compared with one byte per cell for sending the whole board.
+ * Run with {@code java me.leon.samegame.benchmark.RaceBenchmark}.
+ */
+public class RaceBenchmark {
+    private static final int ROWS = 15;
+    private static final int COLS = 15;
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Entry point of the benchmark.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SoundManager.setEnabled(false);
+        System.out.printf("%-8s %8s %10s %10s %10s %12s %12s %11s%n",
+                "players", "moves", "p50 us", "p99 us", "max us", "bytes/move", "board bytes", "mismatches");
+        measure(2); // warm-up
+        for (int players : new int[]{2, 8, 32, 64}) {
+            measure(players);
+        }
+    }
+
+    /**
+     * Plays one race and prints its latency and traffic.
+     *
+     * @param players number of simulated players
+     */
+    private static void measure(int players) throws IOException, InterruptedException {
+        try (RaceServer server = new RaceServer(ROWS, COLS, Difficulty.MEDIUM, 408, 0)) {
+            server.setChecksumInterval(16);
+            AtomicLongArray[] sent = new AtomicLongArray[players]; // [player][move]: nanoTime of the click
+            long[][] latencies = new long[players][];
+            int[] counts = new int[players];
+            List<RaceClient> clients = new ArrayList<>();
+            for (int i = 0; i < players; i++) {
+                sent[i] = new AtomicLongArray(ROWS * COLS / 2 + 1);
+                latencies[i] = new long[1024];
+                int receiver = i;
+                clients.add(new RaceClient(server.getPort(), "bot" + i, (player, moves) -> {
+                    long clicked = moves == 0 || player >= players ? 0 : sent[player].get(moves - 1);
+                    if (clicked == 0) return;
+                    if (counts[receiver] == latencies[receiver].length) {
+                        latencies[receiver] = Arrays.copyOf(latencies[receiver], 2 * counts[receiver]);
+                    }
+                    latencies[receiver][counts[receiver]++] = System.nanoTime() - clicked;
+                }));
+            }
+            for (RaceClient client : clients) {
+                for (int player = 0; player < players; player++) {
+                    client.awaitMoves(player, 0, TIMEOUT_MILLIS);
+                }
+            }
+            long joinBytes = server.getBytesSent();
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> bots = new ArrayList<>();
+            for (RaceClient client : clients) {
+                Thread bot = new Thread(() -> play(client, sent[client.getPlayer()], start), "SameGame-Race-Bot");
+                bot.start();
+                bots.add(bot);
+            }
+            start.countDown();
+            for (Thread bot : bots) {
+                bot.join();
+            }
+            int mismatches = 0;
+            for (RaceClient client : clients) {
+                for (int player = 0; player < players; player++) {
+                    client.awaitMoves(player, server.getMoves(player), TIMEOUT_MILLIS);
+                }
+                mismatches += client.getMismatches();
+            }
+            long moves = server.getMoves();
+            long bytes = server.getBytesSent() - joinBytes;
+            for (RaceClient client : clients) {
+                client.close();
+            }
+
+            int total = 0;
+            for (int count : counts) total += count;
+            long[] all = new long[total];
+            int offset = 0;
+            for (int i = 0; i < players; i++) {
+                System.arraycopy(latencies[i], 0, all, offset, counts[i]);
+                offset += counts[i];
+            }
+            Arrays.sort(all);
+            System.out.printf("%-8d %8d %10.0f %10.0f %10.0f %12.2f %12d %11d%n", players, moves,
+                    all[total / 2] / 1e3, all[(int) (total * 0.99)] / 1e3, all[total - 1] / 1e3,
+                    (double) bytes / (moves * players), ROWS * COLS, mismatches);
+        }
+    }
+
+    /**
+     * Plays the own board of a client to its end, one move at a time.
+     */
+    private static void play(RaceClient client, AtomicLongArray sent, CountDownLatch start) {
+        LargestGroupPolicy policy = new LargestGroupPolicy();
+        int self = client.getPlayer();
+        try {
+            start.await();
+            for (int moves = 0; ; moves++) {
+                CompactBoard board = client.getBoard(self);
+                int move = policy.chooseMove(board);
+                if (move < 0) return;
+                sent.set(moves, System.nanoTime());
+                client.move(move % ROWS, move / ROWS);
+                if (!client.awaitMoves(self, moves + 1, TIMEOUT_MILLIS)) {
+                    throw new IllegalStateException("Move " + moves + " of " + client.getName(self) + " was not applied");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Bot lost its connection: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
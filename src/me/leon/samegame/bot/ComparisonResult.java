@@ -0,0 +1,85 @@
+package me.leon.samegame.bot;
+
+/**
+ * The {@code ComparisonResult} class holds the outcome of a {@link PolicyComparison}.
+ */
+public class ComparisonResult {
+    /**
+     * Decision of the sequential test.
+     */
+    public enum Decision {
+        A_BETTER, B_BETTER, INCONCLUSIVE
+    }
+
+    private final Decision decision;
+    private final int pairs;
+    private final int winsA;
+    private final int winsB;
+    private final double meanDifference;
+    private final double confidenceHalfWidth;
+    private final double gamesPerSecond;
+
+    /**
+     * Constructs a new {@code ComparisonResult}.
+     *
+     * @param decision            decision of the sequential test
+     * @param pairs               number of paired games evaluated
+     * @param winsA               pairs where policy A scored more
+     * @param winsB               pairs where policy B scored more
+     * @param meanDifference      mean of score A - score B
+     * @param confidenceHalfWidth half width of the 95% confidence interval of the mean difference
+     * @param gamesPerSecond      single games played per second, both policies counted
+     */
+    public ComparisonResult(Decision decision, int pairs, int winsA, int winsB, double meanDifference,
+                            double confidenceHalfWidth, double gamesPerSecond) {
+        this.decision = decision;
+        this.pairs = pairs;
+        this.winsA = winsA;
+        this.winsB = winsB;
+        this.meanDifference = meanDifference;
+        this.confidenceHalfWidth = confidenceHalfWidth;
+        this.gamesPerSecond = gamesPerSecond;
+    }
+
+    public Decision getDecision() {
+        return decision;
+    }
+
+    public int getPairs() {
+        return pairs;
+    }
+
+    public int getWinsA() {
+        return winsA;
+    }
+
+    public int getWinsB() {
+        return winsB;
+    }
+
+    public int getTies() {
+        return pairs - winsA - winsB;
+    }
+
+    public double getMeanDifference() {
+        return meanDifference;
+    }
+
+    public double getConfidenceLow() {
+        return meanDifference - confidenceHalfWidth;
+    }
+
+    public double getConfidenceHigh() {
+        return meanDifference + confidenceHalfWidth;
+    }
+
+    public double getGamesPerSecond() {
+        return gamesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s after %d pairs (A wins %d, B wins %d, ties %d) | mean A-B = %.1f, 95%% CI [%.1f, %.1f] | %.0f games/s",
+                decision, pairs, winsA, winsB, getTies(), meanDifference, getConfidenceLow(), getConfidenceHigh(), gamesPerSecond);
+    }
+}
@@ -0,0 +1,29 @@
+package me.leon.samegame.bot;
+
+import me.leon.samegame.model.CompactBoard;
+
+/**
+ * The {@code LargestGroupPolicy} class always removes the largest group, like the next move suggestion
+ * of {@code SameGameModel}: the grid is scanned row by row and the first group of maximum size wins.
+ */
+public class LargestGroupPolicy implements Policy {
+
+    @Override
+    public int chooseMove(CompactBoard board) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int bestSize = 1;
+        int bestMove = -1;
+        board.beginVisit();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int size = board.floodFillVisited(col * rows + row, null);
+                if (size > bestSize) {
+                    bestSize = size;
+                    bestMove = col * rows + row;
+                }
+            }
+        }
+        return bestMove;
+    }
+}
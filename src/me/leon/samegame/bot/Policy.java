@@ -0,0 +1,38 @@
+package me.leon.samegame.bot;
+
+import me.leon.samegame.model.CompactBoard;
+
+/**
+ * The {@code Policy} interface defines the contract for a move selection strategy of SameGame,
+ * e.g. the hint algorithm behind {@code getNextBestMove()} or a bot.
+ * This interface is part of the <b>Strategy</b> pattern, so different policies can be plugged into
+ * the tools that play games automatically. A policy instance is only used by one thread at a time.
+ */
+public interface Policy {
+
+    /**
+     * Chooses the next move for a position.
+     *
+     * @param board the current position, must not be modified
+     * @return column-major cell index of a removable group, -1 if there is no move
+     */
+    int chooseMove(CompactBoard board);
+
+    /**
+     * Plays a whole game from the given position with this policy.
+     *
+     * @param board start position, is played to the end
+     * @return score of the game
+     */
+    default long play(CompactBoard board) {
+        long points = 0;
+        for (int move = chooseMove(board); move >= 0; move = chooseMove(board)) {
+            int removed = board.removeGroupAt(move);
+            if (removed == 0) {
+                throw new IllegalStateException("Policy chose an invalid move " + move);
+            }
+            points += CompactBoard.pointsForGroup(removed);
+        }
+        return points;
+    }
+}
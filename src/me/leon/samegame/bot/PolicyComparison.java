@@ -0,0 +1,176 @@
+package me.leon.samegame.bot;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * The {@code PolicyComparison} class is an A/B harness for two {@link Policy}s.
+ * Both policies play the same seeded start positions (paired games), which removes the luck of the deal
+ * from the comparison. Both policies of a pair are created from a policy seed derived from the seed of the pair,
+ * so a stateful policy like {@link RandomPolicy} makes the same moves no matter which thread plays the pair,
+ * but does not replay the random sequence that dealt the board. The games are played in parallel,
+ * but evaluated in seed order, so results are reproducible for any number of threads.
+ * <p>
+ * After every pair a sequential probability ratio test (SPRT) on the winner of the pair is updated.
+ * Ties are ignored, and for the others the test decides between "A wins a pair with probability {@code 0.5 + delta}"
+ * and "A wins with probability {@code 0.5 - delta}". It stops as soon as one of them is accepted
+ * with the error rates {@code alpha} and {@code beta}, but not before {@link #MIN_PAIRS} pairs,
+ * or after {@code maxPairs} pairs.
+ * The winner test is used instead of the score difference, because scores grow exponentially with the group size
+ * and single games would dominate a test on the mean. The mean difference is reported with a 95% confidence interval.
+ * A clear winner lets the SPRT accept after a handful of pairs, long before that interval is meaningful,
+ * so the test has to wait for {@link #MIN_PAIRS} pairs.
+ */
+public class PolicyComparison {
+    /**
+     * Number of pairs that are played before the sequential test may stop.
+     */
+    public static final int MIN_PAIRS = 100;
+
+    private final int rows;
+    private final int cols;
+    private final int difficulty;
+    private final LongFunction<Policy> policyA;
+    private final LongFunction<Policy> policyB;
+    private final int threads;
+
+    /**
+     * Constructs a new {@code PolicyComparison}.
+     *
+     * @param rows       number of rows of the boards
+     * @param cols       number of cols of the boards
+     * @param difficulty number of colors
+     * @param policyA    creates an instance of policy A from the policy seed of a pair, called for every pair
+     * @param policyB    creates an instance of policy B from the policy seed of a pair, called for every pair
+     * @param threads    number of threads playing games
+     */
+    public PolicyComparison(int rows, int cols, int difficulty, LongFunction<Policy> policyA, LongFunction<Policy> policyB, int threads) {
+        this.rows = rows;
+        this.cols = cols;
+        this.difficulty = difficulty;
+        this.policyA = policyA;
+        this.policyB = policyB;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays paired games until the sequential test decides or {@code maxPairs} is reached.
+     *
+     * @param firstSeed seed of the first pair, the following pairs use the next seeds
+     * @param delta     difference of the win probability from 0.5 that shall be detected, e.g. 0.05
+     * @param alpha     probability to wrongly decide for A
+     * @param beta      probability to wrongly decide for B
+     * @param maxPairs  maximum number of pairs
+     * @return result of the comparison
+     */
+    public ComparisonResult run(long firstSeed, double delta, double alpha, double beta, int maxPairs) {
+        double winStep = Math.log((0.5 + delta) / (0.5 - delta));
+        double upper = Math.log((1 - beta) / alpha);
+        double lower = Math.log(beta / (1 - alpha));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        int pairs = 0;
+        int winsA = 0;
+        int winsB = 0;
+        double llr = 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        ComparisonResult.Decision decision = ComparisonResult.Decision.INCONCLUSIVE;
+        try {
+            int batchSize = threads * 16;
+            long seed = firstSeed;
+            batches:
+            while (pairs < maxPairs) {
+                List<Callable<long[]>> batch = new ArrayList<>();
+                for (int i = 0; i < batchSize && pairs + i < maxPairs; i++) {
+                    long pairSeed = seed++;
+                    batch.add(() -> playPair(pairSeed));
+                }
+                for (Future<long[]> future : executor.invokeAll(batch)) {
+                    long[] scores = future.get();
+                    double difference = (double) scores[0] - scores[1];
+                    pairs++;
+                    sum += difference;
+                    sumOfSquares += difference * difference;
+                    if (scores[0] > scores[1]) {
+                        winsA++;
+                        llr += winStep;
+                    } else if (scores[0] < scores[1]) {
+                        winsB++;
+                        llr -= winStep;
+                    }
+                    if (pairs < MIN_PAIRS) {
+                        continue;
+                    }
+                    if (llr >= upper) {
+                        decision = ComparisonResult.Decision.A_BETTER;
+                        break batches;
+                    }
+                    if (llr <= lower) {
+                        decision = ComparisonResult.Decision.B_BETTER;
+                        break batches;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A policy failed during the comparison", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double mean = pairs == 0 ? 0 : sum / pairs;
+        double variance = pairs < 2 ? 0 : (sumOfSquares - pairs * mean * mean) / (pairs - 1);
+        double halfWidth = pairs == 0 ? 0 : 1.96 * Math.sqrt(Math.max(variance, 0) / pairs);
+        return new ComparisonResult(decision, pairs, winsA, winsB, mean, halfWidth, 2 * pairs / seconds);
+    }
+
+    /**
+     * Plays one start position with both policies, created for this pair.
+     *
+     * @param seed seed of the start position
+     * @return scores of policy A and policy B
+     */
+    private long[] playPair(long seed) {
+        CompactBoard board = CompactBoard.random(rows, cols, difficulty, seed);
+        long policySeed = policySeed(seed);
+        long scoreA = policyA.apply(policySeed).play(board.copy());
+        long scoreB = policyB.apply(policySeed).play(board);
+        return new long[]{scoreA, scoreB};
+    }
+
+    /**
+     * Derives the seed of the policies of a pair from the seed of its start position with one SplitMix64 step,
+     * so a policy seeded with it does not draw the same random sequence that dealt the board.
+     *
+     * @param seed seed of the start position
+     * @return seed of the policies
+     */
+    private static long policySeed(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Compares the largest group policy (A) with random moves (B) on the default board of the game.
+     */
+    public static void main(String[] args) {
+        PolicyComparison comparison = new PolicyComparison(6, 9, Difficulty.MEDIUM, seed -> new LargestGroupPolicy(),
+                RandomPolicy::new, Runtime.getRuntime().availableProcessors());
+        System.out.println(comparison.run(0, 0.05, 0.05, 0.05, 100_000));
+    }
+}
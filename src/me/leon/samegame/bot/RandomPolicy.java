@@ -0,0 +1,34 @@
+package me.leon.samegame.bot;
+
+import me.leon.samegame.model.CompactBoard;
+
+import java.util.Random;
+
+/**
+ * The {@code RandomPolicy} class removes a uniformly chosen removable group, as a baseline for comparisons.
+ */
+public class RandomPolicy implements Policy {
+    private final Random r;
+    private int[] representatives;
+    private int[] sizes;
+
+    /**
+     * Constructs a new {@code RandomPolicy}.
+     *
+     * @param seed the seed for choosing moves
+     */
+    public RandomPolicy(long seed) {
+        this.r = new Random(seed);
+    }
+
+    @Override
+    public int chooseMove(CompactBoard board) {
+        int groups = board.getRows() * board.getCols() / 2 + 1;
+        if (representatives == null || representatives.length < groups) {
+            representatives = new int[groups];
+            sizes = new int[groups];
+        }
+        int count = board.findGroups(representatives, sizes);
+        return count == 0 ? -1 : representatives[r.nextInt(count)];
+    }
+}
@@ -0,0 +1,161 @@
+package me.leon.samegame.controller;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.GameModel;
+import me.leon.samegame.model.GameSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * The {@code ClickPipeline} class moves the processing of clicks off the Swing event dispatch thread.
+ * The event dispatch thread only enqueues the clicked cell with {@link #enqueue(int, int)}.
+ * A single model thread owns the {@link GameModel}: it drains all queued clicks at once, drops clicks
+ * on removed tiles without a view update, applies the others and publishes one {@link GameSnapshot}
+ * per drained batch, so rapid clicking never piles up view updates.
+ * <p>
+ * The latency from enqueueing a click until the model has applied it is measured for every processed click.
+ */
+public class ClickPipeline {
+    private final GameModel gameModel;
+    private final Consumer<GameSnapshot> publisher;
+    private final BlockingQueue<Click> queue;
+    private final Thread worker;
+    private long version;
+    private volatile long processedClicks;
+    private volatile long droppedClicks;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    /**
+     * Constructs a new {@code ClickPipeline} and starts its model thread.
+     *
+     * @param gameModel the model, must only be changed by this pipeline from now on
+     * @param publisher receives a snapshot after every batch of clicks that changed the model, called on the model thread
+     */
+    public ClickPipeline(GameModel gameModel, Consumer<GameSnapshot> publisher) {
+        this.gameModel = gameModel;
+        this.publisher = publisher;
+        this.queue = new LinkedBlockingQueue<>();
+        this.worker = new Thread(this::run, "SameGame-Model");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Enqueues a click, returns immediately.
+     *
+     * @param row row index of the clicked tile
+     * @param col col index of the clicked tile
+     */
+    public void enqueue(int row, int col) {
+        queue.add(new Click(row, col, System.nanoTime()));
+    }
+
+    /**
+     * Stops the model thread after the clicks currently being processed.
+     */
+    public void stop() {
+        worker.interrupt();
+    }
+
+    /**
+     * Loop of the model thread.
+     */
+    private void run() {
+        List<Click> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+
+                boolean changed = false;
+                long latestInput = 0;
+                for (Click click : batch) {
+                    if (gameModel.getGameOver()) {
+                        droppedClicks++;
+                        continue;
+                    }
+                    if (gameModel.getBoard().get(click.row, click.col) == CompactBoard.EMPTY) {
+                        gameModel.processGameInteraction(click.row, click.col); // only plays the empty click sound
+                        droppedClicks++;
+                        continue;
+                    }
+                    long pointsBefore = gameModel.getPoints();
+                    gameModel.processGameInteraction(click.row, click.col);
+                    recordLatency(System.nanoTime() - click.nanos);
+                    changed |= gameModel.getPoints() != pointsBefore;
+                    latestInput = click.nanos;
+                }
+                batch.clear();
+
+                if (changed) {
+                    publisher.accept(GameSnapshot.of(gameModel, ++version, latestInput));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        processedClicks++;
+        totalLatencyNanos += nanos;
+        if (nanos > maxLatencyNanos) maxLatencyNanos = nanos;
+    }
+
+    /**
+     * Retrieves the number of clicks applied to the model.
+     *
+     * @return number of processed clicks
+     */
+    public long getProcessedClicks() {
+        return processedClicks;
+    }
+
+    /**
+     * Retrieves the number of clicks dropped because they hit a removed tile or the game was over.
+     *
+     * @return number of dropped clicks
+     */
+    public long getDroppedClicks() {
+        return droppedClicks;
+    }
+
+    /**
+     * Retrieves the average time from enqueueing a click until the model applied it.
+     *
+     * @return average input-to-model latency in nanoseconds
+     */
+    public long getAverageLatencyNanos() {
+        long processed = processedClicks;
+        return processed == 0 ? 0 : totalLatencyNanos / processed;
+    }
+
+    /**
+     * Retrieves the longest time from enqueueing a click until the model applied it.
+     *
+     * @return maximum input-to-model latency in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    /**
+     * A clicked cell together with the time it was enqueued.
+     */
+    private static final class Click {
+        private final int row;
+        private final int col;
+        private final long nanos;
+
+        private Click(int row, int col, long nanos) {
+            this.row = row;
+            this.col = col;
+            this.nanos = nanos;
+        }
+    }
+}
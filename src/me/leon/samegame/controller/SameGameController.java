@@ -4,15 +4,20 @@ import me.leon.samegame.input.InputObserver;
 import me.leon.samegame.input.KeyboardHandler;
 import me.leon.samegame.input.MouseHandler;
 import me.leon.samegame.model.GameModel;
-import me.leon.samegame.util.HighscoreManager;
+import me.leon.samegame.model.GameSnapshot;
+import me.leon.samegame.util.HighscoreStore;
+import me.leon.samegame.view.BoardPanel;
 import me.leon.samegame.view.GameView;
 import me.leon.samegame.view.SameGameConsoleView;
 import me.leon.samegame.view.SameGameView;
 
+import javax.swing.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The {@code SameGameController} class manages the game logic and interactions in SameGame.
@@ -20,11 +25,19 @@ import java.util.List;
  * The controller de-/registers views, updates game state, is responsible for coordinating interactions
  * between model and views (following MVC principles), as well as responding to mouse and key events
  * to interact with the game.
+ * <p>
+ * Clicks are not processed on the Swing event dispatch thread: they are mapped to cells with lookup tables
+ * that are rebuilt when the game panel is resized, and handed to a {@link ClickPipeline} which owns the model.
+ * The resulting {@link GameSnapshot}s are shown by Swing views on the event dispatch thread,
+ * all other views are updated directly on the model thread.
  */
 public class SameGameController implements GameController, InputObserver {
     private static SameGameController instance;
     private GameModel gameModel;
     private List<GameView> gameViews;
+    private ClickPipeline clickPipeline;
+    private int[] rowForY = new int[0]; // cell lookup tables of the game panel, only used on the event dispatch thread
+    private int[] colForX = new int[0];
 
     /**
      * Constructs a new {@code SameGameController} with the specified game model.
@@ -33,7 +46,8 @@ public class SameGameController implements GameController, InputObserver {
      */
     private SameGameController(GameModel gameModel) {
         this.gameModel = gameModel;
-        this.gameViews = new ArrayList<>();
+        this.gameViews = new CopyOnWriteArrayList<>(); // iterated by the model thread, changed by the event dispatch thread
+        this.clickPipeline = new ClickPipeline(gameModel, this::publish);
     }
 
     /**
@@ -48,6 +62,55 @@ public class SameGameController implements GameController, InputObserver {
         if (gameView instanceof SameGameView) {
             gameView.addGameMouseListener(new MouseHandler(this));
             gameView.addGameKeyListener(new KeyboardHandler(this));
+            JPanel gamePanel = gameView.getGamePanel();
+            gamePanel.addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    updateCellMapping(gamePanel.getWidth(), gamePanel.getHeight());
+                }
+            });
+            updateCellMapping(gamePanel.getWidth(), gamePanel.getHeight());
+        }
+    }
+
+    /**
+     * Rebuilds the lookup tables from pixel coordinates of the game panel to rows and cols.
+     *
+     * @param width  width of the game panel
+     * @param height height of the game panel
+     */
+    private void updateCellMapping(int width, int height) {
+        int[] cols = new int[width];
+        for (int x = 0; x < width; x++) {
+            cols[x] = BoardPanel.cellAt(x, width, gameModel.getGameCols());
+        }
+        int[] rows = new int[height];
+        for (int y = 0; y < height; y++) {
+            rows[y] = BoardPanel.cellAt(y, height, gameModel.getGameRows());
+        }
+        colForX = cols;
+        rowForY = rows;
+    }
+
+    /**
+     * Shows a snapshot published by the {@link ClickPipeline}, called on the model thread.
+     * Swing views are updated on the event dispatch thread, all other views right away.
+     * When the game is over, the highscores are updated as well, with the points of the snapshot,
+     * because the model belongs to the model thread.
+     *
+     * @param snapshot state of the game after the last batch of clicks
+     */
+    private void publish(GameSnapshot snapshot) {
+        for (GameView gameView : gameViews) {
+            if (gameView instanceof SameGameView) {
+                SwingUtilities.invokeLater(() -> gameView.updateView(snapshot));
+            } else {
+                gameView.updateView(snapshot);
+            }
+        }
+        if (snapshot.getGameOver()) {
+            long points = snapshot.getPoints();
+            SwingUtilities.invokeLater(() -> updateHighscore(points));
         }
     }
 
@@ -72,28 +135,17 @@ public class SameGameController implements GameController, InputObserver {
     }
 
     /**
-     * Calls {@code processGameInteraction()} within the model at the clicked position.
-     * The target tile is being calculated based on the panels size.
-     * Updates the views and checks for game over condition.
+     * Maps the click to a tile with the precomputed lookup tables and enqueues it in the {@link ClickPipeline},
+     * which calls {@code processGameInteraction()} within the model, updates the views and checks for game over condition.
      *
      * @param e MouseEvent representing the click
      */
     @Override
     public void onMouseClicked(MouseEvent e) {
-        // Calculate tile position based on gamePanel
-        int clickedRow = 0, clickedCol = 0;
-        for (GameView gameView : gameViews) {
-            if (gameView instanceof SameGameView) {
-                clickedRow = e.getY() / (gameView.getGamePanel().getHeight() / gameModel.getGameRows());
-                clickedCol = e.getX() / (gameView.getGamePanel().getWidth() / gameModel.getGameCols());
-                break;
-            }
-        }
-        gameModel.processGameInteraction(clickedRow, clickedCol);
-        updateViews();
-        if (gameModel.getGameOver()) {
-            updateHighscore();
-        }
+        int[] rows = rowForY;
+        int[] cols = colForX;
+        if (e.getY() < 0 || e.getY() >= rows.length || e.getX() < 0 || e.getX() >= cols.length) return;
+        clickPipeline.enqueue(rows[e.getY()], cols[e.getX()]);
     }
 
     /**
@@ -129,19 +181,22 @@ public class SameGameController implements GameController, InputObserver {
     }
 
     /**
-     * Updates the highscores using the {@link HighscoreManager} and triggers
-     * their displaying in all registered views.
+     * Updates the highscores using the {@link HighscoreStore} and triggers
+     * their displaying in all registered views. The scores are shown from memory,
+     * the highscore file is written in the background.
      */
     @Override
     public void updateHighscore() {
-        // Load existing highscores
-        HighscoreManager highscoreManager = HighscoreManager.loadHighscores("highscores.dat");
-        // Add current game points to highscores
-        highscoreManager.addScore(gameModel.getPoints());
-        // Save updated highscores
-        highscoreManager.saveHighscores("highscores.dat");
-
-        List<Long> scores = highscoreManager.getHighscores();
+        updateHighscore(gameModel.getPoints());
+    }
+
+    /**
+     * Updates the highscores with the given final score and triggers their displaying in all registered views.
+     *
+     * @param points final score of the game
+     */
+    private void updateHighscore(long points) {
+        List<Long> scores = HighscoreStore.get().addScore(points);
         for (GameView gameView : gameViews) {
             gameView.showHighscores(scores);
             if (gameView instanceof SameGameView) {
@@ -150,6 +205,15 @@ public class SameGameController implements GameController, InputObserver {
         }
     }
 
+    /**
+     * Retrieves the pipeline processing the clicks, e.g. to read its latency statistics.
+     *
+     * @return click pipeline of this controller
+     */
+    public ClickPipeline getClickPipeline() {
+        return clickPipeline;
+    }
+
     /**
      * Retrieves the individual instance of the controller following the <b>Singleton</b> pattern.
      *
@@ -0,0 +1,39 @@
+package me.leon.samegame.fuzz;
+
+import me.leon.samegame.model.CompactBoard;
+
+/**
+ * The {@code CompactBoardEngine} class plays games on a {@link CompactBoard},
+ * the board used by the solver, the bots and the benchmarks.
+ */
+public class CompactBoardEngine implements Engine {
+    private CompactBoard board;
+    private long points;
+
+    @Override
+    public void reset(CompactBoard start) {
+        board = start.copy();
+        points = 0;
+    }
+
+    @Override
+    public void play(int row, int col) {
+        int removed = board.removeGroup(row, col);
+        if (removed > 0) points += CompactBoard.pointsForGroup(removed);
+    }
+
+    @Override
+    public int get(int row, int col) {
+        return board.get(row, col);
+    }
+
+    @Override
+    public long getPoints() {
+        return points;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return board.isGameOver();
+    }
+}
@@ -0,0 +1,368 @@
+package me.leon.samegame.fuzz;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.util.SoundManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The {@code DifferentialFuzzer} class plays random seeded games on a candidate {@link Engine} and on the
+ * {@link ReferenceModel} at the same time, and compares board, score, game over state and, if the candidate
+ * suggests moves, the next best move after every click.
+ * <p>
+ * Every seed defines a start position of 1x1 up to 16x16 cells with 1 to 5 colors, or for every other seed up to
+ * {@link Difficulty#MAX} colors so that all bit widths of the packed model grid are played, and a sequence of clicks:
+ * mostly on removable groups, sometimes on any cell including removed and single tiles, and one more click
+ * after the game is over. The games are played in parallel. The diverging game with the lowest seed is shrunk
+ * to a minimal {@link Divergence}: clicks are removed as long as the engines still differ (delta debugging),
+ * then rows and columns of the start position, until nothing can be removed anymore.
+ * <p>
+ * Run with {@code java me.leon.samegame.fuzz.DifferentialFuzzer [--engine=model|compact] [--games=N] [--seed=S]},
+ * the exit code is 1 if a divergence was found.
+ */
+public class DifferentialFuzzer {
+    private static final int MAX_SIZE = 16;
+    private static final int MAX_COLORS = 5;
+    private static final int SEEDS_PER_TASK = 256;
+    private final Supplier<Engine> candidate;
+    private final int threads;
+
+    /**
+     * Constructs a new {@code DifferentialFuzzer}.
+     *
+     * @param candidate creates instances of the engine under test, one per thread
+     * @param threads   number of threads playing games
+     */
+    public DifferentialFuzzer(Supplier<Engine> candidate, int threads) {
+        this.candidate = candidate;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays games until all seeds are played or a divergence is found. Seeds after the first diverging seed
+     * are skipped, so the reported divergence is always the one of the lowest diverging seed.
+     *
+     * @param firstSeed seed of the first game, the following games use the next seeds
+     * @param games     number of games
+     * @return report with the shrunk divergence, if any
+     */
+    public FuzzReport run(long firstSeed, long games) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Engine[]> engines = ThreadLocal.withInitial(() -> new Engine[]{new ReferenceModel(), candidate.get()});
+        AtomicLong firstDivergence = new AtomicLong(Long.MAX_VALUE);
+        LongAdder playedGames = new LongAdder();
+        LongAdder playedMoves = new LongAdder();
+        long start = System.nanoTime();
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (long offset = 0; offset < games; offset += SEEDS_PER_TASK) {
+                long from = firstSeed + offset;
+                long to = firstSeed + Math.min(games, offset + SEEDS_PER_TASK);
+                tasks.add(() -> {
+                    Engine[] pair = engines.get();
+                    List<int[]> moves = new ArrayList<>();
+                    for (long seed = from; seed < to && seed < firstDivergence.get(); seed++) {
+                        moves.clear();
+                        String difference = play(seed, (ReferenceModel) pair[0], pair[1], moves);
+                        playedGames.increment();
+                        playedMoves.add(moves.size());
+                        if (difference != null) firstDivergence.accumulateAndGet(seed, Math::min);
+                    }
+                    return null;
+                });
+            }
+            for (var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The fuzzer failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Divergence divergence = null;
+        if (firstDivergence.get() != Long.MAX_VALUE) {
+            divergence = shrink(firstDivergence.get());
+        }
+        return new FuzzReport(playedGames.sum(), playedMoves.sum(), playedGames.sum() / seconds, divergence);
+    }
+
+    /**
+     * Plays the game of a seed on both engines.
+     *
+     * @param seed      seed of the game
+     * @param reference reference engine
+     * @param engine    engine under test
+     * @param moves     receives the clicks of the game
+     * @return first difference, or {@code null} if the engines matched
+     */
+    private static String play(long seed, ReferenceModel reference, Engine engine, List<int[]> moves) {
+        Random r = new Random(seed);
+        CompactBoard start = randomBoard(r);
+        int rows = start.getRows();
+        int cols = start.getCols();
+        reference.reset(start);
+        String difference = apply(engine, e -> e.reset(start), reference, rows, cols);
+        int clicksAfterGameOver = 0;
+        for (int step = 0; difference == null && step <= rows * cols && clicksAfterGameOver < 1; step++) {
+            if (reference.isGameOver()) clicksAfterGameOver++;
+            int[] move = pickMove(r, reference, rows, cols);
+            moves.add(move);
+            reference.play(move[0], move[1]);
+            difference = apply(engine, e -> e.play(move[0], move[1]), reference, rows, cols);
+        }
+        return difference;
+    }
+
+    /**
+     * Creates a random start position. Unlike new games, positions without any move are possible.
+     */
+    private static CompactBoard randomBoard(Random r) {
+        int rows = 1 + r.nextInt(MAX_SIZE);
+        int cols = 1 + r.nextInt(MAX_SIZE);
+        int colors = 1 + r.nextInt(r.nextBoolean() ? MAX_COLORS : Difficulty.MAX);
+        CompactBoard board = new CompactBoard(rows, cols);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                board.set(row, col, 1 + r.nextInt(colors));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Picks the next click: a random removable tile in seven of eight cases, otherwise any random cell.
+     */
+    private static int[] pickMove(Random r, ReferenceModel reference, int rows, int cols) {
+        if (!reference.isGameOver() && r.nextInt(8) != 0) {
+            int movable = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    if (reference.isMovable(row, col)) movable++;
+                }
+            }
+            int pick = r.nextInt(movable);
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    if (reference.isMovable(row, col) && pick-- == 0) return new int[]{row, col};
+                }
+            }
+        }
+        return new int[]{r.nextInt(rows), r.nextInt(cols)};
+    }
+
+    /**
+     * Applies an action to the engine under test and compares it with the reference afterward.
+     *
+     * @return first difference, or {@code null} if the engines match
+     */
+    private static String apply(Engine engine, Action action, Engine reference, int rows, int cols) {
+        try {
+            action.apply(engine);
+            return compare(reference, engine, rows, cols);
+        } catch (RuntimeException e) {
+            return "engine failed with " + e;
+        }
+    }
+
+    /**
+     * Compares the state of two engines.
+     *
+     * @param expected reference engine
+     * @param actual   engine under test
+     * @param rows     number of rows of the board
+     * @param cols     number of cols of the board
+     * @return first difference, or {@code null} if the engines match
+     */
+    static String compare(Engine expected, Engine actual, int rows, int cols) {
+        if (expected.getPoints() != actual.getPoints()) {
+            return "points expected " + expected.getPoints() + " but was " + actual.getPoints();
+        }
+        if (expected.isGameOver() != actual.isGameOver()) {
+            return "game over expected " + expected.isGameOver() + " but was " + actual.isGameOver();
+        }
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                if (expected.get(row, col) != actual.get(row, col)) {
+                    return "cell (" + row + "," + col + ") expected " + expected.get(row, col) + " but was " + actual.get(row, col);
+                }
+            }
+        }
+        int[] actualMove = actual.getNextBestMove();
+        int[] expectedMove = expected.getNextBestMove();
+        if (actualMove != null && !Arrays.equals(expectedMove, actualMove)) {
+            return "next best move expected " + Arrays.toString(expectedMove) + " but was " + Arrays.toString(actualMove);
+        }
+        return null;
+    }
+
+    /**
+     * Replays clicks on fresh engines.
+     *
+     * @param start      start position
+     * @param moves      clicks to be replayed
+     * @param difference receives the first difference
+     * @return number of clicks until the first difference (0 if the start position differs), or -1 if the engines match
+     */
+    private int replay(CompactBoard start, List<int[]> moves, StringBuilder difference) {
+        int rows = start.getRows();
+        int cols = start.getCols();
+        ReferenceModel reference = new ReferenceModel();
+        Engine engine = candidate.get();
+        reference.reset(start);
+        String result = apply(engine, e -> e.reset(start), reference, rows, cols);
+        for (int i = 0; result == null && i < moves.size(); i++) {
+            int[] move = moves.get(i);
+            reference.play(move[0], move[1]);
+            result = apply(engine, e -> e.play(move[0], move[1]), reference, rows, cols);
+            if (result != null) {
+                difference.setLength(0);
+                difference.append(result);
+                return i + 1;
+            }
+        }
+        if (result == null) return -1;
+        difference.setLength(0);
+        difference.append(result);
+        return 0;
+    }
+
+    /**
+     * Shrinks the game of a diverging seed to a minimal replay.
+     *
+     * @param seed seed of the diverging game
+     * @return minimal replay that still diverges
+     */
+    Divergence shrink(long seed) {
+        List<int[]> moves = new ArrayList<>();
+        if (play(seed, new ReferenceModel(), candidate.get(), moves) == null) {
+            throw new IllegalStateException("Seed " + seed + " does not diverge when played again, the engine is not deterministic");
+        }
+        CompactBoard start = randomBoard(new Random(seed));
+        int originalMoves = moves.size();
+        StringBuilder difference = new StringBuilder();
+
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            // remove chunks of clicks, from half of all clicks down to single clicks
+            for (int chunk = Math.max(1, moves.size() / 2); chunk >= 1; chunk /= 2) {
+                for (int from = 0; from + chunk <= moves.size(); ) {
+                    List<int[]> candidateMoves = new ArrayList<>(moves.subList(0, from));
+                    candidateMoves.addAll(moves.subList(from + chunk, moves.size()));
+                    int diverging = replay(start, candidateMoves, difference);
+                    if (diverging >= 0) {
+                        moves = new ArrayList<>(candidateMoves.subList(0, diverging));
+                        progress = true;
+                    } else {
+                        from += chunk;
+                    }
+                }
+            }
+            // remove rows and columns of the start position
+            for (int col = start.getCols() - 1; col >= 0 && start.getCols() > 1; col--) {
+                CompactBoard smaller = without(start, -1, col);
+                List<int[]> candidateMoves = withoutLine(moves, 1, col, smaller);
+                int diverging = replay(smaller, candidateMoves, difference);
+                if (diverging >= 0) {
+                    start = smaller;
+                    moves = new ArrayList<>(candidateMoves.subList(0, diverging));
+                    progress = true;
+                }
+            }
+            for (int row = start.getRows() - 1; row >= 0 && start.getRows() > 1; row--) {
+                CompactBoard smaller = without(start, row, -1);
+                List<int[]> candidateMoves = withoutLine(moves, 0, row, smaller);
+                int diverging = replay(smaller, candidateMoves, difference);
+                if (diverging >= 0) {
+                    start = smaller;
+                    moves = new ArrayList<>(candidateMoves.subList(0, diverging));
+                    progress = true;
+                }
+            }
+        }
+        replay(start, moves, difference);
+        return new Divergence(seed, start, moves.toArray(new int[0][]), difference.toString(), originalMoves);
+    }
+
+    /**
+     * Copies a board without one row or one column.
+     *
+     * @param board     board to be copied
+     * @param removeRow row to be left out, or -1
+     * @param removeCol col to be left out, or -1
+     * @return smaller board
+     */
+    private static CompactBoard without(CompactBoard board, int removeRow, int removeCol) {
+        CompactBoard smaller = new CompactBoard(board.getRows() - (removeRow >= 0 ? 1 : 0), board.getCols() - (removeCol >= 0 ? 1 : 0));
+        for (int row = 0; row < smaller.getRows(); row++) {
+            for (int col = 0; col < smaller.getCols(); col++) {
+                int fromRow = removeRow >= 0 && row >= removeRow ? row + 1 : row;
+                int fromCol = removeCol >= 0 && col >= removeCol ? col + 1 : col;
+                smaller.set(row, col, board.get(fromRow, fromCol));
+            }
+        }
+        return smaller;
+    }
+
+    /**
+     * Adapts clicks to a board without one row or column: clicks on the line are dropped, clicks behind it move up.
+     *
+     * @param moves   clicks on the original board
+     * @param axis    0 for a row, 1 for a column
+     * @param line    index of the removed row or column
+     * @param smaller the smaller board
+     * @return clicks on the smaller board
+     */
+    private static List<int[]> withoutLine(List<int[]> moves, int axis, int line, CompactBoard smaller) {
+        List<int[]> adapted = new ArrayList<>();
+        for (int[] move : moves) {
+            if (move[axis] == line) continue;
+            int[] moved = move.clone();
+            if (moved[axis] > line) moved[axis]--;
+            if (moved[0] < smaller.getRows() && moved[1] < smaller.getCols()) adapted.add(moved);
+        }
+        return adapted;
+    }
+
+    /**
+     * An action on an engine, either the start of a game or a click.
+     */
+    private interface Action {
+        void apply(Engine engine);
+    }
+
+    /**
+     * Entry point of the fuzzer.
+     */
+    public static void main(String[] args) {
+        SoundManager.setEnabled(false);
+        Supplier<Engine> engine = ModelEngine::new;
+        long games = 1_000_000;
+        long seed = 0;
+        for (String arg : args) {
+            if (arg.equals("--engine=compact")) engine = CompactBoardEngine::new;
+            else if (arg.equals("--engine=model")) engine = ModelEngine::new;
+            else if (arg.startsWith("--games=")) games = Long.parseLong(arg.substring("--games=".length()));
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(arg.substring("--seed=".length()));
+            else throw new IllegalArgumentException("Unknown argument " + arg);
+        }
+        FuzzReport report = new DifferentialFuzzer(engine, Runtime.getRuntime().availableProcessors()).run(seed, games);
+        System.out.println(report);
+        if (report.getDivergence() != null) System.exit(1);
+    }
+}
@@ -0,0 +1,91 @@
+package me.leon.samegame.fuzz;
+
+import me.leon.samegame.model.CompactBoard;
+
+/**
+ * The {@code Divergence} class is a minimal replay on which a candidate engine differs from the {@link ReferenceModel}:
+ * the start position, the clicks and the first difference after the last click.
+ */
+public class Divergence {
+    private final long seed;
+    private final CompactBoard start;
+    private final int[][] moves;
+    private final String difference;
+    private final int originalMoves;
+
+    /**
+     * Constructs a new {@code Divergence}.
+     *
+     * @param seed          seed of the fuzzed game that diverged first
+     * @param start         start position of the replay
+     * @param moves         clicks of the replay as {@code [row, col]}
+     * @param difference    description of the first difference
+     * @param originalMoves number of clicks of the game before shrinking
+     */
+    public Divergence(long seed, CompactBoard start, int[][] moves, String difference, int originalMoves) {
+        this.seed = seed;
+        this.start = start;
+        this.moves = moves;
+        this.difference = difference;
+        this.originalMoves = originalMoves;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Retrieves the start position of the replay.
+     *
+     * @return copy of the start position
+     */
+    public CompactBoard getStart() {
+        return start.copy();
+    }
+
+    /**
+     * Retrieves the clicks of the replay.
+     *
+     * @return copy of the clicks as {@code [row, col]}
+     */
+    public int[][] getMoves() {
+        int[][] copy = new int[moves.length][];
+        for (int i = 0; i < moves.length; i++) {
+            copy[i] = moves[i].clone();
+        }
+        return copy;
+    }
+
+    public String getDifference() {
+        return difference;
+    }
+
+    public int getOriginalMoves() {
+        return originalMoves;
+    }
+
+    /**
+     * Returns the replay as text: the start position with one digit per color index
+     * ({@code .} for removed tiles), the clicks and the difference.
+     *
+     * @return replay to be pasted into a bug report or a test
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("Divergence of seed ").append(seed).append(" (").append(originalMoves).append(" moves before shrinking)\n");
+        text.append("Start ").append(start.getRows()).append('x').append(start.getCols()).append(":\n");
+        for (int row = 0; row < start.getRows(); row++) {
+            for (int col = 0; col < start.getCols(); col++) {
+                int cell = start.get(row, col);
+                text.append(cell == CompactBoard.EMPTY ? '.' : Character.forDigit(cell, 16));
+            }
+            text.append('\n');
+        }
+        text.append("Moves:");
+        for (int[] move : moves) {
+            text.append(" (").append(move[0]).append(',').append(move[1]).append(')');
+        }
+        return text.append("\nAfter the last move: ").append(difference).toString();
+    }
+}
@@ -0,0 +1,58 @@
+package me.leon.samegame.fuzz;
+
+import me.leon.samegame.model.CompactBoard;
+
+/**
+ * The {@code Engine} interface is the view of a SameGame implementation that the {@link DifferentialFuzzer}
+ * compares with the {@link ReferenceModel}. Adapters exist for the {@code SameGameModel} ({@link ModelEngine})
+ * and the {@link CompactBoard} ({@link CompactBoardEngine}), new fast paths only need another adapter.
+ */
+public interface Engine {
+
+    /**
+     * Starts a game from a position.
+     *
+     * @param start start position, color index {@code i} is the {@code i}-th color, must not be modified
+     */
+    void reset(CompactBoard start);
+
+    /**
+     * Clicks a cell. Clicks on removed tiles and on single tiles must not change anything.
+     *
+     * @param row row index of the clicked cell
+     * @param col col index of the clicked cell
+     */
+    void play(int row, int col);
+
+    /**
+     * Returns the color index of a cell.
+     *
+     * @param row row index
+     * @param col col index
+     * @return color index, {@link CompactBoard#EMPTY} for removed tiles
+     */
+    int get(int row, int col);
+
+    /**
+     * Retrieves the score of the current game.
+     *
+     * @return points
+     */
+    long getPoints();
+
+    /**
+     * Checks if the game is over.
+     *
+     * @return {@code true} if no move is possible
+     */
+    boolean isGameOver();
+
+    /**
+     * Retrieves the suggested next move, if the engine suggests moves.
+     *
+     * @return move as {@code [row, col]}, {@code [-1, -1]} when the game is over, or {@code null} if not supported
+     */
+    default int[] getNextBestMove() {
+        return null;
+    }
+}
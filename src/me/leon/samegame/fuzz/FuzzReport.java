@@ -0,0 +1,53 @@
+package me.leon.samegame.fuzz;
+
+/**
+ * The {@code FuzzReport} class holds the outcome of a {@link DifferentialFuzzer} run.
+ */
+public class FuzzReport {
+    private final long games;
+    private final long moves;
+    private final double gamesPerSecond;
+    private final Divergence divergence;
+
+    /**
+     * Constructs a new {@code FuzzReport}.
+     *
+     * @param games          number of games played
+     * @param moves          number of clicks compared
+     * @param gamesPerSecond throughput of all threads together
+     * @param divergence     shrunk replay of the first diverging game, or {@code null} if all games matched
+     */
+    public FuzzReport(long games, long moves, double gamesPerSecond, Divergence divergence) {
+        this.games = games;
+        this.moves = moves;
+        this.gamesPerSecond = gamesPerSecond;
+        this.divergence = divergence;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public double getGamesPerSecond() {
+        return gamesPerSecond;
+    }
+
+    /**
+     * Retrieves the shrunk replay of the diverging game with the lowest seed.
+     *
+     * @return divergence, or {@code null} if the engines matched in all games
+     */
+    public Divergence getDivergence() {
+        return divergence;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games, %d moves, %.0f games/s: %s", games, moves, gamesPerSecond,
+                divergence == null ? "no divergence" : divergence.toString());
+    }
+}
@@ -0,0 +1,46 @@
+package me.leon.samegame.fuzz;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.PersistentBoard;
+import me.leon.samegame.model.SameGameModel;
+
+/**
+ * The {@code ModelEngine} class plays games on the {@link SameGameModel} of the game.
+ * Sounds should be turned off with {@code SoundManager.setEnabled(false)} before fuzzing it.
+ */
+public class ModelEngine implements Engine {
+    private SameGameModel model;
+    private PersistentBoard board;
+
+    @Override
+    public void reset(CompactBoard start) {
+        model = new SameGameModel(start);
+        board = model.getBoard();
+    }
+
+    @Override
+    public void play(int row, int col) {
+        model.processGameInteraction(row, col);
+        board = model.getBoard();
+    }
+
+    @Override
+    public int get(int row, int col) {
+        return board.get(row, col);
+    }
+
+    @Override
+    public long getPoints() {
+        return model.getPoints();
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return model.getGameOver();
+    }
+
+    @Override
+    public int[] getNextBestMove() {
+        return model.getNextBestMove().clone();
+    }
+}
@@ -0,0 +1,211 @@
+package me.leon.samegame.fuzz;
+
+import me.leon.samegame.model.CompactBoard;
+
+import java.util.HashSet;
+
+/**
+ * The {@code ReferenceModel} class is the frozen oracle of the game rules for the {@link DifferentialFuzzer}.
+ * It is the original {@code SameGameModel} implementation, reduced to color indices instead of tiles and without
+ * sounds: a recursive flood search, the collapse of every touched column, the repeated shift of empty columns
+ * to the left, a full scan for the game over check and a depth-first search for the next best move.
+ * <p>
+ * This class defines the expected behavior of every faster engine. It must not be optimized,
+ * and must only be changed together with a deliberate change of the game rules.
+ */
+public final class ReferenceModel implements Engine {
+    private static final int[] ROW_OFFSETS = {-1, 1, 0, 0};
+    private static final int[] COL_OFFSETS = {0, 0, -1, 1};
+    private int gameRows;
+    private int gameCols;
+    private int[][] tiles;
+    private long points;
+    private int currentTileGroupCount;
+    private final HashSet<Integer> currentColumnsToCollapse = new HashSet<>();
+    private boolean gameOver;
+    private int[] nextBestMove;
+
+    @Override
+    public void reset(CompactBoard start) {
+        gameRows = start.getRows();
+        gameCols = start.getCols();
+        tiles = new int[gameRows][gameCols];
+        for (int row = 0; row < gameRows; row++) {
+            for (int col = 0; col < gameCols; col++) {
+                tiles[row][col] = start.get(row, col);
+            }
+        }
+        points = 0;
+        gameOver = checkGameOver();
+        nextBestMove = gameOver ? new int[]{-1, -1} : findLargestGroupPosition();
+    }
+
+    @Override
+    public void play(int clickedRow, int clickedCol) {
+        // check if clicked tile is already removed
+        if (tiles[clickedRow][clickedCol] == CompactBoard.EMPTY) return;
+
+        // return here already when the clicked tile has no same colored neighbours
+        int clickedColor = tiles[clickedRow][clickedCol];
+        int neighbours = 0;
+        if (clickedRow - 1 >= 0 && clickedColor == tiles[clickedRow - 1][clickedCol]) neighbours++;
+        if (clickedRow + 1 < gameRows && clickedColor == tiles[clickedRow + 1][clickedCol]) neighbours++;
+        if (clickedCol - 1 >= 0 && clickedColor == tiles[clickedRow][clickedCol - 1]) neighbours++;
+        if (clickedCol + 1 < gameCols && clickedColor == tiles[clickedRow][clickedCol + 1]) neighbours++;
+        if (neighbours == 0) return;
+
+        // find group of tiles based on click, found tiles are removed right away
+        floodSearchTileGroup(clickedRow, clickedCol, clickedColor);
+
+        // collapse columns from set
+        for (Integer col : currentColumnsToCollapse) {
+            collapseColumn(col);
+        }
+        currentColumnsToCollapse.clear();
+
+        // update the points based on size of eliminated group
+        points += (long) (Math.pow(2, currentTileGroupCount) - 2);
+        currentTileGroupCount = 0;
+
+        // shift left when a column is empty
+        shiftColumnsLeft();
+
+        if (checkGameOver()) {
+            gameOver = true;
+            nextBestMove = new int[]{-1, -1};
+        } else {
+            nextBestMove = findLargestGroupPosition();
+        }
+    }
+
+    private void floodSearchTileGroup(int row, int col, int color) {
+        if (row < 0 || row >= gameRows || col < 0 || col >= gameCols) return;
+        if (tiles[row][col] != color) return;
+
+        tiles[row][col] = CompactBoard.EMPTY;
+        currentColumnsToCollapse.add(col);
+
+        floodSearchTileGroup(row + 1, col, color);
+        floodSearchTileGroup(row - 1, col, color);
+        floodSearchTileGroup(row, col + 1, color);
+        floodSearchTileGroup(row, col - 1, color);
+
+        currentTileGroupCount++;
+    }
+
+    private void collapseColumn(int col) {
+        int[] collapsed = new int[gameRows];
+        int index = 0;
+        // 1st all removed tiles on top
+        for (int row = 0; row < gameRows; row++) {
+            if (tiles[row][col] == CompactBoard.EMPTY) collapsed[index++] = CompactBoard.EMPTY;
+        }
+        // 2nd all remaining tiles in their order
+        for (int row = 0; row < gameRows; row++) {
+            if (tiles[row][col] != CompactBoard.EMPTY) collapsed[index++] = tiles[row][col];
+        }
+        for (int row = 0; row < gameRows; row++) {
+            tiles[row][col] = collapsed[row];
+        }
+    }
+
+    private void shiftColumnsLeft() {
+        for (int redo = 0; redo < gameCols; redo++) {
+            cols:
+            for (int col = 0; col < gameCols; col++) {
+                for (int row = 0; row < gameRows; row++) {
+                    if (tiles[row][col] != CompactBoard.EMPTY) continue cols;
+                }
+                // the current col is empty: move all cols on its right one to the left
+                for (int col2 = col; col2 < gameCols - 1; col2++) {
+                    for (int row2 = 0; row2 < gameRows; row2++) {
+                        tiles[row2][col2] = tiles[row2][col2 + 1];
+                    }
+                }
+                for (int row = 0; row < gameRows; row++) {
+                    tiles[row][gameCols - 1] = CompactBoard.EMPTY;
+                }
+            }
+        }
+    }
+
+    private boolean checkGameOver() {
+        for (int row = 0; row < gameRows; row++) {
+            for (int col = 0; col < gameCols; col++) {
+                int color = tiles[row][col];
+                if (color == CompactBoard.EMPTY) continue;
+                if ((row > 0 && tiles[row - 1][col] == color) || (row < gameRows - 1 && tiles[row + 1][col] == color)
+                        || (col > 0 && tiles[row][col - 1] == color) || (col < gameCols - 1 && tiles[row][col + 1] == color)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int[] findLargestGroupPosition() {
+        boolean[][] searched = new boolean[gameRows][gameCols];
+        int maxGroupSize = 0;
+        int[] maxGroupStartPos = {-1, -1};
+        for (int i = 0; i < gameRows; i++) {
+            for (int j = 0; j < gameCols; j++) {
+                if (!searched[i][j]) {
+                    int groupSize = dfs(searched, i, j, tiles[i][j]);
+                    if (groupSize > maxGroupSize) {
+                        maxGroupSize = groupSize;
+                        maxGroupStartPos[0] = i;
+                        maxGroupStartPos[1] = j;
+                    }
+                }
+            }
+        }
+        return maxGroupStartPos;
+    }
+
+    private int dfs(boolean[][] searched, int row, int col, int color) {
+        if (row < 0 || row >= gameRows || col < 0 || col >= gameCols || searched[row][col]
+                || tiles[row][col] != color || color == CompactBoard.EMPTY) {
+            return 0;
+        }
+        searched[row][col] = true;
+        int size = 1;
+        for (int d = 0; d < 4; d++) {
+            size += dfs(searched, row + ROW_OFFSETS[d], col + COL_OFFSETS[d], color);
+        }
+        return size;
+    }
+
+    /**
+     * Checks whether a click on a cell would remove a group, used by the fuzzer to pick moves.
+     *
+     * @param row row index
+     * @param col col index
+     * @return {@code true} if the cell has a neighbor of the same color
+     */
+    boolean isMovable(int row, int col) {
+        int color = tiles[row][col];
+        return color != CompactBoard.EMPTY
+                && ((row > 0 && tiles[row - 1][col] == color) || (row < gameRows - 1 && tiles[row + 1][col] == color)
+                || (col > 0 && tiles[row][col - 1] == color) || (col < gameCols - 1 && tiles[row][col + 1] == color));
+    }
+
+    @Override
+    public int get(int row, int col) {
+        return tiles[row][col];
+    }
+
+    @Override
+    public long getPoints() {
+        return points;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public int[] getNextBestMove() {
+        return nextBestMove.clone();
+    }
+}
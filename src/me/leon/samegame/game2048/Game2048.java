@@ -0,0 +1,136 @@
+package me.leon.samegame.game2048;
+
+import me.leon.samegame.grid.Direction;
+import me.leon.samegame.grid.Grid;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * The {@code Game2048} class is the engine of the game 2048, built on the {@link Grid} kernel
+ * to show that other grid games get storage, gravity, hashing and undo for free.
+ * <p>
+ * A cell stores the exponent of its tile ({@code 1} for a 2, {@code 2} for a 4, ...), {@link Grid#EMPTY} for no tile.
+ * A move lets all tiles slide to one side with {@link Grid#gravity(Direction, int)}, merges equal neighbors once
+ * per move, slides again and finally spawns a new tile on a random empty cell.
+ * Every move can be taken back with {@link #undo()}.
+ */
+public class Game2048 extends Grid {
+    private final Random r;
+    private long points;
+    private final Deque<long[]> history; // per move: journal mark and score before the move
+
+    /**
+     * Constructs a new {@code Game2048} with two random start tiles.
+     *
+     * @param size number of rows and cols
+     * @param seed the seed for spawning tiles
+     */
+    public Game2048(int size, long seed) {
+        super(size, size);
+        this.r = new Random(seed);
+        this.history = new ArrayDeque<>();
+        spawnTile();
+        spawnTile();
+        setJournaling(true);
+    }
+
+    /**
+     * Moves all tiles to the given side, merging equal tiles, and spawns a new tile if anything moved.
+     *
+     * @param direction side the tiles move to
+     * @return points gained by merges, -1 if nothing moved and the move was not valid
+     */
+    public long move(Direction direction) {
+        int mark = mark();
+        long pointsBefore = points;
+        boolean moved = false;
+        int lines = direction.isVertical() ? cols : rows;
+        int length = lineLength(direction);
+        for (int line = 0; line < lines; line++) {
+            moved |= gravity(direction, line);
+            for (int position = 0; position + 1 < length; position++) {
+                int index = lineIndex(direction, line, position);
+                int next = lineIndex(direction, line, position + 1);
+                int value = getAt(index);
+                if (value != EMPTY && value == getAt(next)) {
+                    setAt(index, value + 1);
+                    setAt(next, EMPTY);
+                    points += 1L << (value + 1);
+                    moved = true;
+                    position++; // a merged tile does not merge again in the same move
+                }
+            }
+            gravity(direction, line);
+        }
+        if (!moved) return -1;
+        spawnTile();
+        history.push(new long[]{mark, pointsBefore});
+        return points - pointsBefore;
+    }
+
+    /**
+     * Takes back the last move including its spawned tile.
+     *
+     * @return {@code true} if a move was taken back, {@code false} if there is none
+     */
+    public boolean undo() {
+        long[] move = history.poll();
+        if (move == null) return false;
+        undo((int) move[0]);
+        points = move[1];
+        return true;
+    }
+
+    /**
+     * Places a 2 (90%) or a 4 (10%) on a random empty cell.
+     */
+    private void spawnTile() {
+        int empty = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == EMPTY) empty++;
+        }
+        if (empty == 0) return;
+        int target = r.nextInt(empty);
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == EMPTY && target-- == 0) {
+                setAt(i, r.nextInt(10) == 0 ? 2 : 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks if the game is over, i.e. there is no empty cell and no two equal neighbors.
+     *
+     * @return {@code true} if no move is possible
+     */
+    public boolean isGameOver() {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == EMPTY || hasEqualNeighbor(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number shown on a tile.
+     *
+     * @param row row index
+     * @param col col index
+     * @return number of the tile, 0 if the cell is empty
+     */
+    public int getNumber(int row, int col) {
+        int exponent = get(row, col);
+        return exponent == EMPTY ? 0 : 1 << exponent;
+    }
+
+    /**
+     * Retrieves the current score, the sum of all merged tiles.
+     *
+     * @return score
+     */
+    public long getPoints() {
+        return points;
+    }
+}
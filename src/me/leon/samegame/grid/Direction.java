@@ -0,0 +1,17 @@
+package me.leon.samegame.grid;
+
+/**
+ * The {@code Direction} enum defines the four sides cells of a {@link Grid} can be moved to.
+ */
+public enum Direction {
+    UP, DOWN, LEFT, RIGHT;
+
+    /**
+     * Checks whether the direction works along columns.
+     *
+     * @return {@code true} for {@link #UP} and {@link #DOWN}
+     */
+    public boolean isVertical() {
+        return this == UP || this == DOWN;
+    }
+}
@@ -0,0 +1,398 @@
+package me.leon.samegame.grid;
+
+import java.util.Arrays;
+
+/**
+ * The {@code Grid} class is the shared primitive kernel for tile based grid games.
+ * It stores one byte per cell in column-major order ({@code index = col * rows + row}), where {@link #EMPTY}
+ * marks an empty cell and any other value is up to the game (a color, an exponent, a wall, ...).
+ * <p>
+ * On top of the storage the kernel provides the operations most grid games need:
+ * <ul>
+ *  <li>{@link #floodFill(int, int[])} - connected cells with the same value, without modifying the grid,</li>
+ *  <li>{@link #gravity(Direction)} - lets all cells fall towards one side, along columns or rows,</li>
+ *  <li>{@link #shiftEmptyColumnsLeft()} - closes the gaps of completely empty columns,</li>
+ *  <li>{@link #mark()} / {@link #undo(int)} - undo of moves, every write is recorded as delta while journaling is on,</li>
+ *  <li>{@link #hash64()} - Zobrist hash of the grid, updated incrementally on every write.</li>
+ * </ul>
+ * All writes go through {@link #setAt(int, int)}, so the hash and the undo journal always stay consistent.
+ * Games extend this class and add their rules, see {@code CompactBoard} for SameGame and
+ * {@code Game2048} for 2048.
+ */
+public class Grid {
+    /**
+     * Value of an empty cell.
+     */
+    public static final byte EMPTY = 0;
+
+    protected final int rows;
+    protected final int cols;
+    protected final byte[] cells;
+    private long hash;
+    private int[] stamps; // flood fill visit stamps, lazily created
+    private int stamp;
+    private int[] stack; // flood fill buffer, lazily created
+    private boolean journaling;
+    private int[] journal = new int[0]; // pairs of (index, old value)
+    private int journalSize;
+
+    /**
+     * Constructs a new empty {@code Grid} with the specified size.
+     *
+     * @param rows number of rows of the grid
+     * @param cols number of cols of the grid
+     */
+    public Grid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new byte[rows * cols];
+    }
+
+    /**
+     * Returns the value of the cell at the given position.
+     *
+     * @param row row index
+     * @param col col index
+     * @return value of the cell, {@link #EMPTY} if the cell is empty
+     */
+    public int get(int row, int col) {
+        return cells[col * rows + row];
+    }
+
+    /**
+     * Sets the value of the cell at the given position.
+     *
+     * @param row   row index
+     * @param col   col index
+     * @param value new value of the cell, between 0 and 127
+     */
+    public void set(int row, int col, int value) {
+        setAt(col * rows + row, value);
+    }
+
+    /**
+     * Returns the value of the cell at the given column-major index.
+     *
+     * @param index column-major cell index
+     * @return value of the cell, {@link #EMPTY} if the cell is empty
+     */
+    public int getAt(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Sets the value of the cell at the given column-major index, updating the hash and the undo journal.
+     *
+     * @param index column-major cell index
+     * @param value new value of the cell, between 0 and 127
+     */
+    public void setAt(int index, int value) {
+        byte old = cells[index];
+        if (old == value) return;
+        if (journaling) {
+            if (journalSize + 2 > journal.length) {
+                journal = Arrays.copyOf(journal, Math.max(64, journal.length * 2));
+            }
+            journal[journalSize++] = index;
+            journal[journalSize++] = old;
+        }
+        hash ^= zobrist(index, old) ^ zobrist(index, value);
+        cells[index] = (byte) value;
+    }
+
+    /**
+     * Overwrites this grid with the cells and the hash of another grid of the same size.
+     * The undo journal of this grid is not changed.
+     *
+     * @param other grid to copy from
+     */
+    public void copyFrom(Grid other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        hash = other.hash;
+    }
+
+    /**
+     * Collects the cells connected to {@code start} that have the same (non-empty) value, without modifying the grid.
+     * Cells are connected horizontally and vertically.
+     *
+     * @param start column-major index of the start cell
+     * @param out   receives the column-major indices of the found cells, at least {@code rows * cols} long
+     * @return number of found cells, 0 if the start cell is empty
+     */
+    public int floodFill(int start, int[] out) {
+        beginVisit();
+        return floodFillVisited(start, out);
+    }
+
+    /**
+     * Starts a new round of flood fills: cells found by {@link #floodFillVisited(int, int[])} afterward
+     * count as visited until the next call, see {@link #isVisited(int)}.
+     */
+    public void beginVisit() {
+        if (stamps == null) stamps = new int[cells.length];
+        if (++stamp == 0) { // stamp overflow, start over
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Checks whether a cell was found by a flood fill since the last {@link #beginVisit()}.
+     *
+     * @param index column-major cell index
+     * @return {@code true} if the cell was visited
+     */
+    public boolean isVisited(int index) {
+        return stamps != null && stamps[index] == stamp;
+    }
+
+    /**
+     * Flood fill like {@link #floodFill(int, int[])}, but skips cells visited since the last {@link #beginVisit()},
+     * so all groups of a grid can be enumerated in a single pass.
+     * If no round was started on this grid yet, the first one is started.
+     *
+     * @param start column-major index of the start cell
+     * @param out   receives the column-major indices of the found cells, may be {@code null} if only the size is needed
+     * @return number of found cells, 0 if the start cell is empty or already visited
+     */
+    public int floodFillVisited(int start, int[] out) {
+        if (stamps == null) beginVisit();
+        byte value = cells[start];
+        if (value == EMPTY || stamps[start] == stamp) return 0;
+        if (stack == null) stack = new int[cells.length];
+        int top = 0;
+        int size = 0;
+        stack[top++] = start;
+        stamps[start] = stamp;
+        while (top > 0) {
+            int index = stack[--top];
+            if (out != null) out[size] = index;
+            size++;
+            int row = index % rows;
+            if (row > 0) top = visit(index - 1, value, top);
+            if (row < rows - 1) top = visit(index + 1, value, top);
+            if (index >= rows) top = visit(index - rows, value, top);
+            if (index + rows < cells.length) top = visit(index + rows, value, top);
+        }
+        return size;
+    }
+
+    private int visit(int index, byte value, int top) {
+        if (cells[index] == value && stamps[index] != stamp) {
+            stamps[index] = stamp;
+            stack[top++] = index;
+        }
+        return top;
+    }
+
+    /**
+     * Checks whether a cell has a horizontal or vertical neighbor with the same (non-empty) value.
+     *
+     * @param index column-major cell index
+     * @return {@code true} if an equal neighbor exists
+     */
+    public boolean hasEqualNeighbor(int index) {
+        byte value = cells[index];
+        if (value == EMPTY) return false;
+        int row = index % rows;
+        return (row > 0 && cells[index - 1] == value)
+                || (row < rows - 1 && cells[index + 1] == value)
+                || (index >= rows && cells[index - rows] == value)
+                || (index + rows < cells.length && cells[index + rows] == value);
+    }
+
+    /**
+     * Lets all non-empty cells fall towards the given side, keeping their order.
+     * {@link Direction#DOWN} and {@link Direction#UP} work along columns, {@link Direction#LEFT} and
+     * {@link Direction#RIGHT} along rows.
+     *
+     * @param direction side the cells fall to
+     * @return {@code true} if any cell moved
+     */
+    public boolean gravity(Direction direction) {
+        boolean moved = false;
+        int lines = direction.isVertical() ? cols : rows;
+        for (int line = 0; line < lines; line++) {
+            moved |= gravity(direction, line);
+        }
+        return moved;
+    }
+
+    /**
+     * Lets all non-empty cells of one line fall towards the given side, keeping their order.
+     *
+     * @param direction side the cells fall to
+     * @param line      col index for vertical directions, row index for horizontal ones
+     * @return {@code true} if any cell moved
+     */
+    public boolean gravity(Direction direction, int line) {
+        int length = lineLength(direction);
+        int write = 0;
+        boolean moved = false;
+        for (int read = 0; read < length; read++) {
+            int from = lineIndex(direction, line, read);
+            byte value = cells[from];
+            if (value == EMPTY) continue;
+            if (read != write) {
+                setAt(lineIndex(direction, line, write), value);
+                setAt(from, EMPTY);
+                moved = true;
+            }
+            write++;
+        }
+        return moved;
+    }
+
+    /**
+     * Shifts all non-empty columns to the left, closing the gaps of completely empty columns.
+     * Assumes gravity {@link Direction#DOWN}, so a column is empty if its bottom cell is empty.
+     *
+     * @return index of the leftmost column that changed, -1 if nothing was shifted
+     */
+    public int shiftEmptyColumnsLeft() {
+        int target = 0;
+        int firstChanged = -1;
+        for (int col = 0; col < cols; col++) {
+            if (cells[col * rows + rows - 1] == EMPTY) continue;
+            if (target != col) {
+                if (firstChanged < 0) firstChanged = target;
+                for (int row = 0; row < rows; row++) {
+                    setAt(target * rows + row, cells[col * rows + row]);
+                    setAt(col * rows + row, EMPTY);
+                }
+            }
+            target++;
+        }
+        return firstChanged;
+    }
+
+    /**
+     * Returns the number of cells of a line in the given direction.
+     *
+     * @param direction direction of the lines
+     * @return number of rows for vertical directions, number of cols for horizontal ones
+     */
+    public int lineLength(Direction direction) {
+        return direction.isVertical() ? rows : cols;
+    }
+
+    /**
+     * Maps a position along a line to the column-major cell index.
+     * Position 0 is the cell at the side the direction points to, e.g. the bottom cell for {@link Direction#DOWN}.
+     *
+     * @param direction direction of the line
+     * @param line      col index for vertical directions, row index for horizontal ones
+     * @param position  position along the line, starting at the side the direction points to
+     * @return column-major cell index
+     */
+    public int lineIndex(Direction direction, int line, int position) {
+        switch (direction) {
+            case DOWN:
+                return line * rows + rows - 1 - position;
+            case UP:
+                return line * rows + position;
+            case LEFT:
+                return position * rows + line;
+            default:
+                return (cols - 1 - position) * rows + line;
+        }
+    }
+
+    /**
+     * Turns the undo journal on or off. Turning it off clears the journal.
+     *
+     * @param journaling {@code true} to record every write for {@link #undo(int)}
+     */
+    public void setJournaling(boolean journaling) {
+        this.journaling = journaling;
+        if (!journaling) journalSize = 0;
+    }
+
+    /**
+     * Returns a checkpoint of the undo journal, e.g. before applying a move.
+     *
+     * @return checkpoint to be passed to {@link #undo(int)}
+     */
+    public int mark() {
+        return journalSize;
+    }
+
+    /**
+     * Reverts all writes recorded after the given checkpoint, newest first.
+     *
+     * @param mark checkpoint returned by {@link #mark()}
+     */
+    public void undo(int mark) {
+        boolean wasJournaling = journaling;
+        journaling = false;
+        while (journalSize > mark) {
+            int old = journal[--journalSize];
+            int index = journal[--journalSize];
+            setAt(index, old);
+        }
+        journaling = wasJournaling;
+    }
+
+    /**
+     * Returns the Zobrist hash of the grid, the XOR of one random key per non-empty (cell, value) pair.
+     * It is updated on every write, so this call is O(1).
+     *
+     * @return hash of the grid
+     */
+    public long hash64() {
+        return hash;
+    }
+
+    /**
+     * Zobrist key of a value at a cell. The keys are computed by a 64-bit mixing function instead of a table,
+     * so grids of any size need no key memory.
+     *
+     * @param index column-major cell index
+     * @param value value of the cell
+     * @return key, 0 for empty cells
+     */
+    protected static long zobrist(int index, int value) {
+        if (value == EMPTY) return 0;
+        long z = ((long) index << 8 | (value & 0xFF)) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Retrieves the number of rows of the grid.
+     *
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Retrieves the number of cols of the grid.
+     *
+     * @return number of cols
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Two grids are equal if they are of the same class, have the same size and the same cells.
+     *
+     * @param o object to compare with
+     * @return {@code true} if the grids are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Grid other = (Grid) o;
+        return rows == other.rows && cols == other.cols && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+}
@@ -0,0 +1,257 @@
+package me.leon.samegame.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code BoardAnalytics} class computes statistics of a position in one linear labeling pass:
+ * every cell is visited once by a flood fill, which labels the groups of connected, equally colored tiles.
+ * Per position it reports the number of groups, the group-size histogram per color, the number of singletons,
+ * the potential score and the largest achievable group.
+ * <p>
+ * An instance keeps its buffers and results between calls, so one instance per thread can analyze
+ * millions of positions in streaming mode without allocating:
+ * <pre>
+ * BoardAnalytics analytics = new BoardAnalytics();
+ * for (CompactBoard position : positions) {
+ *     analytics.analyze(position);
+ *     total += analytics.getGroupCount();
+ * }
+ * </pre>
+ * The results are valid until the next call of {@code analyze}. Instances are not thread-safe.
+ */
+public class BoardAnalytics {
+    private CompactBoard scratch; // copy of a PersistentBoard, reused for boards of the same size
+    private int[][] histogram = new int[0][]; // [color][size]: number of groups
+    private int[] maxSizeByColor = new int[0];
+    private int[] tilesByColor = new int[0];
+    private int colors; // highest color index found
+    private int components;
+    private int groups;
+    private int singletons;
+    private int tiles;
+    private long potentialScore;
+    private int largestGroup;
+    private int largestGroupIndex;
+
+    /**
+     * Analyzes a position, replacing the results of the previous call.
+     *
+     * @param board the position, is not modified
+     * @return this instance with the results
+     */
+    public BoardAnalytics analyze(CompactBoard board) {
+        reset();
+        int cells = board.getRows() * board.getCols();
+        board.beginVisit();
+        for (int index = 0; index < cells; index++) {
+            int size = board.floodFillVisited(index, null);
+            if (size == 0) continue; // removed or already labeled
+            int color = board.getAt(index);
+            if (color > colors) addColor(color);
+            components++;
+            tiles += size;
+            tilesByColor[color] += size;
+            if (size == 1) {
+                singletons++;
+            } else {
+                groups++;
+                potentialScore = saturatedAdd(potentialScore, CompactBoard.pointsForGroup(size));
+            }
+            if (size > largestGroup) {
+                largestGroup = size;
+                largestGroupIndex = index;
+            }
+            count(color, size);
+        }
+        return this;
+    }
+
+    /**
+     * Analyzes an immutable board version, e.g. {@link GameModel#getBoard()}, see {@link #analyze(CompactBoard)}.
+     *
+     * @param board the position
+     * @return this instance with the results
+     */
+    public BoardAnalytics analyze(PersistentBoard board) {
+        if (scratch == null || scratch.getRows() != board.getRows() || scratch.getCols() != board.getCols()) {
+            scratch = new CompactBoard(board.getRows(), board.getCols());
+        }
+        for (int col = 0; col < board.getCols(); col++) {
+            for (int row = 0; row < board.getRows(); row++) {
+                scratch.set(row, col, board.get(row, col));
+            }
+        }
+        return analyze(scratch);
+    }
+
+    /**
+     * Clears the results of the previous call, only the used part of the histogram is cleared.
+     */
+    private void reset() {
+        for (int color = 1; color <= colors; color++) {
+            Arrays.fill(histogram[color], 0, maxSizeByColor[color] + 1, 0);
+            maxSizeByColor[color] = 0;
+            tilesByColor[color] = 0;
+        }
+        colors = 0;
+        components = 0;
+        groups = 0;
+        singletons = 0;
+        tiles = 0;
+        potentialScore = 0;
+        largestGroup = 0;
+        largestGroupIndex = -1;
+    }
+
+    /**
+     * Raises the highest color index found, growing the per color buffers if necessary.
+     */
+    private void addColor(int color) {
+        if (histogram.length <= color) {
+            int length = Math.max(color + 1, histogram.length * 2);
+            histogram = Arrays.copyOf(histogram, length);
+            maxSizeByColor = Arrays.copyOf(maxSizeByColor, length);
+            tilesByColor = Arrays.copyOf(tilesByColor, length);
+        }
+        for (int c = colors + 1; c <= color; c++) {
+            if (histogram[c] == null) histogram[c] = new int[16];
+        }
+        colors = color;
+    }
+
+    /**
+     * Counts a group in the histogram of its color, growing the histogram if necessary.
+     */
+    private void count(int color, int size) {
+        if (size >= histogram[color].length) {
+            histogram[color] = Arrays.copyOf(histogram[color], Math.max(size + 1, histogram[color].length * 2));
+        }
+        histogram[color][size]++;
+        if (size > maxSizeByColor[color]) maxSizeByColor[color] = size;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < a ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Retrieves the number of removable groups, i.e. groups of at least two tiles.
+     *
+     * @return number of groups
+     */
+    public int getGroupCount() {
+        return groups;
+    }
+
+    /**
+     * Retrieves the number of groups of one color and size.
+     *
+     * @param color color index, starting at 1
+     * @param size  group size, 1 for singletons
+     * @return number of such groups
+     */
+    public int getGroupCount(int color, int size) {
+        if (color < 1 || color > colors || size > maxSizeByColor[color]) return 0;
+        return histogram[color][size];
+    }
+
+    /**
+     * Retrieves the size of the largest group of one color.
+     *
+     * @param color color index, starting at 1
+     * @return size of the largest group of this color, 0 if the color is not on the board
+     */
+    public int getMaxGroupSize(int color) {
+        return color < 1 || color > colors ? 0 : maxSizeByColor[color];
+    }
+
+    /**
+     * Retrieves the number of remaining tiles of one color.
+     *
+     * @param color color index, starting at 1
+     * @return number of tiles of this color
+     */
+    public int getTiles(int color) {
+        return color < 1 || color > colors ? 0 : tilesByColor[color];
+    }
+
+    /**
+     * Retrieves the highest color index of the analyzed position.
+     *
+     * @return number of colors to iterate in the per color results
+     */
+    public int getColors() {
+        return colors;
+    }
+
+    /**
+     * Retrieves the number of tiles that are not connected to any tile of the same color.
+     *
+     * @return number of singletons
+     */
+    public int getSingletonCount() {
+        return singletons;
+    }
+
+    /**
+     * Retrieves the number of all labeled components, groups and singletons.
+     *
+     * @return number of components
+     */
+    public int getComponentCount() {
+        return components;
+    }
+
+    /**
+     * Retrieves the number of remaining tiles.
+     *
+     * @return number of tiles
+     */
+    public int getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Retrieves the sum of the points of all current groups, i.e. the score of removing each group as it is now.
+     * Saturates at {@link Long#MAX_VALUE}.
+     *
+     * @return potential score
+     */
+    public long getPotentialScore() {
+        return potentialScore;
+    }
+
+    /**
+     * Retrieves the size of the largest current group.
+     *
+     * @return size of the largest group, 0 for an empty board
+     */
+    public int getLargestGroup() {
+        return largestGroup;
+    }
+
+    /**
+     * Retrieves the column-major index of the first cell of the largest current group.
+     *
+     * @return cell index, -1 for an empty board
+     */
+    public int getLargestGroupIndex() {
+        return largestGroupIndex;
+    }
+
+    /**
+     * Retrieves the size of the largest group any sequence of moves could create:
+     * all remaining tiles of the most frequent color joined together.
+     * This is an upper bound, whether it is reachable depends on the position.
+     *
+     * @return size of the largest achievable group, 0 if no color has two tiles left
+     */
+    public int getLargestAchievableGroup() {
+        int max = 0;
+        for (int color = 1; color <= colors; color++) {
+            max = Math.max(max, tilesByColor[color]);
+        }
+        return max >= 2 ? max : 0;
+    }
+}
@@ -0,0 +1,395 @@
+package me.leon.samegame.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The {@code BoardPool} class stores a large number of SameGame positions of the same size off-heap.
+ * Positions are packed into direct {@link ByteBuffer}s and addressed by integer handles, so millions of
+ * resident positions cost a predictable amount of native memory and create no garbage.
+ * <p>
+ * Every slot holds the score of the position (8 bytes) followed by the cells in column-major order
+ * ({@code index = col * rows + row}), packed with 4 bits per cell. A cell value of {@link CompactBoard#EMPTY}
+ * marks a removed tile, so up to {@link #MAX_COLOR} colors are supported, which {@link #store(int, CompactBoard, long)} checks.
+ * The game operations ({@link #removeGroup(int, int, int)}, {@link #isGameOver(int)}) work directly on the packed slot
+ * and follow the rules of {@link SameGameModel}.
+ * <p>
+ * Slots are grouped into chunks which are allocated on demand, freed handles are reused first.
+ * Every method taking a handle rejects handles that are not allocated, so a freed handle cannot read or write
+ * a slot that was handed out again. A pool is not thread-safe, analysis jobs should use one pool per thread.
+ */
+public class BoardPool {
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+    /**
+     * Highest color index a packed cell can hold.
+     */
+    public static final int MAX_COLOR = 15;
+
+    private final int rows;
+    private final int cols;
+    private final int cellCount;
+    private final int slotBytes;
+    private final int slotsPerChunk;
+    private final int maxSlots;
+    private ByteBuffer[] chunks;
+    private int allocatedSlots; // slots backed by a chunk
+    private int nextUnused; // first slot never handed out
+    private int[] freeHandles;
+    private int freeCount;
+    private boolean[] live; // [handle]: handed out and not freed
+    private int liveCount;
+    private long reservedBytes;
+    private final int[] stack; // flood fill buffer
+
+    /**
+     * Constructs a new {@code BoardPool} for positions of the given size.
+     *
+     * @param rows     number of rows of the positions
+     * @param cols     number of cols of the positions
+     * @param maxSlots maximum number of positions resident at the same time
+     */
+    public BoardPool(int rows, int cols, int maxSlots) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cellCount = rows * cols;
+        this.slotBytes = HEADER_BYTES + (cellCount + 1) / 2;
+        this.slotsPerChunk = Math.max(1, Math.min(maxSlots, MAX_CHUNK_BYTES / slotBytes));
+        this.maxSlots = maxSlots;
+        this.chunks = new ByteBuffer[0];
+        this.freeHandles = new int[16];
+        this.live = new boolean[16];
+        this.stack = new int[cellCount];
+    }
+
+    /**
+     * Allocates a slot for a new position. The slot is cleared: score 0 and all cells removed.
+     *
+     * @return handle of the new slot
+     * @throws IllegalStateException if the pool is full
+     */
+    public int allocate() {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (nextUnused >= maxSlots) {
+                throw new IllegalStateException("Board pool is full, capacity " + maxSlots);
+            }
+            if (nextUnused == allocatedSlots) addChunk();
+            handle = nextUnused++;
+            if (handle == live.length) live = Arrays.copyOf(live, Math.min(maxSlots, 2 * live.length));
+        }
+        live[handle] = true;
+        clear(handle);
+        liveCount++;
+        return handle;
+    }
+
+    /**
+     * Frees a slot, so its handle can be handed out again by {@link #allocate()}.
+     *
+     * @param handle handle of the slot, must not be used afterward
+     * @throws IllegalArgumentException if the handle is not allocated, e.g. freed twice
+     */
+    public void free(int handle) {
+        checkLive(handle);
+        live[handle] = false;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+        liveCount--;
+    }
+
+    /**
+     * Checks that a handle was handed out by {@link #allocate()} and not freed since.
+     *
+     * @param handle handle of a slot
+     * @throws IllegalArgumentException if the handle is not allocated
+     */
+    private void checkLive(int handle) {
+        if (handle < 0 || handle >= nextUnused || !live[handle]) {
+            throw new IllegalArgumentException("Handle is not allocated: " + handle);
+        }
+    }
+
+    /**
+     * Allocates one more chunk of slots.
+     */
+    private void addChunk() {
+        int slots = Math.min(slotsPerChunk, maxSlots - allocatedSlots);
+        chunks = Arrays.copyOf(chunks, chunks.length + 1);
+        chunks[chunks.length - 1] = ByteBuffer.allocateDirect(slots * slotBytes).order(ByteOrder.nativeOrder());
+        allocatedSlots += slots;
+        reservedBytes += (long) slots * slotBytes;
+    }
+
+    private ByteBuffer chunk(int handle) {
+        return chunks[handle / slotsPerChunk];
+    }
+
+    private int base(int handle) {
+        return (handle % slotsPerChunk) * slotBytes;
+    }
+
+    /**
+     * Resets a slot to score 0 and all cells removed.
+     *
+     * @param handle handle of the slot
+     */
+    private void clear(int handle) {
+        ByteBuffer buffer = chunk(handle);
+        int base = base(handle);
+        for (int i = 0; i < slotBytes; i++) {
+            buffer.put(base + i, (byte) 0);
+        }
+    }
+
+    /**
+     * Stores a position into a slot.
+     *
+     * @param handle handle of the slot
+     * @param board  position to store, must have the size of the pool and at most {@link #MAX_COLOR} colors
+     * @param points score of the position
+     * @throws IllegalArgumentException if the handle is not allocated or a cell has a color index above {@link #MAX_COLOR}
+     */
+    public void store(int handle, CompactBoard board, long points) {
+        checkLive(handle);
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                if (board.get(row, col) > MAX_COLOR) {
+                    throw new IllegalArgumentException("Pool cells hold at most " + MAX_COLOR + " colors: " + board.get(row, col));
+                }
+            }
+        }
+        ByteBuffer buffer = chunk(handle);
+        int base = base(handle);
+        buffer.putLong(base, points);
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                setCell(buffer, base, col * rows + row, board.get(row, col));
+            }
+        }
+    }
+
+    /**
+     * Loads the cells of a slot into a board.
+     *
+     * @param handle handle of the slot
+     * @param board  board to be overwritten, must have the size of the pool
+     * @throws IllegalArgumentException if the handle is not allocated
+     */
+    public void load(int handle, CompactBoard board) {
+        checkLive(handle);
+        ByteBuffer buffer = chunk(handle);
+        int base = base(handle);
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                board.set(row, col, getCell(buffer, base, col * rows + row));
+            }
+        }
+    }
+
+    /**
+     * Copies a position from one slot to another.
+     *
+     * @param from handle of the source slot
+     * @param to   handle of the target slot
+     * @throws IllegalArgumentException if one of the handles is not allocated
+     */
+    public void copy(int from, int to) {
+        checkLive(from);
+        checkLive(to);
+        ByteBuffer source = chunk(from);
+        ByteBuffer target = chunk(to);
+        int sourceBase = base(from);
+        int targetBase = base(to);
+        int i = 0;
+        for (; i + 8 <= slotBytes; i += 8) {
+            target.putLong(targetBase + i, source.getLong(sourceBase + i));
+        }
+        for (; i < slotBytes; i++) {
+            target.put(targetBase + i, source.get(sourceBase + i));
+        }
+    }
+
+    /**
+     * Returns the color index of a cell.
+     *
+     * @param handle handle of the slot
+     * @param row    row index
+     * @param col    col index
+     * @return color index, or {@link CompactBoard#EMPTY}
+     * @throws IllegalArgumentException if the handle is not allocated
+     */
+    public int get(int handle, int row, int col) {
+        checkLive(handle);
+        return getCell(chunk(handle), base(handle), col * rows + row);
+    }
+
+    /**
+     * Retrieves the score of a position.
+     *
+     * @param handle handle of the slot
+     * @return score of the position
+     * @throws IllegalArgumentException if the handle is not allocated
+     */
+    public long getPoints(int handle) {
+        checkLive(handle);
+        return chunk(handle).getLong(base(handle));
+    }
+
+    /**
+     * Plays a move on a stored position: removes the group at the given position if it consists of at least two tiles,
+     * collapses the columns, shifts empty columns to the left and adds the points of the group to the score.
+     *
+     * @param handle handle of the slot
+     * @param row    row index of the clicked cell
+     * @param col    col index of the clicked cell
+     * @return number of removed tiles, 0 if the move was not valid
+     * @throws IllegalArgumentException if the handle is not allocated
+     */
+    public int removeGroup(int handle, int row, int col) {
+        checkLive(handle);
+        ByteBuffer buffer = chunk(handle);
+        int base = base(handle);
+        int start = col * rows + row;
+        int color = getCell(buffer, base, start);
+        if (color == CompactBoard.EMPTY || !hasSameColoredNeighbor(buffer, base, start, color)) return 0;
+
+        // flood fill
+        int top = 0;
+        int size = 0;
+        stack[top++] = start;
+        setCell(buffer, base, start, CompactBoard.EMPTY);
+        while (top > 0) {
+            int index = stack[--top];
+            size++;
+            int r = index % rows;
+            if (r > 0 && getCell(buffer, base, index - 1) == color) {
+                setCell(buffer, base, index - 1, CompactBoard.EMPTY);
+                stack[top++] = index - 1;
+            }
+            if (r < rows - 1 && getCell(buffer, base, index + 1) == color) {
+                setCell(buffer, base, index + 1, CompactBoard.EMPTY);
+                stack[top++] = index + 1;
+            }
+            if (index >= rows && getCell(buffer, base, index - rows) == color) {
+                setCell(buffer, base, index - rows, CompactBoard.EMPTY);
+                stack[top++] = index - rows;
+            }
+            if (index + rows < cellCount && getCell(buffer, base, index + rows) == color) {
+                setCell(buffer, base, index + rows, CompactBoard.EMPTY);
+                stack[top++] = index + rows;
+            }
+        }
+
+        compact(buffer, base);
+        buffer.putLong(base, buffer.getLong(base) + CompactBoard.pointsForGroup(size));
+        return size;
+    }
+
+    /**
+     * Checks if the game is over for a stored position, i.e. no two adjacent remaining tiles share the same color.
+     *
+     * @param handle handle of the slot
+     * @return {@code true} if no move is possible
+     * @throws IllegalArgumentException if the handle is not allocated
+     */
+    public boolean isGameOver(int handle) {
+        checkLive(handle);
+        ByteBuffer buffer = chunk(handle);
+        int base = base(handle);
+        for (int col = 0; col < cols; col++) {
+            for (int row = rows - 1; row >= 0; row--) {
+                int index = col * rows + row;
+                int color = getCell(buffer, base, index);
+                if (color == CompactBoard.EMPTY) break; // everything above is removed as well
+                if (row > 0 && getCell(buffer, base, index - 1) == color) return false;
+                if (col < cols - 1 && getCell(buffer, base, index + rows) == color) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lets all remaining tiles fall to the bottom of their column and shifts empty columns to the left.
+     */
+    private void compact(ByteBuffer buffer, int base) {
+        int target = 0;
+        for (int col = 0; col < cols; col++) {
+            int first = col * rows;
+            int write = first + rows - 1;
+            for (int read = first + rows - 1; read >= first; read--) {
+                int color = getCell(buffer, base, read);
+                if (color != CompactBoard.EMPTY) setCell(buffer, base, write--, color);
+            }
+            for (; write >= first; write--) {
+                setCell(buffer, base, write, CompactBoard.EMPTY);
+            }
+            if (getCell(buffer, base, first + rows - 1) == CompactBoard.EMPTY) continue;
+            if (target != col) {
+                for (int row = 0; row < rows; row++) {
+                    setCell(buffer, base, target * rows + row, getCell(buffer, base, first + row));
+                }
+            }
+            target++;
+        }
+        for (int index = target * rows; index < cellCount; index++) {
+            setCell(buffer, base, index, CompactBoard.EMPTY);
+        }
+    }
+
+    private boolean hasSameColoredNeighbor(ByteBuffer buffer, int base, int index, int color) {
+        int row = index % rows;
+        return (row > 0 && getCell(buffer, base, index - 1) == color)
+                || (row < rows - 1 && getCell(buffer, base, index + 1) == color)
+                || (index >= rows && getCell(buffer, base, index - rows) == color)
+                || (index + rows < cellCount && getCell(buffer, base, index + rows) == color);
+    }
+
+    private static int getCell(ByteBuffer buffer, int base, int index) {
+        int packed = buffer.get(base + HEADER_BYTES + (index >> 1));
+        return (index & 1) == 0 ? packed & 0x0F : (packed >> 4) & 0x0F;
+    }
+
+    private static void setCell(ByteBuffer buffer, int base, int index, int color) {
+        int offset = base + HEADER_BYTES + (index >> 1);
+        int packed = buffer.get(offset);
+        if ((index & 1) == 0) {
+            packed = (packed & 0xF0) | color;
+        } else {
+            packed = (packed & 0x0F) | (color << 4);
+        }
+        buffer.put(offset, (byte) packed);
+    }
+
+    /**
+     * Retrieves the number of currently allocated positions.
+     *
+     * @return number of live handles
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Retrieves the native memory reserved by the pool.
+     *
+     * @return reserved bytes
+     */
+    public long reservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * Retrieves the number of bytes a single position takes in the pool.
+     *
+     * @return bytes per slot
+     */
+    public int getSlotBytes() {
+        return slotBytes;
+    }
+}
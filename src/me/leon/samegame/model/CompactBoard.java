@@ -0,0 +1,450 @@
+package me.leon.samegame.model;
+
+import me.leon.samegame.grid.Direction;
+import me.leon.samegame.grid.Grid;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The {@code CompactBoard} class is a primitive representation of a SameGame grid.
+ * Instead of a {@code Tile[][]} of Swing components, the board is a {@link Grid}, stored as a single {@code byte[]}
+ * in column-major order ({@code index = col * rows + row}), where {@link #EMPTY} marks a removed cell and
+ * {@code 1..colorCount} mark the colors of the remaining tiles.
+ * <p>
+ * The game rules are the same as in {@link SameGameModel}: removed tiles fall to the bottom of their column
+ * (highest row index) and empty columns are shifted to the left. They are built from the operations of the
+ * {@link Grid} kernel, so boards also get its incremental hash and undo journal.
+ * This class is meant for search algorithms (solvers, bots, analysis) that need to copy and modify
+ * many positions quickly.
+ * <p>
+ * Boards that differ only by a permutation of the colors are strategically identical, so caches and transposition
+ * tables are keyed by {@link #canonicalHash64()}: the board with its colors relabeled by their first appearance
+ * in the canonical scan order (column by column from the left, every column from its bottom cell upward).
+ * For this, the board keeps one hash of the cells of every color, independent of the color itself, and the number
+ * of tiles per color. Both are updated on every write like the Zobrist hash, so the canonical hash only scans
+ * the first tiles until every remaining color was seen. A second set of color hashes with independent keys gives
+ * {@link #canonicalHashLow64()}, so 128-bit keys need no full scan either.
+ */
+public class CompactBoard extends Grid {
+    private static final int INITIAL_COLORS = 8;
+    private int[] group; // reusable buffer for flood fill, lazily created
+    private long[] colorHashes = new long[INITIAL_COLORS]; // per color: XOR of the color independent keys of its cells
+    private long[] colorHashesLow = new long[INITIAL_COLORS]; // the same with the second, independent keys
+    private int[] colorTiles = new int[INITIAL_COLORS]; // per color: number of tiles
+    private int presentColors; // colors with at least one tile
+
+    /**
+     * Constructs a new empty {@code CompactBoard} with the specified size.
+     *
+     * @param rows number of rows of the board
+     * @param cols number of cols of the board
+     */
+    public CompactBoard(int rows, int cols) {
+        super(rows, cols);
+    }
+
+    /**
+     * Creates a {@code CompactBoard} from a grid of {@link Tile}s.
+     * Colors are numbered in order of their first appearance in a row-major scan, starting at 1.
+     *
+     * @param tiles grid of tiles as returned by {@link GameModel#getTiles()}
+     * @return compact copy of the grid
+     */
+    public static CompactBoard fromTiles(Tile[][] tiles) {
+        return fromTiles(tiles, new ArrayList<>());
+    }
+
+    /**
+     * Creates a {@code CompactBoard} from a grid of {@link Tile}s using the given palette.
+     * Colors not yet in the palette are appended to it, so passing the same palette for several positions
+     * of one game keeps the color indices stable.
+     *
+     * @param tiles   grid of tiles as returned by {@link GameModel#getTiles()}
+     * @param palette known colors, color index {@code i + 1} belongs to {@code palette.get(i)}
+     * @return compact copy of the grid
+     */
+    public static CompactBoard fromTiles(Tile[][] tiles, List<Color> palette) {
+        int rows = tiles.length;
+        int cols = rows == 0 ? 0 : tiles[0].length;
+        CompactBoard board = new CompactBoard(rows, cols);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                Tile tile = tiles[row][col];
+                if (tile.isRemoved()) continue;
+                int index = palette.indexOf(tile.getColor());
+                if (index < 0) {
+                    palette.add(tile.getColor());
+                    index = palette.size() - 1;
+                }
+                board.set(row, col, index + 1);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Creates a random board exactly like {@link SameGameModel} does for the same seed,
+     * so bots and analysis tools can generate the positions of seeded games without any {@link Tile}s.
+     * Color index {@code i + 1} is the {@code i}-th color of the models palette.
+     *
+     * @param rows       number of rows of the board
+     * @param cols       number of cols of the board
+     * @param difficulty number of colors
+     * @param seed       seed as passed to {@link SameGameModel#SameGameModel(int, int, int, long)}
+     * @return start position of the seeded game
+     */
+    public static CompactBoard random(int rows, int cols, int difficulty, long seed) {
+        Random r = new Random(seed);
+        CompactBoard board = new CompactBoard(rows, cols);
+        do {
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    board.set(row, col, r.nextInt(difficulty) + 1);
+                }
+            }
+        } while (board.isGameOver()); // the model re-initializes games that are lost from the beginning
+        return board;
+    }
+
+    /**
+     * Returns the points a group of the given size is worth, see {@link SameGameModel#pointsForTileGroup(int)}.
+     * Headless tools use this method, so they do not load the Swing based model class.
+     *
+     * @param groupSize size of the group
+     * @return points for eliminating the group
+     */
+    public static long pointsForGroup(int groupSize) {
+        return (long) (Math.pow(2, groupSize) - 2);
+    }
+
+    /**
+     * Creates a deep copy of this board, without the undo journal.
+     *
+     * @return copy of this board
+     */
+    public CompactBoard copy() {
+        CompactBoard copy = new CompactBoard(rows, cols);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Counts the size of the group of equally colored, connected cells at the given position without modifying the board.
+     *
+     * @param row row index
+     * @param col col index
+     * @return size of the group, 0 if the cell is removed
+     */
+    public int groupSize(int row, int col) {
+        beginVisit();
+        return floodFillVisited(col * rows + row, null);
+    }
+
+    /**
+     * Finds all removable groups (at least two tiles) in a single pass over the board.
+     * For every group, the column-major index of one of its cells and the group size are written into the given buffers.
+     *
+     * @param representatives buffer receiving one column-major cell index per group, at least {@code rows * cols / 2} long
+     * @param sizes           buffer receiving the size of each group, same length as {@code representatives}
+     * @return number of groups found
+     */
+    public int findGroups(int[] representatives, int[] sizes) {
+        int count = 0;
+        beginVisit();
+        for (int index = 0; index < cells.length; index++) {
+            if (cells[index] == EMPTY || isVisited(index)) continue;
+            int size = floodFillVisited(index, null);
+            if (size >= 2) {
+                representatives[count] = index;
+                sizes[count] = size;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes the group at the given column-major cell index, see {@link #removeGroup(int, int)}.
+     *
+     * @param index column-major cell index
+     * @return number of removed tiles, 0 if the move was not valid
+     */
+    public int removeGroupAt(int index) {
+        if (!hasEqualNeighbor(index)) return 0;
+        if (group == null) group = new int[cells.length];
+        int size = floodFill(index, group);
+        int firstCol = cols;
+        int lastCol = -1;
+        for (int i = 0; i < size; i++) {
+            int col = group[i] / rows;
+            firstCol = Math.min(firstCol, col);
+            lastCol = Math.max(lastCol, col);
+            setAt(group[i], EMPTY);
+        }
+        // collapse the touched columns, then close empty columns
+        for (int col = firstCol; col <= lastCol; col++) {
+            gravity(Direction.DOWN, col);
+        }
+        shiftEmptyColumnsLeft();
+        return size;
+    }
+
+    /**
+     * Removes the group at the given position if it consists of at least two tiles,
+     * then collapses the affected columns and shifts empty columns to the left.
+     *
+     * @param row row index of the clicked cell
+     * @param col col index of the clicked cell
+     * @return number of removed tiles, 0 if the move was not valid
+     */
+    public int removeGroup(int row, int col) {
+        return removeGroupAt(col * rows + row);
+    }
+
+    /**
+     * Checks if the game is over, i.e. no two adjacent remaining tiles share the same color.
+     * The scan is done by {@link NeighborScan}.
+     *
+     * @return {@code true} if no move is possible
+     */
+    public boolean isGameOver() {
+        return !NeighborScan.hasAdjacentPair(cells, rows, cols);
+    }
+
+    /**
+     * Counts the remaining tiles per color.
+     *
+     * @param counts array indexed by color, is cleared and filled by this method
+     * @return total number of remaining tiles
+     */
+    public int countColors(int[] counts) {
+        Arrays.fill(counts, 0);
+        int total = 0;
+        for (byte cell : cells) {
+            if (cell != EMPTY) {
+                counts[cell]++;
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sets the value of the cell at the given column-major index, updating the hashes, the tiles per color
+     * and the undo journal.
+     *
+     * @param index column-major cell index
+     * @param value new color of the cell, between 0 and 127
+     */
+    @Override
+    public void setAt(int index, int value) {
+        int old = cells[index];
+        if (old == value) return;
+        super.setAt(index, value);
+        if (value >= colorHashes.length) {
+            colorHashes = Arrays.copyOf(colorHashes, Math.max(value + 1, 2 * colorHashes.length));
+            colorHashesLow = Arrays.copyOf(colorHashesLow, colorHashes.length);
+            colorTiles = Arrays.copyOf(colorTiles, colorHashes.length);
+        }
+        long key = colorKey(index);
+        long keyLow = colorKeyLow(index);
+        if (old != EMPTY) {
+            colorHashes[old] ^= key;
+            colorHashesLow[old] ^= keyLow;
+            if (--colorTiles[old] == 0) presentColors--;
+        }
+        if (value != EMPTY) {
+            colorHashes[value] ^= key;
+            colorHashesLow[value] ^= keyLow;
+            if (colorTiles[value]++ == 0) presentColors++;
+        }
+    }
+
+    /**
+     * Overwrites this board with the cells and the hashes of another grid of the same size.
+     *
+     * @param other grid to copy from
+     */
+    @Override
+    public void copyFrom(Grid other) {
+        super.copyFrom(other);
+        if (other instanceof CompactBoard) {
+            CompactBoard board = (CompactBoard) other;
+            if (colorHashes.length != board.colorHashes.length) {
+                colorHashes = new long[board.colorHashes.length];
+                colorHashesLow = new long[colorHashes.length];
+                colorTiles = new int[colorHashes.length];
+            }
+            System.arraycopy(board.colorHashes, 0, colorHashes, 0, colorHashes.length);
+            System.arraycopy(board.colorHashesLow, 0, colorHashesLow, 0, colorHashesLow.length);
+            System.arraycopy(board.colorTiles, 0, colorTiles, 0, colorTiles.length);
+            presentColors = board.presentColors;
+            return;
+        }
+        Arrays.fill(colorHashes, 0);
+        Arrays.fill(colorHashesLow, 0);
+        Arrays.fill(colorTiles, 0);
+        presentColors = 0;
+        int max = maxColor();
+        if (max >= colorHashes.length) {
+            colorHashes = new long[max + 1];
+            colorHashesLow = new long[max + 1];
+            colorTiles = new int[max + 1];
+        }
+        for (int index = 0; index < cells.length; index++) {
+            int color = cells[index];
+            if (color == EMPTY) continue;
+            colorHashes[color] ^= colorKey(index);
+            colorHashesLow[color] ^= colorKeyLow(index);
+            if (colorTiles[color]++ == 0) presentColors++;
+        }
+    }
+
+    /**
+     * Returns the hash of the canonical form of this board, see the class description.
+     * Boards that differ only by a permutation of the colors have the same canonical hash.
+     * It is maintained incrementally, so this call only scans the first tiles until every remaining color was seen.
+     *
+     * @return canonical hash of the board
+     */
+    public long canonicalHash64() {
+        return canonicalHash64(colorHashes);
+    }
+
+    /**
+     * Returns a second hash of the canonical form, computed like {@link #canonicalHash64()} but from independent keys,
+     * so both together identify a position by 128 bits.
+     *
+     * @return second canonical hash of the board
+     */
+    public long canonicalHashLow64() {
+        return canonicalHash64(colorHashesLow);
+    }
+
+    private long canonicalHash64(long[] hashes) {
+        long hash = 0;
+        long seenLow = 0; // colors 0..63
+        long seenHigh = 0; // colors 64..127
+        int seen = 0;
+        for (int col = 0; col < cols && seen < presentColors; col++) {
+            for (int index = col * rows + rows - 1; index >= col * rows && seen < presentColors; index--) {
+                int color = cells[index];
+                if (color == EMPTY) continue;
+                if (color < 64) {
+                    if ((seenLow & 1L << color) != 0) continue;
+                    seenLow |= 1L << color;
+                } else {
+                    if ((seenHigh & 1L << color) != 0) continue;
+                    seenHigh |= 1L << color;
+                }
+                seen++;
+                hash = addCanonicalColor(hash, hashes[color]);
+            }
+        }
+        return finishCanonical(hash);
+    }
+
+    /**
+     * Key of a cell in the color hashes, independent of the color of the cell.
+     *
+     * @param index column-major cell index
+     * @return key of the cell
+     */
+    static long colorKey(int index) {
+        return zobrist(index, 0xFF); // 0xFF is no color, so the key is independent of the colors
+    }
+
+    /**
+     * Key of a cell in the second color hashes, independent of {@link #colorKey(int)}.
+     *
+     * @param index column-major cell index
+     * @return second key of the cell
+     */
+    static long colorKeyLow(int index) {
+        return zobrist(index, 0xFE);
+    }
+
+    /**
+     * Adds the hash of the next color in canonical order to a canonical hash, so other representations of a board
+     * in this package, e.g. the cells of the {@link SameGameModel}, hash exactly like this class.
+     *
+     * @param hash      canonical hash of the colors seen so far
+     * @param colorHash color hash of the next color
+     * @return canonical hash including the color
+     */
+    static long addCanonicalColor(long hash, long colorHash) {
+        return (hash + colorHash) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Finishes a canonical hash after the last color.
+     *
+     * @param hash canonical hash of all colors
+     * @return final canonical hash
+     */
+    static long finishCanonical(long hash) {
+        return hash ^ hash >>> 31;
+    }
+
+    /**
+     * Finds the canonical relabeling of the colors: the colors in the order of their first appearance
+     * in the canonical scan order get the new colors {@code 1, 2, ...}.
+     *
+     * @param relabel array indexed by color, at least {@code maxColor() + 1} long, receives the new color of every
+     *                color on the board and {@link #EMPTY} for all others
+     * @return number of colors on the board
+     */
+    public int canonicalColors(int[] relabel) {
+        Arrays.fill(relabel, EMPTY);
+        int seen = 0;
+        for (int col = 0; col < cols && seen < presentColors; col++) {
+            for (int index = col * rows + rows - 1; index >= col * rows && seen < presentColors; index--) {
+                int color = cells[index];
+                if (color != EMPTY && relabel[color] == EMPTY) relabel[color] = ++seen;
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Creates the canonical form of this board: a copy with the colors relabeled by {@link #canonicalColors(int[])}.
+     * Boards that differ only by a permutation of the colors have equal canonical forms.
+     *
+     * @return canonical copy of this board
+     */
+    public CompactBoard canonical() {
+        int[] relabel = new int[maxColor() + 1];
+        canonicalColors(relabel);
+        CompactBoard canonical = new CompactBoard(rows, cols);
+        for (int index = 0; index < cells.length; index++) {
+            canonical.setAt(index, relabel[cells[index]]);
+        }
+        return canonical;
+    }
+
+    /**
+     * Retrieves the number of colors with at least one tile, maintained on every write.
+     *
+     * @return number of remaining colors
+     */
+    public int getPresentColors() {
+        return presentColors;
+    }
+
+    /**
+     * Returns the highest color index used on this board.
+     *
+     * @return highest color index, 0 for an empty board
+     */
+    public int maxColor() {
+        int max = 0;
+        for (byte cell : cells) {
+            if (cell > max) max = cell;
+        }
+        return max;
+    }
+}
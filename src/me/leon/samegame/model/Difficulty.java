@@ -9,6 +9,7 @@ package me.leon.samegame.model;
  *  <li>{@link #MEDIUM} - Medium difficulty level with 4 colors.</li>
  *  <li>{@link #HARD} - Hard difficulty level with 5 colors.</li>
  * </ul>
+ * Custom variants may use any number of colors up to {@link #MAX}.
  */
 public interface Difficulty {
     public static final int EASY = 3;
@@ -16,4 +17,6 @@ public interface Difficulty {
     public static final int MEDIUM = 4;
 
     public static final int HARD = 5;
+
+    public static final int MAX = 16;
 }
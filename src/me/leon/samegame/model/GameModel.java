@@ -1,5 +1,9 @@
 package me.leon.samegame.model;
 
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The {@code GameModel} interface defines the contract for a model in a game.
  * The game model is responsible for maintaining the state of the game, including the game board, score, status, etc.
@@ -25,6 +29,41 @@ public interface GameModel {
      */
     Tile[][] getTiles();
 
+    /**
+     * Returns the current state of the game board as an immutable {@link PersistentBoard},
+     * which any thread can read while the model keeps changing.
+     * The default implementation copies the whole grid, models should keep versions that share unchanged columns.
+     *
+     * @return current version of the game board
+     */
+    default PersistentBoard getBoard() {
+        List<Color> palette = new ArrayList<>();
+        CompactBoard board = CompactBoard.fromTiles(getTiles(), palette);
+        return PersistentBoard.of(board, palette.toArray(new Color[0]));
+    }
+
+    /**
+     * Computes the statistics of the current position in one labeling pass, see {@link BoardAnalytics}.
+     * Pass the same instance for every call to analyze many positions without allocating.
+     *
+     * @param analytics reusable result and buffers, its previous results are replaced
+     * @return the given instance with the statistics of the current position
+     */
+    default BoardAnalytics analyze(BoardAnalytics analytics) {
+        return analytics.analyze(getBoard());
+    }
+
+    /**
+     * Ranks the best moves of the current position into a caller-supplied buffer, see {@link MoveCandidates}.
+     * The default implementation ranks a copy of {@link #getBoard()}, models should scan their own grid.
+     *
+     * @param candidates reusable buffer, its previous candidates are replaced
+     * @return the given buffer with the best moves
+     */
+    default MoveCandidates rankMoves(MoveCandidates candidates) {
+        return candidates.rank(getBoard());
+    }
+
     /**
      * Processes a game interaction at the specified coordinates.
      * This method handles the logic for what happens when a player clicks on a tile.
@@ -68,4 +107,14 @@ public interface GameModel {
      * @return array containing row and col of the next best move
      */
     int[] getNextBestMove();
+
+    /**
+     * Checks whether the next best move is proven optimal, i.e. it starts a best possible continuation of the game
+     * instead of following the largest group heuristic.
+     *
+     * @return {@code true} if the next best move was found by an exact search, {@code false} by default
+     */
+    default boolean isNextBestMoveProven() {
+        return false;
+    }
 }
@@ -0,0 +1,168 @@
+package me.leon.samegame.model;
+
+import java.awt.*;
+
+/**
+ * The {@code GameSnapshot} class is an immutable copy of the visible state of a {@link GameModel}:
+ * the colors of the grid, the score, the game over state and the next best move.
+ * Snapshots are created on the thread that owns the model and can then be handed to any other thread,
+ * e.g. the Swing event dispatch thread, while the model keeps changing.
+ * The grid is the {@link PersistentBoard} version of the model, so taking a snapshot does not copy any cells.
+ */
+public final class GameSnapshot {
+    private final PersistentBoard board;
+    private final long points;
+    private final boolean gameOver;
+    private final int[] nextBestMove;
+    private final boolean nextBestMoveProven;
+    private final long version;
+    private final long inputNanos;
+
+    private GameSnapshot(PersistentBoard board, long points, boolean gameOver, int[] nextBestMove, boolean nextBestMoveProven,
+                         long version, long inputNanos) {
+        this.board = board;
+        this.points = points;
+        this.gameOver = gameOver;
+        this.nextBestMove = nextBestMove;
+        this.nextBestMoveProven = nextBestMoveProven;
+        this.version = version;
+        this.inputNanos = inputNanos;
+    }
+
+    /**
+     * Creates a snapshot of the current state of a model.
+     * Must be called on the thread that changes the model.
+     *
+     * @param gameModel  the model to copy
+     * @param version    increasing number of the snapshot
+     * @param inputNanos {@link System#nanoTime()} of the input that led to this state, 0 if there was none
+     * @return snapshot of the model
+     */
+    public static GameSnapshot of(GameModel gameModel, long version, long inputNanos) {
+        int[] nextBestMove = gameModel.getNextBestMove();
+        return new GameSnapshot(gameModel.getBoard(), gameModel.getPoints(), gameModel.getGameOver(),
+                new int[]{nextBestMove[0], nextBestMove[1]}, gameModel.isNextBestMoveProven(), version, inputNanos);
+    }
+
+    /**
+     * Creates a snapshot of a board without a model, e.g. for showing boards too large for {@code Tile}s.
+     * The snapshot has no points and no next best move ({@code -1, -1}).
+     *
+     * @param board   the board to copy
+     * @param palette colors of the board, color index {@code i + 1} belongs to {@code palette[i]}
+     * @param version increasing number of the snapshot
+     * @return snapshot of the board
+     */
+    public static GameSnapshot of(CompactBoard board, Color[] palette, long version) {
+        return new GameSnapshot(PersistentBoard.of(board, palette), 0, board.isGameOver(), new int[]{-1, -1}, false, version, 0);
+    }
+
+    /**
+     * Creates a snapshot of a board version without a model, e.g. for replays. The snapshot has no points
+     * and no next best move ({@code -1, -1}).
+     *
+     * @param board    the board version, not copied
+     * @param gameOver game over state of the board
+     * @param version  increasing number of the snapshot
+     * @return snapshot of the board
+     */
+    public static GameSnapshot of(PersistentBoard board, boolean gameOver, long version) {
+        return of(board, 0, gameOver, version);
+    }
+
+    /**
+     * Creates a snapshot of a board version and its points without a model, e.g. for the boards of opponents
+     * in a race. The snapshot has no next best move ({@code -1, -1}).
+     *
+     * @param board    the board version, not copied
+     * @param points   points of the board
+     * @param gameOver game over state of the board
+     * @param version  increasing number of the snapshot
+     * @return snapshot of the board
+     */
+    public static GameSnapshot of(PersistentBoard board, long points, boolean gameOver, long version) {
+        return new GameSnapshot(board, points, gameOver, new int[]{-1, -1}, false, version, 0);
+    }
+
+    /**
+     * Returns the color index of a cell, for views that cache per color.
+     *
+     * @param row row index
+     * @param col col index
+     * @return color index, {@code i} belongs to {@code getPalette()[i - 1]}, {@link CompactBoard#EMPTY} if the tile is removed
+     */
+    public int getCell(int row, int col) {
+        return board.get(row, col);
+    }
+
+    /**
+     * Retrieves the colors of the snapshot.
+     *
+     * @return copy of the palette, color index {@code i} belongs to element {@code i - 1}
+     */
+    public Color[] getPalette() {
+        return board.getPalette();
+    }
+
+    /**
+     * Returns the color of a cell.
+     *
+     * @param row row index
+     * @param col col index
+     * @return color of the tile, or {@code null} if the tile is removed
+     */
+    public Color getColor(int row, int col) {
+        return board.getColor(row, col);
+    }
+
+    /**
+     * Retrieves the immutable board of the snapshot.
+     *
+     * @return version of the board at the time of the snapshot
+     */
+    public PersistentBoard getBoard() {
+        return board;
+    }
+
+    public int getGameRows() {
+        return board.getRows();
+    }
+
+    public int getGameCols() {
+        return board.getCols();
+    }
+
+    public long getPoints() {
+        return points;
+    }
+
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Retrieves the next best move at the time of the snapshot.
+     *
+     * @return copy of the array containing row and col of the next best move
+     */
+    public int[] getNextBestMove() {
+        return nextBestMove.clone();
+    }
+
+    /**
+     * Checks whether the next best move of the snapshot is proven optimal, see {@link GameModel#isNextBestMoveProven()}.
+     *
+     * @return {@code true} if the move was found by the exact endgame search
+     */
+    public boolean isNextBestMoveProven() {
+        return nextBestMoveProven;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getInputNanos() {
+        return inputNanos;
+    }
+}
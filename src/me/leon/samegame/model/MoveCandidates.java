@@ -0,0 +1,268 @@
+package me.leon.samegame.model;
+
+/**
+ * The {@code MoveCandidates} class is a caller-owned buffer for the best {@code K} moves of a position,
+ * filled by {@link GameModel#rankMoves(MoveCandidates)} or {@link #rank(CompactBoard)}.
+ * Every candidate is a removable group with the position of its first tile (row by row), its size and the points
+ * for removing it. Candidates are ranked by group size, ties by their position row by row, so the first candidate
+ * is the move of {@link GameModel#getNextBestMove()}.
+ * <p>
+ * The position is scanned once; the best {@code K} groups are kept in a bounded heap in the arrays of this buffer,
+ * so ranking allocates nothing and costs O(cells + groups * log K). With lookahead enabled, each candidate
+ * additionally gets the points of the move plus the best immediate follow-up move, found on a scratch board.
+ * A buffer can be reused for every frame or rollout step. Instances are not thread-safe.
+ */
+public class MoveCandidates {
+    /**
+     * Lookahead value of a candidate if lookahead is disabled.
+     */
+    public static final long NO_LOOKAHEAD = -1;
+    private final int[] rows;
+    private final int[] cols;
+    private final int[] sizes;
+    private final long[] lookahead;
+    private final boolean withLookahead;
+    private int count;
+    private CompactBoard scratch;
+    private BoardAnalytics analytics;
+
+    /**
+     * Constructs a new {@code MoveCandidates} buffer.
+     *
+     * @param capacity      maximum number of candidates {@code K}, {@code rows * cols / 2} holds all groups of a board
+     * @param withLookahead {@code true} to compute the lookahead value of every candidate
+     */
+    public MoveCandidates(int capacity, boolean withLookahead) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1, but was " + capacity);
+        this.rows = new int[capacity];
+        this.cols = new int[capacity];
+        this.sizes = new int[capacity];
+        this.lookahead = new long[capacity];
+        this.withLookahead = withLookahead;
+    }
+
+    /**
+     * Ranks the moves of a position, replacing the previous candidates.
+     *
+     * @param board the position, is not modified
+     * @return this buffer
+     */
+    public MoveCandidates rank(CompactBoard board) {
+        int boardRows = board.getRows();
+        int boardCols = board.getCols();
+        clear();
+        board.beginVisit();
+        for (int row = 0; row < boardRows; row++) {
+            for (int col = 0; col < boardCols; col++) {
+                int size = board.floodFillVisited(col * boardRows + row, null);
+                if (size >= 2) offer(row, col, size);
+            }
+        }
+        finish(board);
+        return this;
+    }
+
+    /**
+     * Ranks the moves of an immutable board version, see {@link #rank(CompactBoard)}.
+     *
+     * @param board the position
+     * @return this buffer
+     */
+    public MoveCandidates rank(PersistentBoard board) {
+        CompactBoard position = scratchOf(board.getRows(), board.getCols());
+        for (int col = 0; col < board.getCols(); col++) {
+            for (int row = 0; row < board.getRows(); row++) {
+                position.set(row, col, board.get(row, col));
+            }
+        }
+        return rank(position);
+    }
+
+    /**
+     * Removes all candidates, the first step of ranking a position.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Offers a group found by the scan of a position. Groups have to be offered in the order of their
+     * first tile row by row. If the buffer is full, the group replaces the worst candidate if it is larger.
+     *
+     * @param row  row of the first tile of the group
+     * @param col  col of the first tile of the group
+     * @param size size of the group, at least 2
+     */
+    public void offer(int row, int col, int size) {
+        if (count < sizes.length) {
+            set(count, row, col, size);
+            siftUp(count++);
+        } else if (size > sizes[0]) { // the root is the worst candidate, a later group only wins if it is larger
+            set(0, row, col, size);
+            siftDown(0, count);
+        }
+    }
+
+    /**
+     * Sorts the offered candidates from best to worst and computes their lookahead values,
+     * the last step of ranking a position.
+     *
+     * @param board the ranked position, only used for the lookahead, is not modified
+     */
+    public void finish(CompactBoard board) {
+        for (int end = count - 1; end > 0; end--) { // heap sort, the worst candidates move to the end
+            swap(0, end);
+            siftDown(0, end);
+        }
+        if (!withLookahead) {
+            for (int i = 0; i < count; i++) {
+                lookahead[i] = NO_LOOKAHEAD;
+            }
+            return;
+        }
+        CompactBoard position = board;
+        if (board != scratch) {
+            position = scratchOf(board.getRows(), board.getCols());
+            position.copyFrom(board);
+        }
+        if (analytics == null) analytics = new BoardAnalytics();
+        position.setJournaling(true);
+        for (int i = 0; i < count; i++) {
+            int mark = position.mark();
+            position.removeGroup(rows[i], cols[i]);
+            int next = analytics.analyze(position).getLargestGroup();
+            lookahead[i] = CompactBoard.pointsForGroup(sizes[i]) + (next >= 2 ? CompactBoard.pointsForGroup(next) : 0);
+            position.undo(mark);
+        }
+        position.setJournaling(false);
+    }
+
+    /**
+     * Returns the scratch board for a size, created only when the size changes.
+     */
+    private CompactBoard scratchOf(int boardRows, int boardCols) {
+        if (scratch == null || scratch.getRows() != boardRows || scratch.getCols() != boardCols) {
+            scratch = new CompactBoard(boardRows, boardCols);
+        }
+        return scratch;
+    }
+
+    private void set(int i, int row, int col, int size) {
+        rows[i] = row;
+        cols[i] = col;
+        sizes[i] = size;
+    }
+
+    /**
+     * Checks whether candidate {@code i} ranks below candidate {@code j}: smaller, or as large but later row by row.
+     */
+    private boolean worse(int i, int j) {
+        if (sizes[i] != sizes[j]) return sizes[i] < sizes[j];
+        return rows[i] != rows[j] ? rows[i] > rows[j] : cols[i] > cols[j];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!worse(i, parent)) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= end) return;
+            if (child + 1 < end && worse(child + 1, child)) child++;
+            if (!worse(child, i)) return;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int row = rows[i];
+        int col = cols[i];
+        int size = sizes[i];
+        set(i, rows[j], cols[j], sizes[j]);
+        set(j, row, col, size);
+    }
+
+    /**
+     * Retrieves the number of candidates, at most the capacity and at most the number of groups.
+     *
+     * @return number of candidates
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Retrieves the maximum number of candidates.
+     *
+     * @return capacity {@code K}
+     */
+    public int capacity() {
+        return sizes.length;
+    }
+
+    /**
+     * Retrieves the row of a candidate's first tile.
+     *
+     * @param rank rank of the candidate, 0 for the best
+     * @return row index
+     */
+    public int getRow(int rank) {
+        return rows[rank];
+    }
+
+    /**
+     * Retrieves the col of a candidate's first tile.
+     *
+     * @param rank rank of the candidate, 0 for the best
+     * @return col index
+     */
+    public int getCol(int rank) {
+        return cols[rank];
+    }
+
+    /**
+     * Retrieves the group size of a candidate.
+     *
+     * @param rank rank of the candidate, 0 for the best
+     * @return number of tiles of the group
+     */
+    public int getSize(int rank) {
+        return sizes[rank];
+    }
+
+    /**
+     * Retrieves the points for removing a candidate's group.
+     *
+     * @param rank rank of the candidate, 0 for the best
+     * @return immediate score of the move
+     */
+    public long getScore(int rank) {
+        return CompactBoard.pointsForGroup(sizes[rank]);
+    }
+
+    /**
+     * Retrieves the points of a candidate's move plus the points of the largest group afterward.
+     *
+     * @param rank rank of the candidate, 0 for the best
+     * @return two-move score, or {@link #NO_LOOKAHEAD} if lookahead is disabled
+     */
+    public long getLookahead(int rank) {
+        return lookahead[rank];
+    }
+
+    /**
+     * Checks whether the lookahead values are computed.
+     *
+     * @return {@code true} if lookahead is enabled
+     */
+    public boolean hasLookahead() {
+        return withLookahead;
+    }
+}
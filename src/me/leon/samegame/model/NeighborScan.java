@@ -0,0 +1,159 @@
+package me.leon.samegame.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The {@code NeighborScan} class checks a column-major byte grid for two adjacent, equally colored, non-empty cells,
+ * which is the "is there any move left" test behind the game over check.
+ * <p>
+ * Two implementations are provided:
+ * <ul>
+ *  <li>{@link #scalarHasAdjacentPair(byte[], int, int)} compares cell by cell.</li>
+ *  <li>{@link #swarHasAdjacentPair(byte[], int, int)} compares 8 cells at once inside a {@code long}
+ *  (SIMD within a register). Vertical neighbors are neighboring bytes of the same column,
+ *  horizontal neighbors are the same bytes of the next column, so both tests compare a slice of the grid
+ *  against a shifted slice of itself.</li>
+ * </ul>
+ * The implementation is selected at runtime by {@link #hasAdjacentPair(byte[], int, int)}: small grids are scanned
+ * scalar, larger ones packed. The system property {@code samegame.scan} ({@code scalar} or {@code swar}) forces one of them.
+ * <p>
+ * Grids stored as {@link PackedCells} are scanned by {@link #hasAdjacentPair(PackedCells, int, int)} with the same
+ * idea, on as many fields of the bit width of the cells as fit into a {@code long}, e.g. 21 cells of 3 bits per step.
+ */
+public final class NeighborScan {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final int SWAR_MIN_CELLS = 256;
+    private static final String FORCED = System.getProperty("samegame.scan", "");
+
+    private NeighborScan() {
+    }
+
+    /**
+     * Checks a grid for two adjacent, equally colored, non-empty cells with the implementation suited best.
+     *
+     * @param cells column-major cells, {@link CompactBoard#EMPTY} for removed cells, colors must be below 128
+     * @param rows  number of rows
+     * @param cols  number of cols
+     * @return {@code true} if at least one move is possible
+     */
+    public static boolean hasAdjacentPair(byte[] cells, int rows, int cols) {
+        if (FORCED.equals("scalar")) return scalarHasAdjacentPair(cells, rows, cols);
+        if (FORCED.equals("swar") || rows * cols >= SWAR_MIN_CELLS) return swarHasAdjacentPair(cells, rows, cols);
+        return scalarHasAdjacentPair(cells, rows, cols);
+    }
+
+    /**
+     * Cell by cell implementation, see {@link #hasAdjacentPair(byte[], int, int)}.
+     *
+     * @param cells column-major cells
+     * @param rows  number of rows
+     * @param cols  number of cols
+     * @return {@code true} if at least one move is possible
+     */
+    public static boolean scalarHasAdjacentPair(byte[] cells, int rows, int cols) {
+        for (int col = 0; col < cols; col++) {
+            int base = col * rows;
+            for (int row = 0; row < rows; row++) {
+                byte color = cells[base + row];
+                if (color == CompactBoard.EMPTY) continue;
+                if (row < rows - 1 && cells[base + row + 1] == color) return true;
+                if (col < cols - 1 && cells[base + rows + row] == color) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packed implementation comparing 8 cells per step, see {@link #hasAdjacentPair(byte[], int, int)}.
+     *
+     * @param cells column-major cells
+     * @param rows  number of rows
+     * @param cols  number of cols
+     * @return {@code true} if at least one move is possible
+     */
+    public static boolean swarHasAdjacentPair(byte[] cells, int rows, int cols) {
+        // horizontal: every cell except the last column against the cell one column to the right
+        int horizontal = (cols - 1) * rows;
+        if (horizontal > 0 && pairInSlices(cells, 0, rows, horizontal)) return true;
+        // vertical: every cell except the last row of a column against the cell below
+        for (int col = 0; col < cols; col++) {
+            int base = col * rows;
+            if (pairInSlices(cells, base, base + 1, rows - 1)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks a packed grid for two adjacent, equally colored, non-empty cells, comparing {@code 64 / bits} cells per step.
+     *
+     * @param cells column-major cells, {@link CompactBoard#EMPTY} for removed cells
+     * @param rows  number of rows
+     * @param cols  number of cols
+     * @return {@code true} if at least one move is possible
+     */
+    public static boolean hasAdjacentPair(PackedCells cells, int rows, int cols) {
+        int bits = cells.getBitsPerValue();
+        int perStep = 64 / bits;
+        long high = 0; // top bit of every field
+        for (int field = 0; field < perStep; field++) {
+            high |= 1L << (field * bits + bits - 1);
+        }
+        long fields = perStep * bits == 64 ? -1L : (1L << perStep * bits) - 1;
+        long low = fields & ~high; // all other bits of the fields
+        int horizontal = (cols - 1) * rows;
+        if (horizontal > 0 && pairInPackedSlices(cells, 0, rows, horizontal, bits, perStep, high, low)) return true;
+        for (int col = 0; col < cols; col++) {
+            int base = col * rows;
+            if (pairInPackedSlices(cells, base, base + 1, rows - 1, bits, perStep, high, low)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compares {@code length} packed cells starting at {@code a} with the cells starting at {@code b}.
+     * Like the byte lanes of {@link #pairInSlices(byte[], int, int, int)}: adding the low bits of a field to all ones
+     * carries into the top bit exactly if they are not zero, and never out of the field.
+     *
+     * @return {@code true} if at some offset both cells are equal and not empty
+     */
+    private static boolean pairInPackedSlices(PackedCells cells, int a, int b, int length, int bits, int perStep,
+                                              long high, long low) {
+        for (int i = 0; i < length; i += perStep) {
+            int n = Math.min(perStep, length - i) * bits;
+            long x = cells.readBits((long) (a + i) * bits, n);
+            long y = cells.readBits((long) (b + i) * bits, n);
+            long notEmpty = ((x & low) + low) | x;
+            long xor = x ^ y;
+            long different = ((xor & low) + low) | xor;
+            if ((notEmpty & ~different & high) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compares {@code length} cells starting at {@code a} with the cells starting at {@code b}.
+     *
+     * @return {@code true} if at some offset both cells are equal and not empty
+     */
+    private static boolean pairInSlices(byte[] cells, int a, int b, int length) {
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            long x = (long) LONGS.get(cells, a + i);
+            long y = (long) LONGS.get(cells, b + i);
+            // high bit of a byte is set if the byte is not zero (exact per byte as colors are below 128)
+            long notEmpty = ((x & LOW_7_BITS) + LOW_7_BITS) | x;
+            long xor = x ^ y;
+            long different = ((xor & LOW_7_BITS) + LOW_7_BITS) | xor;
+            if ((notEmpty & ~different & HIGH_BITS) != 0) return true;
+        }
+        for (; i < length; i++) {
+            byte color = cells[a + i];
+            if (color != CompactBoard.EMPTY && color == cells[b + i]) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,208 @@
+package me.leon.samegame.model;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The {@code PackedCells} class is an array of small unsigned values, e.g. the color indices of a grid, packed into
+ * {@code long} words with as few bits per value as the highest value needs: 2 bits for up to 3 colors, 3 bits for
+ * up to 7, 4 bits for up to 15 and 5 bits for up to 31. Value {@code i} occupies bits {@code i * bits} to
+ * {@code (i + 1) * bits - 1}, so a value may span two words, and slices of values are read, written and copied
+ * as bit ranges of up to 64 bits at a time instead of value by value.
+ * <p>
+ * The words end with one spare word, so a read of up to 64 bits never needs a bounds check for the following word.
+ */
+public final class PackedCells implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final int length;
+    private final int bits;
+    private final long mask;
+    private final long[] words;
+
+    /**
+     * Constructs a new {@code PackedCells} with all values 0.
+     *
+     * @param length   number of values
+     * @param maxValue highest value that will be stored, determines the bits per value
+     * @throws IllegalArgumentException if {@code maxValue} is negative
+     */
+    public PackedCells(int length, int maxValue) {
+        if (maxValue < 0) throw new IllegalArgumentException("Values must not be negative: " + maxValue);
+        this.length = length;
+        this.bits = bitsFor(maxValue);
+        this.mask = (1L << bits) - 1;
+        this.words = new long[(int) (((long) length * bits + 63) >>> 6) + 1];
+    }
+
+    /**
+     * Packs an array of values.
+     *
+     * @param values   values to pack, between 0 and {@code maxValue}
+     * @param maxValue highest value that will be stored, determines the bits per value
+     * @return packed copy of the values
+     */
+    public static PackedCells of(byte[] values, int maxValue) {
+        PackedCells cells = new PackedCells(values.length, maxValue);
+        for (int i = 0; i < values.length; i++) {
+            cells.set(i, values[i]);
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the number of bits needed for values up to {@code maxValue}.
+     *
+     * @param maxValue highest value
+     * @return bits per value, at least 1
+     */
+    public static int bitsFor(int maxValue) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+    }
+
+    /**
+     * Returns a value.
+     *
+     * @param index index of the value
+     * @return value at the index
+     */
+    public int get(int index) {
+        long bit = (long) index * bits;
+        int word = (int) (bit >>> 6);
+        int offset = (int) bit & 63;
+        long value = words[word] >>> offset;
+        if (offset + bits > 64) value |= words[word + 1] << (64 - offset);
+        return (int) (value & mask);
+    }
+
+    /**
+     * Sets a value.
+     *
+     * @param index index of the value
+     * @param value new value, between 0 and the highest value of this array
+     */
+    public void set(int index, int value) {
+        writeBits((long) index * bits, bits, value);
+    }
+
+    /**
+     * Sets a range of values to 0.
+     *
+     * @param from index of the first value
+     * @param to   index after the last value
+     */
+    public void clear(int from, int to) {
+        long bit = (long) from * bits;
+        long end = (long) to * bits;
+        for (; bit < end; bit += 64) {
+            writeBits(bit, (int) Math.min(64, end - bit), 0);
+        }
+    }
+
+    /**
+     * Copies a range of values inside this array, 64 bits at a time in ascending order.
+     * The ranges may only overlap if the values move toward lower indices.
+     *
+     * @param from   index of the first value to copy
+     * @param to     index of the first value to overwrite
+     * @param length number of values
+     */
+    public void copy(int from, int to, int length) {
+        copyBits(this, (long) from * bits, this, (long) to * bits, (long) length * bits);
+    }
+
+    /**
+     * Creates a new array with a range of the values of this array and the same bits per value.
+     *
+     * @param from index of the first value
+     * @param to   index after the last value
+     * @return packed copy of the range
+     */
+    public PackedCells copyOfRange(int from, int to) {
+        PackedCells copy = new PackedCells(to - from, (int) mask);
+        copyBits(this, (long) from * bits, copy, 0, (long) (to - from) * bits);
+        return copy;
+    }
+
+    private static void copyBits(PackedCells source, long sourceBit, PackedCells target, long targetBit, long bits) {
+        for (long done = 0; done < bits; done += 64) {
+            int n = (int) Math.min(64, bits - done);
+            target.writeBits(targetBit + done, n, source.readBits(sourceBit + done, n));
+        }
+    }
+
+    /**
+     * Reads up to 64 bits, e.g. several values at once.
+     *
+     * @param bit first bit
+     * @param n   number of bits, between 1 and 64
+     * @return the bits, starting at bit 0
+     */
+    long readBits(long bit, int n) {
+        int word = (int) (bit >>> 6);
+        int offset = (int) bit & 63;
+        long value = words[word] >>> offset;
+        if (offset != 0 && offset + n > 64) value |= words[word + 1] << (64 - offset);
+        return n == 64 ? value : value & ((1L << n) - 1);
+    }
+
+    /**
+     * Writes up to 64 bits, e.g. several values at once.
+     *
+     * @param bit   first bit
+     * @param n     number of bits, between 1 and 64
+     * @param value the bits, starting at bit 0, higher bits are ignored
+     */
+    void writeBits(long bit, int n, long value) {
+        int word = (int) (bit >>> 6);
+        int offset = (int) bit & 63;
+        long m = n == 64 ? -1L : (1L << n) - 1;
+        value &= m;
+        words[word] = words[word] & ~(m << offset) | value << offset;
+        if (offset != 0 && offset + n > 64) {
+            int spill = 64 - offset;
+            words[word + 1] = words[word + 1] & ~(m >>> spill) | value >>> spill;
+        }
+    }
+
+    /**
+     * Retrieves the number of values.
+     *
+     * @return number of values
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Retrieves the bits per value.
+     *
+     * @return bits per value, between 1 and 32
+     */
+    public int getBitsPerValue() {
+        return bits;
+    }
+
+    /**
+     * Retrieves the memory of the values.
+     *
+     * @return size of the words in bytes
+     */
+    public long getBytes() {
+        return 8L * words.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PackedCells)) return false;
+        PackedCells other = (PackedCells) o;
+        return length == other.length && bits == other.bits && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
@@ -0,0 +1,42 @@
+package me.leon.samegame.model;
+
+import java.awt.*;
+
+/**
+ * The {@code Palette} class supplies the colors of a game. The model only knows color indices, color index
+ * {@code i + 1} is painted with element {@code i} of its palette.
+ * <p>
+ * The standard palette starts with the five classic colors of the game, so games up to {@link Difficulty#HARD}
+ * look as before. Further colors are spread over the hue circle by the golden angle, alternating between
+ * two brightness levels, so neighboring indices stay easy to tell apart.
+ */
+public final class Palette {
+    private static final Color[] CLASSIC = {Color.red, Color.yellow, Color.blue, Color.green, Color.orange};
+    private static final float GOLDEN_ANGLE = 0.381966f;
+
+    private Palette() {
+    }
+
+    /**
+     * Creates the standard palette for a number of colors.
+     *
+     * @param colors number of colors, between 1 and {@link Difficulty#MAX}
+     * @return new array with the colors
+     * @throws IllegalArgumentException if the number of colors is out of range
+     */
+    public static Color[] standard(int colors) {
+        if (colors < 1 || colors > Difficulty.MAX) {
+            throw new IllegalArgumentException("Number of colors must be between 1 and " + Difficulty.MAX + ": " + colors);
+        }
+        Color[] palette = new Color[colors];
+        for (int i = 0; i < colors; i++) {
+            if (i < CLASSIC.length) {
+                palette[i] = CLASSIC[i];
+            } else {
+                float hue = (0.6f + (i - CLASSIC.length) * GOLDEN_ANGLE) % 1;
+                palette[i] = Color.getHSBColor(hue, 0.75f, i % 2 == 0 ? 0.95f : 0.6f);
+            }
+        }
+        return palette;
+    }
+}
@@ -0,0 +1,149 @@
+package me.leon.samegame.model;
+
+import java.awt.*;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * The {@code PersistentBoard} class is an immutable version of a SameGame grid with structural sharing per column.
+ * Every column is a {@link PackedCells} array of color indices ({@link CompactBoard#EMPTY} for removed tiles,
+ * {@code i} for {@code palette[i - 1]}) with as few bits per cell as the palette needs, and is never changed once
+ * the board is created. A move creates the next version with {@link #withColumns(boolean[], PackedCells[])}, which only
+ * copies the references of the untouched columns, so a new version costs O(changed columns) instead of O(board).
+ * <p>
+ * As nothing is ever modified, any number of threads can read any version without locks
+ * while the model already applies the next move.
+ */
+public final class PersistentBoard implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final int rows;
+    private final int cols;
+    private final Color[] palette;
+    private final PackedCells[] columns;
+
+    private PersistentBoard(int rows, int cols, Color[] palette, PackedCells[] columns) {
+        this.rows = rows;
+        this.cols = cols;
+        this.palette = palette;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates the first version of a board from its packed columns.
+     *
+     * @param rows    number of rows
+     * @param columns one array of {@code rows} color indices per column, must not be modified afterward
+     * @param palette colors of the game, color index {@code i + 1} belongs to {@code palette[i]}
+     * @return board with the given columns
+     */
+    public static PersistentBoard of(int rows, PackedCells[] columns, Color[] palette) {
+        return new PersistentBoard(rows, columns.length, palette.clone(), columns.clone());
+    }
+
+    /**
+     * Creates a board with the cells of a {@link CompactBoard}.
+     *
+     * @param board   the board to copy
+     * @param palette colors of the board, color index {@code i + 1} belongs to {@code palette[i]}
+     * @return board with the cells of the compact board
+     * @throws IllegalArgumentException if a cell has a color index above the length of the palette
+     */
+    public static PersistentBoard of(CompactBoard board, Color[] palette) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        PackedCells[] columns = new PackedCells[cols];
+        for (int col = 0; col < cols; col++) {
+            columns[col] = new PackedCells(rows, palette.length);
+            for (int row = 0; row < rows; row++) {
+                int cell = board.get(row, col);
+                if (cell > palette.length) {
+                    throw new IllegalArgumentException("Palette has " + palette.length + " colors, but a cell has color " + cell);
+                }
+                columns[col].set(row, cell);
+            }
+        }
+        return new PersistentBoard(rows, cols, palette.clone(), columns);
+    }
+
+    /**
+     * Creates the next version of this board, replacing only the changed columns.
+     *
+     * @param changed    {@code true} for every column that is replaced
+     * @param newColumns new packed columns, only read where {@code changed} is set, must not be modified afterward
+     * @return next version, sharing all unchanged columns with this board
+     */
+    public PersistentBoard withColumns(boolean[] changed, PackedCells[] newColumns) {
+        PackedCells[] columns = this.columns.clone(); // copies references only
+        for (int col = 0; col < cols; col++) {
+            if (changed[col]) columns[col] = newColumns[col];
+        }
+        return new PersistentBoard(rows, cols, palette, columns);
+    }
+
+    /**
+     * Returns the color index of a cell.
+     *
+     * @param row row index
+     * @param col col index
+     * @return color index, {@link CompactBoard#EMPTY} if the tile is removed
+     */
+    public int get(int row, int col) {
+        return columns[col].get(row);
+    }
+
+    /**
+     * Returns the color of a cell.
+     *
+     * @param row row index
+     * @param col col index
+     * @return color of the tile, or {@code null} if the tile is removed
+     */
+    public Color getColor(int row, int col) {
+        int cell = columns[col].get(row);
+        return cell == CompactBoard.EMPTY ? null : palette[cell - 1];
+    }
+
+    /**
+     * Checks whether a column is the same (shared) array in both versions.
+     *
+     * @param other another version of the board
+     * @param col   col index
+     * @return {@code true} if the column is shared
+     */
+    public boolean sharesColumn(PersistentBoard other, int col) {
+        return columns[col] == other.columns[col];
+    }
+
+    /**
+     * Creates a mutable copy of this version, e.g. for a solver.
+     *
+     * @return compact board with the same cells
+     */
+    public CompactBoard toCompactBoard() {
+        CompactBoard board = new CompactBoard(rows, cols);
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                board.set(row, col, columns[col].get(row));
+            }
+        }
+        return board;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Retrieves the colors of the board.
+     *
+     * @return copy of the palette, color index {@code i} belongs to element {@code i - 1}
+     */
+    public Color[] getPalette() {
+        return palette.clone();
+    }
+}
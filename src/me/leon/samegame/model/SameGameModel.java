@@ -1,10 +1,12 @@
 package me.leon.samegame.model;
 
+import me.leon.samegame.solver.EndgameSolver;
 import me.leon.samegame.util.SoundManager;
+import me.leon.samegame.util.SuggestionCache;
 
 import java.awt.*;
 import java.io.Serializable;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -12,18 +14,56 @@ import java.util.Random;
  * It implements the {@link GameModel} and {@link Serializable} interfaces.
  * This class manages the game state, including the game grid, points, game over condition,
  * and provides methods for initializing the game, processing user interactions, and finding the next best move.
+ * <p>
+ * The grid is stored column-major in {@link PackedCells} ({@code index = col * gameRows + row}) with as few bits per
+ * cell as the number of colors needs, with 0 for removed tiles and {@code i + 1} for the color {@code palette[i]}.
+ * Every step of a move works along columns, which are contiguous in this layout: a touched column is collapsed by an
+ * in-place stable partition, empty columns are closed by copying whole column slices 64 bits at a time, and the
+ * game over check compares {@code 64 / bits} packed cells per step. The flood fills mark visited cells in a bitmap,
+ * so the model needs a few bits per cell, also for many colors on large boards.
+ * The colors are supplied separately as a palette, see {@link Palette}.
+ * The {@link Tile}s of {@link #getTiles()} are only created on request.
  */
 public class SameGameModel implements GameModel, Serializable {
+    private static final int REMOVED = 0;
+    private static final int MIN_BUFFER = 64;
     private int difficulty;
-    private Tile[][] tiles;
+    private final Color[] palette;
+    private final PackedCells cells; // column-major, REMOVED or color index + 1
     private Random r;
     private long points;
-    private int currentTileGroupCount;
-    private HashSet<Integer> currentColumnsToCollapse; // Use a Set for the collection of columns to be collapsed after a move to avoid duplicate checks when multiple tiles in one column are part of the group
     private boolean gameOver;
     private int[] nextBestMove;
+    private boolean nextBestMoveProven;
+    private transient EndgameSolver endgameSolver; // exact hints near the end, null (default) for reproducible heuristic hints only
     private final int gameRows;
     private final int gameCols;
+    // Same colored adjacent pairs, kept up to date per move so game over is a counter check
+    private int[][] verticalPairs; // [col][color]: pairs inside a column
+    private int[][] horizontalPairs; // [col][color]: pairs between col and col + 1
+    private int[] sameColorPairsByColor;
+    private int sameColorPairs;
+    // Hashes of the cells of every color, independent of the color itself, kept up to date per move like the pair
+    // counters, so the key of the suggestion cache needs no full scan, see CompactBoard#canonicalHash64()
+    private long[][] columnColorHashes; // [col][color]: colorKey of the cells of the color in the column
+    private long[][] columnColorHashesLow; // [col][color]: the same with colorKeyLow
+    private int[][] columnColorTiles; // [col][color]: tiles of the color in the column
+    private long[] colorHashes; // [color]: XOR of the column hashes
+    private long[] colorHashesLow;
+    private int[] colorTiles;
+    private int remainingTiles;
+    private volatile PersistentBoard board; // immutable version of the cells, replaced after every move
+    // reusable buffers of the flood fills, the stack and the group grow with the largest group
+    private int[] stack;
+    private int[] group;
+    private final long[] visited; // one bit per cell, set while a round of flood fills visits the cell
+    private int visitedFrom; // range of words of visited with set bits
+    private int visitedTo;
+    private final boolean[] changedCols;
+    private transient CompactBoard lookaheadBoard; // copy of the cells for the lookahead of rankMoves
+    // tiles for getTiles(), created on request for the columns changed since the last request
+    private Tile[][] tiles;
+    private boolean[] staleTileCols;
 
     /**
      * Constructs a new {@code SameGameModel} with the specified
@@ -34,7 +74,7 @@ public class SameGameModel implements GameModel, Serializable {
      * @param difficulty the difficulty level of the game (number of colors)
      */
     public SameGameModel(int gameRows, int gameCols, int difficulty) {
-        this(gameRows, gameCols, difficulty, new Random());
+        this(gameRows, gameCols, difficulty, Palette.standard(difficulty), new Random());
     }
 
     /**
@@ -47,161 +87,259 @@ public class SameGameModel implements GameModel, Serializable {
      * @param seed       the seed to generate game tiles from
      */
     public SameGameModel(int gameRows, int gameCols, int difficulty, long seed) {
-        this(gameRows, gameCols, difficulty, new Random(seed));
+        this(gameRows, gameCols, difficulty, Palette.standard(difficulty), new Random(seed));
+    }
+
+    /**
+     * Constructs a new {@code SameGameModel} with the specified
+     * number of rows, columns, difficulty level, a seed and the colors to show the tiles with.
+     * The tiles are the same as without a palette for the same seed, only their colors differ.
+     *
+     * @param gameRows   the number of rows in the game grid
+     * @param gameCols   the number of cols in the game grid
+     * @param difficulty the difficulty level of the game (number of colors)
+     * @param seed       the seed to generate game tiles from
+     * @param palette    colors of the tiles, color index {@code i + 1} belongs to {@code palette[i]}
+     * @throws IllegalArgumentException if the difficulty is not between 1 and {@link Difficulty#MAX}
+     *                                  or the palette has less colors than the difficulty
+     */
+    public SameGameModel(int gameRows, int gameCols, int difficulty, long seed, Color[] palette) {
+        this(gameRows, gameCols, difficulty, palette, new Random(seed));
     }
 
     /**
      * Constructs a new {@code SameGameModel} with the specified
-     * number of rows, columns, difficulty level and a Random object.
+     * number of rows, columns, difficulty level, palette and a Random object.
      *
      * @param gameRows   the number of rows in the game grid
      * @param gameCols   the number of cols in the game grid
      * @param difficulty the difficulty level of the game (number of colors)
+     * @param palette    colors of the tiles
      * @param r          the Random generator, either random or based on a seed for tests
      */
-    private SameGameModel(int gameRows, int gameCols, int difficulty, Random r) {
+    private SameGameModel(int gameRows, int gameCols, int difficulty, Color[] palette, Random r) {
+        checkColors(difficulty, palette);
         this.gameRows = gameRows;
         this.gameCols = gameCols;
         this.difficulty = difficulty;
+        this.palette = palette.clone();
         this.points = 0;
-        this.currentTileGroupCount = 0;
-        this.currentColumnsToCollapse = new HashSet<>();
         this.gameOver = false;
-        this.tiles = new Tile[this.gameRows][this.gameCols];
+        this.cells = new PackedCells(gameRows * gameCols, difficulty);
+        this.stack = new int[Math.min(cells.length(), MIN_BUFFER)];
+        this.group = new int[stack.length];
+        this.visited = new long[(cells.length() + 63) >>> 6];
+        this.changedCols = new boolean[gameCols];
         this.r = r;
         initialize();
     }
 
+    private static void checkColors(int difficulty, Color[] palette) {
+        if (difficulty < 1 || difficulty > Difficulty.MAX) {
+            throw new IllegalArgumentException("Difficulty must be between 1 and " + Difficulty.MAX + " colors: " + difficulty);
+        }
+        if (palette.length < difficulty) {
+            throw new IllegalArgumentException("Palette has " + palette.length + " colors, the game needs " + difficulty);
+        }
+    }
+
+    /**
+     * Constructs a new {@code SameGameModel} that continues from a given position, e.g. a position of a solver.
+     * Color index {@code i} of the board is the {@code i}-th color of the game, as in {@link CompactBoard#random(int, int, int, long)}.
+     * Unlike a new game, the position is not replaced if it has no moves left, the game is over right away.
+     *
+     * @param position position to start from, is copied
+     * @throws IllegalArgumentException if the position uses more than {@link Difficulty#MAX} colors
+     */
+    public SameGameModel(CompactBoard position) {
+        this.gameRows = position.getRows();
+        this.gameCols = position.getCols();
+        this.difficulty = Math.max(1, position.maxColor());
+        if (difficulty > Difficulty.MAX) {
+            throw new IllegalArgumentException("Position uses " + difficulty + " colors, at most " + Difficulty.MAX + " are supported");
+        }
+        this.palette = Palette.standard(difficulty);
+        this.cells = new PackedCells(gameRows * gameCols, difficulty);
+        this.stack = new int[Math.min(cells.length(), MIN_BUFFER)];
+        this.group = new int[stack.length];
+        this.visited = new long[(cells.length() + 63) >>> 6];
+        this.changedCols = new boolean[gameCols];
+        this.r = new Random();
+        for (int col = 0; col < gameCols; col++) {
+            for (int row = 0; row < gameRows; row++) {
+                cells.set(col * gameRows + row, position.get(row, col));
+            }
+        }
+        countPairs();
+        hashColors();
+        board = PersistentBoard.of(position, palette);
+        tiles = null;
+        gameOver = sameColorPairs == 0;
+        nextBestMove = gameOver ? new int[]{-1, -1} : suggestNextBestMove();
+    }
+
     /**
      * Initializes the game by creating the game grid with random tile colors.
      */
     @Override
     public void initialize() {
-        Color[] colors = {Color.red, Color.yellow, Color.blue, Color.green, Color.orange};
-
-        // init array for games tiles
+        // init grid, drawing the colors in row-major order like the first versions of the game did
         for (int row = 0; row < gameRows; row++) {
             for (int col = 0; col < gameCols; col++) {
-                tiles[row][col] = new Tile(colors[r.nextInt(difficulty)]);
+                cells.set(col * gameRows + row, r.nextInt(difficulty) + 1);
             }
         }
 
+        countPairs();
+
         // re-initialize game if it's lost from the beginning
-        if (checkGameOver()) {
+        if (sameColorPairs == 0) {
             initialize();
+            return;
         }
+        hashColors();
+
+        PackedCells[] columns = new PackedCells[gameCols];
+        for (int col = 0; col < gameCols; col++) {
+            columns[col] = column(col);
+        }
+        board = PersistentBoard.of(gameRows, columns, palette);
+        tiles = null;
 
         // init next move suggestion
-        nextBestMove = findLargestGroupPosition();
+        nextBestMove = suggestNextBestMove();
     }
 
     /**
-     * Performs a flood fill search algorithm to find a group of connected tiles with the same color.
-     * This method recursively explores adjacent tiles starting from the specified position (row, col).
-     * It marks visited tiles and removes them from the grid, adding their columns to a set for potential collapsing.
-     * This method is inspired by Burger, 2006, "Digitale Bildverarbeitung, Eine Einführung mit Java und ImageJ", p.196 "Flood Fill".
-     *
-     * @param row   the row index of the starting tile
-     * @param col   the column index of the starting tile
-     * @param color the color of the group being searched
+     * Counts all same colored pairs once, afterward they are only updated where a move changes the grid.
      */
-    private void floodSearchTileGroup(int row, int col, Color color) {
-        // check if selected tile is in boundaries,
-        if (row < 0 || row >= gameRows || col < 0 || col >= gameCols) return;
-        // check if selected tile was visited already,
-        // check if selected tile is same color as the searched group
-        if (tiles[row][col].isVisited() || tiles[row][col].getColor() != color) return;
-
-        // Mark the tile as visited and remove it (removing colors it white)
-        tiles[row][col].setVisited(true);
-        tiles[row][col].remove();
-        SoundManager.get().playSound("click_tile");
+    private void countPairs() {
+        verticalPairs = new int[gameCols][difficulty];
+        horizontalPairs = new int[gameCols][difficulty];
+        sameColorPairsByColor = new int[difficulty];
+        sameColorPairs = 0;
+        for (int col = 0; col < gameCols; col++) {
+            updateVerticalPairs(col);
+            updateHorizontalPairs(col);
+        }
+    }
 
-        // add column to Set of columns that are checked for collapsing later in collapseColumn()
-        currentColumnsToCollapse.add(col);
+    /**
+     * Hashes the cells of all colors once, afterward the hashes are only updated where a move changes the grid.
+     */
+    private void hashColors() {
+        columnColorHashes = new long[gameCols][difficulty];
+        columnColorHashesLow = new long[gameCols][difficulty];
+        columnColorTiles = new int[gameCols][difficulty];
+        colorHashes = new long[difficulty];
+        colorHashesLow = new long[difficulty];
+        colorTiles = new int[difficulty];
+        remainingTiles = 0;
+        for (int col = 0; col < gameCols; col++) {
+            updateColorHashes(col);
+        }
+    }
 
-        // Recursive search for all 4 directions
-        floodSearchTileGroup(row + 1, col, color);
-        floodSearchTileGroup(row - 1, col, color);
-        floodSearchTileGroup(row, col + 1, color);
-        floodSearchTileGroup(row, col - 1, color);
+    /**
+     * Starts a new round of flood fills, cells found afterward count as visited until the next call.
+     * Only the words of the bitmap touched by the last round are cleared, e.g. the columns of the last removed group.
+     */
+    private void beginVisit() {
+        if (visitedFrom < visitedTo) Arrays.fill(visited, visitedFrom, visitedTo, 0);
+        visitedFrom = visited.length;
+        visitedTo = 0;
+    }
 
-        // increments the size of the currently searched tile group
-        currentTileGroupCount++;
+    private boolean isVisited(int index) {
+        return (visited[index >>> 6] & 1L << index) != 0;
+    }
+
+    private void markVisited(int index) {
+        int word = index >>> 6;
+        visited[word] |= 1L << index;
+        if (word < visitedFrom) visitedFrom = word;
+        if (word >= visitedTo) visitedTo = word + 1;
     }
 
     /**
-     * Collapses a specified column by moving non-removed tiles to the top and removed tiles to the bottom.
+     * Performs an iterative flood fill to find the group of connected tiles with the same color as the start cell.
+     * Skips cells visited since the last {@link #beginVisit()}.
+     * This method is inspired by Burger, 2006, "Digitale Bildverarbeitung, Eine Einführung mit Java und ImageJ", p.196 "Flood Fill".
      *
-     * @param col the index of the column to collapse
+     * @param start   column-major index of the start cell
+     * @param collect {@code true} to write the column-major indices of the group into {@link #group}
+     * @return size of the group, 0 if the start cell is removed or already visited
      */
-    private void collapseColumn(int col) {
-        Tile[] tilesSelectedCol = new Tile[gameRows];
-
-        // Get tiles in the selected column to tilesSelectedCol array
-        for (int i = 0; i < tiles.length; i++) {
-            tilesSelectedCol[i] = tiles[i][col];
-        }
-
-        // Sort tilesSelectedCol so that removed tiles are on top
-        Tile[] tilesCollapsedCol = new Tile[tilesSelectedCol.length];
-        int index = 0;
-        // 1st add all tiles that are not removed
-        for (Tile tile : tilesSelectedCol) {
-            if (tile.isRemoved()) {
-                tilesCollapsedCol[index++] = tile;
+    private int floodFill(int start, boolean collect) {
+        int color = cells.get(start);
+        if (color == REMOVED || isVisited(start)) return 0;
+        int top = 0;
+        int size = 0;
+        stack[top++] = start;
+        markVisited(start);
+        while (top > 0) {
+            int index = stack[--top];
+            if (collect) {
+                if (size == group.length) group = Arrays.copyOf(group, Math.min(2 * size, cells.length()));
+                group[size] = index;
             }
+            size++;
+            int row = index % gameRows;
+            if (row > 0) top = visit(index - 1, color, top);
+            if (row < gameRows - 1) top = visit(index + 1, color, top);
+            if (index >= gameRows) top = visit(index - gameRows, color, top);
+            if (index + gameRows < cells.length()) top = visit(index + gameRows, color, top);
         }
-        // 2nd add all tiles that are removed on top
-        for (Tile tile : tilesSelectedCol) {
-            if (!tile.isRemoved()) {
-                tilesCollapsedCol[index++] = tile;
-            }
+        return size;
+    }
+
+    private int visit(int index, int color, int top) {
+        if (cells.get(index) == color && !isVisited(index)) {
+            markVisited(index);
+            if (top == stack.length) stack = Arrays.copyOf(stack, Math.min(2 * top, cells.length()));
+            stack[top++] = index;
         }
-        // Replace column in tiles with the new collapsed column
-        for (int i = 0; i < tilesCollapsedCol.length; i++) {
-            tiles[i][col] = tilesCollapsedCol[i];
+        return top;
+    }
+
+    /**
+     * Collapses a specified column by moving non-removed tiles to the bottom and removed tiles to the top.
+     * This is a stable in-place partition of the contiguous column slice.
+     *
+     * @param col the index of the column to collapse
+     */
+    private void collapseColumn(int col) {
+        int base = col * gameRows;
+        int write = base + gameRows - 1;
+        for (int read = write; read >= base; read--) {
+            int cell = cells.get(read);
+            if (cell != REMOVED) cells.set(write--, cell);
         }
+        cells.clear(base, write + 1);
     }
 
     /**
      * When a column is empty this method shifts all right columns to the left
-     * and fills in empty columns afterward.
+     * and fills in empty columns afterward. Columns are moved as whole slices, 64 bits at a time.
+     *
+     * @return index of the leftmost column that was changed by the shift, -1 if nothing was shifted
      */
-    private void shiftColumnsLeft() {
-        // improve performance by cancelling method when all bottom tiles are un-removed
-        boolean cancel = true;
-        for (int i = 0; i < gameCols - 1; i++) {
-            if (tiles[gameRows - 1][i].isRemoved()) {
-                cancel = false;
-                break;
+    private int shiftColumnsLeft() {
+        int target = 0;
+        int firstShiftedCol = -1;
+        for (int col = 0; col < gameCols; col++) {
+            // a collapsed column is empty exactly when its bottom tile is removed
+            if (cells.get(col * gameRows + gameRows - 1) == REMOVED) continue;
+            if (target != col) {
+                if (firstShiftedCol < 0) firstShiftedCol = target;
+                cells.copy(col * gameRows, target * gameRows, gameRows);
             }
+            target++;
         }
-        if (cancel) {
-            return;
-        }
-
-        for (int redo = 0; redo < gameCols; redo++) {
-            // do the complete process multiple times as there can be multiple columns removed at the same time (not ideally solved)
-            cols:
-            for (int col = 0; col < gameCols; col++) {
-                // continue to next col if 1 unremoved tile is found in current col
-                for (int row = 0; row < gameRows; row++) {
-                    if (!tiles[row][col].isRemoved()) continue cols;
-                }
-                // here the current col must be empty, so starting from empty col: move all tiles one to left
-                for (int col2 = col; col2 < gameCols - 1; col2++) {
-                    for (int row2 = 0; row2 < gameRows; row2++) {
-                        tiles[row2][col2] = tiles[row2][col2 + 1];
-                    }
-
-                }
-                // set last col fixed to removed tiles
-                for (int i = 0; i < gameRows; i++) {
-                    tiles[i][gameCols - 1] = new Tile(Color.white, true);
-                }
-            }
+        if (firstShiftedCol >= 0) {
+            cells.clear(target * gameRows, cells.length());
         }
+        return firstShiftedCol;
     }
 
     /**
@@ -216,49 +354,81 @@ public class SameGameModel implements GameModel, Serializable {
      */
     @Override
     public void processGameInteraction(int clickedRow, int clickedCol) {
+        int clicked = clickedCol * gameRows + clickedRow;
         // check if clicked tile is already removed
-        if (tiles[clickedRow][clickedCol].isRemoved()) {
+        int clickedColor = cells.get(clicked);
+        if (clickedColor == REMOVED) {
             SoundManager.get().playSound("click_empty");
             return;
         }
 
         // return here already when the clicked tile has no same colored neighbours
-        Color clickedColor = tiles[clickedRow][clickedCol].getColor();
-        int neighbours = 0;
-        if (clickedRow - 1 >= 0 && clickedColor == tiles[clickedRow - 1][clickedCol].getColor())
-            neighbours++; // Check top neighbour
-        if (clickedRow + 1 < gameRows && clickedColor == tiles[clickedRow + 1][clickedCol].getColor())
-            neighbours++; // Check bottom neighbour
-        if (clickedCol - 1 >= 0 && clickedColor == tiles[clickedRow][clickedCol - 1].getColor())
-            neighbours++; // Check left neighbour
-        if (clickedCol + 1 < gameCols && clickedColor == tiles[clickedRow][clickedCol + 1].getColor())
-            neighbours++; // Check right neighbour
-        if (neighbours == 0) return;
-
-        // find group of tiles based on click
-        floodSearchTileGroup(clickedRow, clickedCol, tiles[clickedRow][clickedCol].getColor());
-
-        // collapse columns from set if necessary
-        for (Integer col : currentColumnsToCollapse) {
-            collapseColumn(col);
+        if (!((clickedRow > 0 && cells.get(clicked - 1) == clickedColor) // top neighbour
+                || (clickedRow < gameRows - 1 && cells.get(clicked + 1) == clickedColor) // bottom neighbour
+                || (clickedCol > 0 && cells.get(clicked - gameRows) == clickedColor) // left neighbour
+                || (clickedCol < gameCols - 1 && cells.get(clicked + gameRows) == clickedColor))) { // right neighbour
+            return;
+        }
+
+        // find group of tiles based on click, remove it and remember its columns
+        beginVisit();
+        int groupSize = floodFill(clicked, true);
+        for (int i = 0; i < groupSize; i++) {
+            cells.set(group[i], REMOVED);
+            changedCols[group[i] / gameRows] = true;
+        }
+        SoundManager.get().playSound("click_tile");
+
+        // collapse touched columns
+        for (int col = 0; col < gameCols; col++) {
+            if (changedCols[col]) collapseColumn(col);
         }
 
         // update the points based on size of eliminated group
-        calculatePointsForTileGroup(currentTileGroupCount);
-        currentTileGroupCount = 0; // reset counter for how many tiles have been found by the flood search
+        calculatePointsForTileGroup(groupSize);
 
         // shift left when a column is empty
-        shiftColumnsLeft();
+        int firstShiftedCol = shiftColumnsLeft();
+        if (firstShiftedCol >= 0) {
+            Arrays.fill(changedCols, firstShiftedCol, gameCols, true);
+        }
+
+        // update the same colored pair counters for all columns changed by this move
+        PackedCells[] changedColumns = new PackedCells[gameCols];
+        for (int col = 0; col < gameCols; col++) {
+            if (changedCols[col]) {
+                updateVerticalPairs(col);
+                updateHorizontalPairs(col);
+                if (col > 0 && !changedCols[col - 1]) updateHorizontalPairs(col - 1);
+                updateColorHashes(col);
+                changedColumns[col] = column(col);
+                if (tiles != null) staleTileCols[col] = true;
+            }
+        }
+        // publish the next version, sharing all columns this move did not touch
+        board = board.withColumns(changedCols, changedColumns);
+        Arrays.fill(changedCols, false);
 
-        if (checkGameOver()) {
+        if (sameColorPairs == 0) {
             gameOver = true;
             nextBestMove[0] = -1;
             nextBestMove[1] = -1;
+            nextBestMoveProven = false;
         } else {
-            nextBestMove = findLargestGroupPosition();
+            nextBestMove = suggestNextBestMove();
         }
     }
 
+    /**
+     * Copies one column of the grid.
+     *
+     * @param col index of the column
+     * @return new packed array with the color indices of the column
+     */
+    private PackedCells column(int col) {
+        return cells.copyOfRange(col * gameRows, (col + 1) * gameRows);
+    }
+
     /**
      * Calculates the points earned for removing a group of tiles based on the size of the group.
      * Points are calculated using the given formula (2 ^ groupSize - 2).
@@ -266,73 +436,211 @@ public class SameGameModel implements GameModel, Serializable {
      * @param currentTileGroupCount size of the tile group that got eliminated
      */
     private void calculatePointsForTileGroup(int currentTileGroupCount) {
-        points += (long) (Math.pow(2, currentTileGroupCount) - 2);
+        points += pointsForTileGroup(currentTileGroupCount);
     }
 
     /**
-     * Checks if the game is over by examining whether there are any remaining moves possible.
+     * Returns the points a group of the given size is worth, using the formula (2 ^ groupSize - 2).
+     * Shared with the search algorithms working on {@link CompactBoard}s, so they score exactly like the game.
      *
-     * @return true if the game is over, false otherwise
+     * @param groupSize size of the tile group
+     * @return points for eliminating the group
      */
-    @Override
-    public boolean checkGameOver() {
+    public static long pointsForTileGroup(int groupSize) {
+        return CompactBoard.pointsForGroup(groupSize);
+    }
+
+    /**
+     * Recounts the same colored pairs inside a column and updates the pair counters.
+     *
+     * @param col index of the column
+     */
+    private void updateVerticalPairs(int col) {
+        int[] pairs = verticalPairs[col];
+        for (int c = 0; c < difficulty; c++) {
+            sameColorPairsByColor[c] -= pairs[c];
+            sameColorPairs -= pairs[c];
+            pairs[c] = 0;
+        }
+        int base = col * gameRows;
+        for (int row = 0; row < gameRows - 1; row++) {
+            int cell = cells.get(base + row);
+            if (cell != REMOVED && cell == cells.get(base + row + 1)) pairs[cell - 1]++;
+        }
+        for (int c = 0; c < difficulty; c++) {
+            sameColorPairsByColor[c] += pairs[c];
+            sameColorPairs += pairs[c];
+        }
+    }
+
+    /**
+     * Recounts the same colored pairs between a column and its right neighbor column and updates the pair counters.
+     *
+     * @param col index of the left column
+     */
+    private void updateHorizontalPairs(int col) {
+        int[] pairs = horizontalPairs[col];
+        for (int c = 0; c < difficulty; c++) {
+            sameColorPairsByColor[c] -= pairs[c];
+            sameColorPairs -= pairs[c];
+            pairs[c] = 0;
+        }
+        if (col == gameCols - 1) return;
+        int base = col * gameRows;
         for (int row = 0; row < gameRows; row++) {
-            for (int col = 0; col < gameCols; col++) {
-                // Only check unremoved tiles for neighbors
-                if (!tiles[row][col].isRemoved()) {
-                    if (hasNeighborWithSameColor(row, col)) return false; // Game is not over
-                }
-            }
+            int cell = cells.get(base + row);
+            if (cell != REMOVED && cell == cells.get(base + gameRows + row)) pairs[cell - 1]++;
+        }
+        for (int c = 0; c < difficulty; c++) {
+            sameColorPairsByColor[c] += pairs[c];
+            sameColorPairs += pairs[c];
         }
-        // No more moves are possible -> Game over
-        return true;
     }
 
     /**
-     * Checks if a tile has any neighboring tiles of the same color.
+     * Rehashes the cells of a column and updates the color hashes and the tile counters.
      *
-     * @param row row index of the tile
-     * @param col col index of the tile
-     * @return true if the tile has neighboring tiles of the same color, false otherwise
+     * @param col index of the column
      */
-    private boolean hasNeighborWithSameColor(int row, int col) {
-        Color color = tiles[row][col].getColor();
+    private void updateColorHashes(int col) {
+        long[] hashes = columnColorHashes[col];
+        long[] hashesLow = columnColorHashesLow[col];
+        int[] tiles = columnColorTiles[col];
+        for (int c = 0; c < difficulty; c++) {
+            colorHashes[c] ^= hashes[c];
+            colorHashesLow[c] ^= hashesLow[c];
+            colorTiles[c] -= tiles[c];
+            remainingTiles -= tiles[c];
+            hashes[c] = 0;
+            hashesLow[c] = 0;
+            tiles[c] = 0;
+        }
+        int base = col * gameRows;
+        for (int index = base; index < base + gameRows; index++) {
+            int cell = cells.get(index);
+            if (cell == REMOVED) continue;
+            hashes[cell - 1] ^= CompactBoard.colorKey(index);
+            hashesLow[cell - 1] ^= CompactBoard.colorKeyLow(index);
+            tiles[cell - 1]++;
+        }
+        for (int c = 0; c < difficulty; c++) {
+            colorHashes[c] ^= hashes[c];
+            colorHashesLow[c] ^= hashesLow[c];
+            colorTiles[c] += tiles[c];
+            remainingTiles += tiles[c];
+        }
+    }
 
-        // Check neighbor tiles: up, down, left, right
-        if ((row > 0 && !tiles[row - 1][col].isRemoved() && tiles[row - 1][col].getColor() == color) ||
-                (row < gameRows - 1 && !tiles[row + 1][col].isRemoved() && tiles[row + 1][col].getColor() == color) ||
-                (col > 0 && !tiles[row][col - 1].isRemoved() && tiles[row][col - 1].getColor() == color) ||
-                (col < gameCols - 1 && !tiles[row][col + 1].isRemoved() && tiles[row][col + 1].getColor() == color)) {
-            return true; // Found neighbor tile of the same color
+    /**
+     * Creates the key of the current position for the {@link SuggestionCache} from the maintained color hashes.
+     * It equals {@link SuggestionCache.Key#of(CompactBoard)} of the position, but only scans the bottom tiles
+     * of the first columns until every remaining color was seen.
+     *
+     * @return key of the current position
+     */
+    private SuggestionCache.Key suggestionKey() {
+        int presentColors = 0;
+        for (int c = 0; c < difficulty; c++) {
+            if (colorTiles[c] > 0) presentColors++;
+        }
+        long hash = 0;
+        long hashLow = 0;
+        int seenColors = 0; // one bit per color
+        int seen = 0;
+        for (int col = 0; col < gameCols && seen < presentColors; col++) {
+            // columns are collapsed, so the scan of a column ends at its first removed cell from the bottom
+            for (int index = col * gameRows + gameRows - 1; index >= col * gameRows && seen < presentColors; index--) {
+                int cell = cells.get(index);
+                if (cell == REMOVED) break;
+                if ((seenColors & 1 << cell) != 0) continue;
+                seenColors |= 1 << cell;
+                seen++;
+                hash = CompactBoard.addCanonicalColor(hash, colorHashes[cell - 1]);
+                hashLow = CompactBoard.addCanonicalColor(hashLow, colorHashesLow[cell - 1]);
+            }
         }
-        return false; // No neighbor tile of the same color found
+        return SuggestionCache.Key.of(gameRows, gameCols, CompactBoard.finishCanonical(hash), CompactBoard.finishCanonical(hashLow));
     }
 
-    private final int[] ROW_OFFSETS = {-1, 1, 0, 0};
-    private final int[] COL_OFFSETS = {0, 0, -1, 1};
+    /**
+     * Retrieves the number of adjacent pairs of remaining tiles with the same color.
+     * The game is over exactly when this is 0.
+     *
+     * @return number of same colored pairs
+     */
+    public int getSameColorPairs() {
+        return sameColorPairs;
+    }
+
+    /**
+     * Retrieves the number of adjacent pairs of remaining tiles for one color.
+     * A color without pairs cannot be removed anymore, so search algorithms can skip it.
+     *
+     * @param colorIndex index of the color, starting at 0
+     * @return number of same colored pairs of this color, 0 for colors beyond the difficulty level
+     */
+    public int getSameColorPairs(int colorIndex) {
+        return colorIndex < difficulty ? sameColorPairsByColor[colorIndex] : 0;
+    }
+
+    /**
+     * Checks if the game is over by examining whether there are any remaining moves possible.
+     * This is a full scan of the grid, while the model itself uses the pair counters of {@link #getSameColorPairs()}.
+     *
+     * @return true if the game is over, false otherwise
+     */
+    @Override
+    public boolean checkGameOver() {
+        return !NeighborScan.hasAdjacentPair(cells, gameRows, gameCols);
+    }
+
+    /**
+     * Returns the next best move of the current position. In the endgame this is the proven optimal move of the
+     * {@link EndgameSolver}, if one is set and its search completes within the hint budget.
+     * Otherwise the move is taken from the shared {@link SuggestionCache}, or found with
+     * {@link #findLargestGroupPosition()} and cached if the position is new.
+     * The key of the cache comes from the maintained color hashes, and a {@link CompactBoard} of the position is only
+     * created for the solver once few enough tiles remain, so a hint does not cost a full copy of the grid.
+     *
+     * @return the starting position of the suggested group as an array with size 2: [row, col]
+     */
+    private int[] suggestNextBestMove() {
+        int[] move = null;
+        if (endgameSolver != null && remainingTiles <= endgameSolver.getMaxTiles()) {
+            move = endgameSolver.suggest(board.toCompactBoard());
+        }
+        nextBestMoveProven = move != null;
+        if (move != null) return move;
+
+        SuggestionCache cache = SuggestionCache.get();
+        SuggestionCache.Key key = suggestionKey();
+        move = cache.lookup(key);
+        if (move == null) {
+            move = findLargestGroupPosition();
+            cache.put(key, move);
+        }
+        return move;
+    }
 
     /**
      * Finds the position of the largest tile group with the same color
      * in the current state of the game.
-     * Uses depth-first search (DFS) algorithm.
+     * The grid is scanned row by row, so the first largest group found and its first tile in this order are reported.
      *
      * @return the starting position of the largest group as an array with size 2: [row, col]
      */
     private int[] findLargestGroupPosition() {
-        boolean[][] visited = new boolean[gameRows][gameCols]; // Can't reuse visited flag from Tile class here.
-
         int maxGroupSize = 0;
         int[] maxGroupStartPos = {-1, -1};
 
-        for (int i = 0; i < gameRows; i++) {
-            for (int j = 0; j < gameCols; j++) {
-                if (!visited[i][j]) {
-                    int groupSize = dfs(visited, i, j, tiles[i][j].getColor());
-                    if (groupSize > maxGroupSize) {
-                        maxGroupSize = groupSize;
-                        maxGroupStartPos[0] = i;
-                        maxGroupStartPos[1] = j;
-                    }
+        beginVisit();
+        for (int row = 0; row < gameRows; row++) {
+            for (int col = 0; col < gameCols; col++) {
+                int groupSize = floodFill(col * gameRows + row, false);
+                if (groupSize > maxGroupSize) {
+                    maxGroupSize = groupSize;
+                    maxGroupStartPos[0] = row;
+                    maxGroupStartPos[1] = col;
                 }
             }
         }
@@ -341,37 +649,67 @@ public class SameGameModel implements GameModel, Serializable {
     }
 
     /**
-     * Depth-first search (DFS) to figure out amount of connected tiles of the same color
-     * for a specific tile.
+     * Ranks the moves of the current position in one scan of the grid, see {@link MoveCandidates}.
+     * The grid is scanned row by row like {@link #findLargestGroupPosition()}, so the first candidate is the largest group.
      *
-     * @param visited boolean array with visited tiles
-     * @param row     row index of the current tile
-     * @param col     col index of the current tile
-     * @param color   color of the group being searched
-     * @return size of the group of connected tiles
+     * @param candidates reusable buffer, its previous candidates are replaced
+     * @return the given buffer with the best moves
      */
-    private int dfs(boolean[][] visited, int row, int col, Color color) {
-        if (row < 0 || row >= gameRows || col < 0 || col >= gameCols || visited[row][col] || !tiles[row][col].getColor().equals(color) || tiles[row][col].isRemoved()) {
-            return 0;
+    @Override
+    public MoveCandidates rankMoves(MoveCandidates candidates) {
+        candidates.clear();
+        beginVisit();
+        for (int row = 0; row < gameRows; row++) {
+            for (int col = 0; col < gameCols; col++) {
+                int groupSize = floodFill(col * gameRows + row, false);
+                if (groupSize >= 2) candidates.offer(row, col, groupSize);
+            }
         }
-
-        visited[row][col] = true;
-        int size = 1;
-
-        for (int d = 0; d < 4; d++) {
-            int newRow = row + ROW_OFFSETS[d];
-            int newCol = col + COL_OFFSETS[d];
-            size += dfs(visited, newRow, newCol, color);
+        if (candidates.hasLookahead()) {
+            if (lookaheadBoard == null) lookaheadBoard = new CompactBoard(gameRows, gameCols);
+            for (int index = 0; index < cells.length(); index++) {
+                lookaheadBoard.setAt(index, cells.get(index));
+            }
         }
-
-        return size;
+        candidates.finish(lookaheadBoard);
+        return candidates;
     }
 
+    /**
+     * Returns the grid as {@link Tile}s. The tiles are created from the grid of the model for the columns
+     * changed since the last call, changing them has no effect on the game.
+     *
+     * @return 2D array representing the game board
+     */
     @Override
     public Tile[][] getTiles() {
+        if (tiles == null) {
+            tiles = new Tile[gameRows][gameCols];
+            staleTileCols = new boolean[gameCols];
+            Arrays.fill(staleTileCols, true);
+        }
+        for (int col = 0; col < gameCols; col++) {
+            if (!staleTileCols[col]) continue;
+            for (int row = 0; row < gameRows; row++) {
+                int cell = cells.get(col * gameRows + row);
+                tiles[row][col] = cell == REMOVED ? new Tile(Color.white, true) : new Tile(palette[cell - 1]);
+            }
+            staleTileCols[col] = false;
+        }
         return this.tiles;
     }
 
+    /**
+     * Retrieves the current version of the board. Versions share all columns a move did not change,
+     * so a new version only costs the changed columns. Can be called from any thread.
+     *
+     * @return current immutable version of the board
+     */
+    @Override
+    public PersistentBoard getBoard() {
+        return board;
+    }
+
     @Override
     public long getPoints() {
         return this.points;
@@ -387,6 +725,45 @@ public class SameGameModel implements GameModel, Serializable {
         return this.nextBestMove;
     }
 
+    @Override
+    public boolean isNextBestMoveProven() {
+        return nextBestMoveProven;
+    }
+
+    /**
+     * Replaces the solver of the endgame hints and suggests the next best move of the current position again.
+     * There is no solver by default: its search is time-boxed, so with a solver the hints depend on the speed and load
+     * of the machine, while without one they are reproducible.
+     *
+     * @param endgameSolver solver for the endgame, or {@code null} to always suggest the largest group
+     */
+    public void setEndgameSolver(EndgameSolver endgameSolver) {
+        this.endgameSolver = endgameSolver;
+        if (!gameOver) nextBestMove = suggestNextBestMove();
+    }
+
+    public EndgameSolver getEndgameSolver() {
+        return endgameSolver;
+    }
+
+    /**
+     * Retrieves the colors of the game.
+     *
+     * @return copy of the palette, color index {@code i + 1} belongs to element {@code i}
+     */
+    public Color[] getPalette() {
+        return palette.clone();
+    }
+
+    /**
+     * Retrieves the memory of the packed grid, e.g. to compare the bits per cell of different color counts.
+     *
+     * @return size of the cells in bytes
+     */
+    public long getCellBytes() {
+        return cells.getBytes();
+    }
+
     @Override
     public int getGameRows() {
         return gameRows;
@@ -14,6 +14,7 @@ import java.awt.*;
  * @see javax.swing.JComponent
  */
 public class Tile extends JComponent {
+    private static final LineBorder BORDER = new LineBorder(Color.BLACK); // immutable, shared by all tiles
     private Color color;
     private boolean removed;
     private boolean visited;
@@ -26,7 +27,7 @@ public class Tile extends JComponent {
     public Tile(Color color) {
         this.color = color;
         this.removed = false;
-        setBorder(new LineBorder(Color.BLACK));
+        setBorder(BORDER);
     }
 
     /**
@@ -43,18 +44,16 @@ public class Tile extends JComponent {
     }
 
     /**
-     * Paints the tile. The tile is drawn as a filled rectangle with the tile's color.
+     * Paints the tile. The tile is drawn as a filled rectangle with the tile's color,
+     * which covers the whole component, so no background and no copy of the graphics are needed.
+     * The game itself paints its board with the sprites of {@code BoardPanel}.
      *
      * @param g the {@code Graphics} object used for painting
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        // Draw tile as filled rectangle using Graphics2D
-        Graphics2D g2d = (Graphics2D) g.create();
-        g2d.setColor(color);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
-        g2d.dispose();
+        g.setColor(color);
+        g.fillRect(0, 0, getWidth(), getHeight());
     }
 
     /**
@@ -0,0 +1,393 @@
+package me.leon.samegame.race;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.GameSnapshot;
+import me.leon.samegame.model.PersistentBoard;
+
+import java.awt.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@code RaceClient} class is the connection of one player to a {@link RaceServer}.
+ * It keeps a copy of the board of every player of the race as a {@link CompactBoard} and applies the deltas of the
+ * server to them: a delta is replayed with {@link CompactBoard#removeGroup(int, int)}, which follows the same rules
+ * as the model of the server. Checksums of the server are compared with the Zobrist hash of the copy, a copy that
+ * does not match is requested again as a snapshot.
+ * <p>
+ * The own board is updated by the deltas as well, so {@link #move(int, int)} only sends the click and the board
+ * shows what the server accepted. The {@link Listener} is called on the reader thread of the client after every
+ * change, views take a {@link #snapshot(int)} of the boards they show.
+ */
+public class RaceClient implements Closeable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final RaceProtocol.Encoder encoder = new RaceProtocol.Encoder(); // guarded by out
+    private final Listener listener;
+    private final Thread reader;
+    private final int player;
+    private final int rows;
+    private final int cols;
+    private final int difficulty;
+    private final long seed;
+    private final Color[] palette;
+    private final CompactBoard start; // seeded board every player starts on
+    private final Map<Integer, Replica> replicas = new TreeMap<>(); // guarded by this
+    private long bytesReceived; // guarded by this
+    private int mismatches;
+    private long version;
+    private volatile boolean closed;
+
+    /**
+     * The {@code Listener} interface is notified about the changes of the race, on the reader thread of the client.
+     */
+    public interface Listener {
+        /**
+         * Called after the board of a player changed: the player joined, made a move or its board was resent.
+         *
+         * @param player number of the player
+         * @param moves  number of moves of the player applied so far
+         */
+        void boardChanged(int player, int moves);
+
+        /**
+         * Called after a player left the race.
+         *
+         * @param player number of the player
+         */
+        default void playerLeft(int player) {
+        }
+    }
+
+    /**
+     * Constructs a new {@code RaceClient} and joins the race of a server on the loopback address.
+     * Returns after the welcome of the server, the boards of the players arrive afterward.
+     *
+     * @param port     port of the server
+     * @param name     name of the player
+     * @param listener notified about every change of the race
+     * @throws IOException              if the server cannot be reached or is no race server
+     * @throws IllegalArgumentException if the name is longer than 256 bytes in UTF-8
+     */
+    public RaceClient(int port, String name, Listener listener) throws IOException {
+        if (name.getBytes(StandardCharsets.UTF_8).length > RaceProtocol.MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name too long: " + name);
+        }
+        this.listener = listener;
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            socket.setTcpNoDelay(true);
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+            this.in = new DataInputStream(new BufferedInputStream(new FilterInputStream(socket.getInputStream()) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read > 0) countBytes(read);
+                    return read;
+                }
+            }));
+            send(encoder.reset().writeInt(RaceProtocol.MAGIC).writeString(name));
+
+            if (in.readInt() != RaceProtocol.MAGIC) throw new IOException("Not a race server");
+            this.player = RaceProtocol.readVarInt(in);
+            this.rows = RaceProtocol.readVarInt(in);
+            this.cols = RaceProtocol.readVarInt(in);
+            this.difficulty = RaceProtocol.readVarInt(in);
+            this.seed = in.readLong();
+            this.palette = new Color[RaceProtocol.readVarInt(in)];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = new Color(in.readInt(), true);
+            }
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.start = CompactBoard.random(rows, cols, difficulty, seed);
+        this.reader = new Thread(this::read, "SameGame-Race-Client-" + player);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    private synchronized void countBytes(int bytes) {
+        bytesReceived += bytes;
+    }
+
+    private void read() {
+        try {
+            while (true) {
+                byte type = in.readByte();
+                int other = RaceProtocol.readVarInt(in);
+                switch (type) {
+                    case RaceProtocol.JOINED:
+                        joined(other, RaceProtocol.readString(in));
+                        break;
+                    case RaceProtocol.DELTA:
+                        int row = RaceProtocol.readVarInt(in);
+                        delta(other, row, RaceProtocol.readVarInt(in));
+                        break;
+                    case RaceProtocol.CHECKSUM:
+                        int moves = RaceProtocol.readVarInt(in);
+                        long hash = in.readLong();
+                        checksum(other, moves, hash, RaceProtocol.readVarLong(in));
+                        break;
+                    case RaceProtocol.SNAPSHOT:
+                        snapshot(other, RaceProtocol.readVarInt(in), RaceProtocol.readVarLong(in));
+                        break;
+                    case RaceProtocol.LEFT:
+                        left(other);
+                        break;
+                    default:
+                        throw new IOException("Unknown message type " + type);
+                }
+            }
+        } catch (EOFException e) {
+            // the server closed the race
+        } catch (IOException e) {
+            if (!closed) System.err.println("Race connection lost: " + e);
+        } finally {
+            close();
+        }
+    }
+
+    private void joined(int other, String name) {
+        int moves;
+        synchronized (this) {
+            Replica replica = new Replica(name, start.copy());
+            replicas.put(other, replica);
+            moves = replica.moves;
+            notifyAll();
+        }
+        listener.boardChanged(other, moves);
+    }
+
+    private void delta(int other, int row, int col) throws IOException {
+        int moves;
+        synchronized (this) {
+            Replica replica = replicas.get(other);
+            if (replica == null || replica.stale) return; // a snapshot is on its way
+            int size = row < rows && col < cols ? replica.board.removeGroup(row, col) : 0;
+            if (size == 0) { // the copy diverged, the move is not valid on it
+                mismatches++;
+                requestSnapshot(other, replica);
+                return;
+            }
+            replica.points += CompactBoard.pointsForGroup(size);
+            moves = ++replica.moves;
+            notifyAll();
+        }
+        listener.boardChanged(other, moves);
+    }
+
+    private synchronized void checksum(int other, int moves, long hash, long points) throws IOException {
+        Replica replica = replicas.get(other);
+        if (replica == null || replica.stale) return;
+        if (replica.moves != moves || replica.board.hash64() != hash || replica.points != points) {
+            mismatches++;
+            requestSnapshot(other, replica);
+        }
+    }
+
+    private void snapshot(int other, int moves, long points) throws IOException {
+        CompactBoard board = new CompactBoard(rows, cols);
+        for (int index = 0; index < rows * cols; index++) {
+            board.setAt(index, in.readUnsignedByte());
+        }
+        synchronized (this) {
+            Replica replica = replicas.get(other);
+            if (replica == null) return;
+            replica.board = board;
+            replica.moves = moves;
+            replica.points = points;
+            replica.stale = false;
+            notifyAll();
+        }
+        listener.boardChanged(other, moves);
+    }
+
+    private void left(int other) {
+        synchronized (this) {
+            replicas.remove(other);
+            notifyAll();
+        }
+        listener.playerLeft(other);
+    }
+
+    /**
+     * Asks the server for the board of a player and ignores its deltas until the board arrives.
+     */
+    private void requestSnapshot(int other, Replica replica) throws IOException {
+        replica.stale = true;
+        send(encoder.begin(RaceProtocol.RESYNC).writeVarLong(other));
+    }
+
+    /**
+     * Clicks a tile of the own board. The board changes when the delta of the server arrives.
+     *
+     * @param row row of the clicked tile
+     * @param col col of the clicked tile
+     * @throws IOException if the connection is lost
+     */
+    public void move(int row, int col) throws IOException {
+        if (row < 0 || col < 0) return;
+        send(encoder.begin(RaceProtocol.MOVE).writeVarLong(row).writeVarLong(col));
+    }
+
+    private void send(RaceProtocol.Encoder message) throws IOException {
+        synchronized (out) {
+            out.write(message.toByteArray());
+            out.flush();
+        }
+    }
+
+    /**
+     * Waits until the given number of moves of a player is applied.
+     *
+     * @param other         number of the player
+     * @param moves         number of moves to wait for
+     * @param timeoutMillis maximum time to wait in milliseconds
+     * @return {@code true} if the moves are applied, {@code false} if the time ran out or the connection was lost
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean awaitMoves(int other, int moves, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        while (getMoves(other) < moves || replicas.get(other).stale) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0 || closed) return false;
+            wait(Math.max(1, left / 1_000_000));
+        }
+        return true;
+    }
+
+    /**
+     * Creates a snapshot of the board of a player for a view.
+     *
+     * @param other number of the player
+     * @return snapshot with the board and the points of the player, or {@code null} if the player is unknown
+     */
+    public synchronized GameSnapshot snapshot(int other) {
+        Replica replica = replicas.get(other);
+        if (replica == null) return null;
+        return GameSnapshot.of(PersistentBoard.of(replica.board, palette), replica.points, replica.board.isGameOver(), ++version);
+    }
+
+    /**
+     * Retrieves the players of the race.
+     *
+     * @return numbers of all players in ascending order, including the own one once its board arrived
+     */
+    public synchronized int[] getPlayers() {
+        return replicas.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public synchronized String getName(int other) {
+        Replica replica = replicas.get(other);
+        return replica == null ? null : replica.name;
+    }
+
+    /**
+     * Retrieves the copy of the board of a player.
+     *
+     * @param other number of the player
+     * @return copy of the board, or {@code null} if the player is unknown
+     */
+    public synchronized CompactBoard getBoard(int other) {
+        Replica replica = replicas.get(other);
+        return replica == null ? null : replica.board.copy();
+    }
+
+    /**
+     * Retrieves the points of a player.
+     *
+     * @param other number of the player
+     * @return points of the player, 0 if the player is unknown
+     */
+    public synchronized long getPoints(int other) {
+        Replica replica = replicas.get(other);
+        return replica == null ? 0 : replica.points;
+    }
+
+    /**
+     * Retrieves the number of applied moves of a player.
+     *
+     * @param other number of the player
+     * @return number of moves, -1 if the player is unknown
+     */
+    public synchronized int getMoves(int other) {
+        Replica replica = replicas.get(other);
+        return replica == null ? -1 : replica.moves;
+    }
+
+    /**
+     * Retrieves the number of copies that did not match a checksum or delta and were requested again.
+     *
+     * @return number of mismatches
+     */
+    public synchronized int getMismatches() {
+        return mismatches;
+    }
+
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Leaves the race.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to clean up
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * The copy of the board of one player.
+     */
+    private static final class Replica {
+        private final String name;
+        private CompactBoard board;
+        private long points;
+        private int moves;
+        private boolean stale; // a snapshot was requested, deltas are ignored until it arrives
+
+        private Replica(String name, CompactBoard board) {
+            this.name = name;
+            this.board = board;
+        }
+    }
+}
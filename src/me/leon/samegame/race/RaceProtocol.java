@@ -0,0 +1,172 @@
+package me.leon.samegame.race;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The {@code RaceProtocol} class defines the messages between {@link RaceServer} and {@link RaceClient}.
+ * Every message is a type byte followed by its fields. Numbers are written as unsigned variable length integers
+ * (7 bits per byte, low bits first), so a move of a board with less than 128 rows and cols costs 4 bytes.
+ * Names are written as their length followed by their UTF-8 bytes.
+ * <p>
+ * Client to server:
+ * <ul>
+ *  <li>handshake: {@link #MAGIC}, name</li>
+ *  <li>{@link #MOVE}: row, col</li>
+ *  <li>{@link #RESYNC}: player whose board does not match its checksum</li>
+ * </ul>
+ * Server to client:
+ * <ul>
+ *  <li>welcome: {@link #MAGIC}, own player, rows, cols, difficulty, seed (8 bytes), colors, RGB per color (4 bytes each)</li>
+ *  <li>{@link #JOINED}: player, name - the player starts on the seeded board</li>
+ *  <li>{@link #DELTA}: player, row, col - the next move of the player, only sent for moves that removed a group</li>
+ *  <li>{@link #CHECKSUM}: player, moves, {@link me.leon.samegame.grid.Grid#hash64()} of the board (8 bytes), points</li>
+ *  <li>{@link #SNAPSHOT}: player, moves, points, one byte per cell in column-major order</li>
+ *  <li>{@link #LEFT}: player</li>
+ * </ul>
+ */
+final class RaceProtocol {
+    static final int MAGIC = 0x53475243; // "SGRC"
+    static final byte MOVE = 1;
+    static final byte RESYNC = 2;
+    static final byte JOINED = 3;
+    static final byte DELTA = 4;
+    static final byte CHECKSUM = 5;
+    static final byte SNAPSHOT = 6;
+    static final byte LEFT = 7;
+    static final int MAX_NAME_BYTES = 256;
+
+    private RaceProtocol() {
+    }
+
+    /**
+     * Reads an unsigned variable length integer.
+     *
+     * @param in stream to read from
+     * @return value
+     * @throws IOException if the stream ends or the value is longer than 64 bits
+     */
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) return value;
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    /**
+     * Reads an unsigned variable length integer that fits into an {@code int}.
+     *
+     * @param in stream to read from
+     * @return value
+     * @throws IOException if the stream ends or the value is out of range
+     */
+    static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) throw new IOException("Value out of range: " + value);
+        return (int) value;
+    }
+
+    /**
+     * Reads a name.
+     *
+     * @param in stream to read from
+     * @return name
+     * @throws IOException if the stream ends or the name is too long
+     */
+    static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length > MAX_NAME_BYTES) throw new IOException("Name too long: " + length + " bytes");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The {@code Encoder} class writes messages into a reusable buffer. A message is encoded once and the same
+     * array is then queued for every receiver.
+     */
+    static final class Encoder {
+        private byte[] buffer = new byte[64];
+        private int length;
+
+        /**
+         * Starts a new message without a type, i.e. a handshake or welcome.
+         *
+         * @return this encoder
+         */
+        Encoder reset() {
+            length = 0;
+            return this;
+        }
+
+        /**
+         * Starts a new message.
+         *
+         * @param type type of the message
+         * @return this encoder
+         */
+        Encoder begin(byte type) {
+            return reset().writeByte(type);
+        }
+
+        Encoder writeByte(int value) {
+            ensure(1);
+            buffer[length++] = (byte) value;
+            return this;
+        }
+
+        Encoder writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+            return this;
+        }
+
+        Encoder writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+
+        Encoder writeLong(long value) {
+            return writeInt((int) (value >>> 32)).writeInt((int) value);
+        }
+
+        Encoder writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return writeVarLong(bytes.length).writeBytes(bytes);
+        }
+
+        Encoder writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+            return this;
+        }
+
+        /**
+         * Finishes the message.
+         *
+         * @return copy of the encoded message
+         */
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        private void ensure(int bytes) {
+            if (length + bytes > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(length + bytes, 2 * buffer.length));
+        }
+    }
+}
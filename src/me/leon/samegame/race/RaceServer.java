@@ -0,0 +1,389 @@
+package me.leon.samegame.race;
+
+import me.leon.samegame.model.PersistentBoard;
+import me.leon.samegame.model.SameGameModel;
+
+import java.awt.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code RaceServer} class hosts a race: every player plays the same seeded board, and every player sees
+ * the boards of all others live. The server keeps the authoritative {@link SameGameModel} of every player
+ * and applies the moves the {@link RaceClient}s send, so a client cannot report a board or score of its own.
+ * <p>
+ * Instead of boards, the server broadcasts one {@link RaceProtocol#DELTA} per move that removed a group: the player
+ * and the clicked cell, usually 4 bytes. The game is deterministic, so every client replays the move on its copy of
+ * the board. Every {@link #setChecksumInterval(int) few moves} and at the end of a game the server also broadcasts the
+ * Zobrist hash and the points of the board. A client whose copy does not match asks for a {@link RaceProtocol#SNAPSHOT}
+ * of the whole board, which is also how players joining late get the boards of the others.
+ * <p>
+ * Moves of all players are applied and encoded under the lock of the server, so all clients receive them in the
+ * same order. Every message is encoded once and the same array is queued for every client. A writer thread
+ * per client drains its queue and flushes once per batch, so a slow client neither blocks the moves of the others
+ * nor costs a system call per message. A client that falls {@value #MAX_BACKLOG} messages behind is disconnected.
+ * <p>
+ * The server only listens on the loopback address.
+ */
+public class RaceServer implements Closeable {
+    private static final int DEFAULT_CHECKSUM_INTERVAL = 16;
+    private static final int MAX_BACKLOG = 4096;
+    private final int rows;
+    private final int cols;
+    private final int difficulty;
+    private final long seed;
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private final Map<Integer, Session> sessions = new LinkedHashMap<>(); // guarded by this
+    private final RaceProtocol.Encoder encoder = new RaceProtocol.Encoder(); // guarded by this
+    private int nextPlayer;
+    private int checksumInterval = DEFAULT_CHECKSUM_INTERVAL;
+    private long moves;
+    private final AtomicLong bytesSent = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new {@code RaceServer} and starts accepting players.
+     *
+     * @param rows       number of rows of the board
+     * @param cols       number of cols of the board
+     * @param difficulty number of colors
+     * @param seed       seed of the board all players race on
+     * @param port       port on the loopback address, 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public RaceServer(int rows, int cols, int difficulty, long seed, int port) throws IOException {
+        this.rows = rows;
+        this.cols = cols;
+        this.difficulty = difficulty;
+        this.seed = seed;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::accept, "SameGame-Race-Accept");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread reader = new Thread(() -> serve(socket), "SameGame-Race-Reader");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!closed) System.err.println("Race server stopped accepting players: " + e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the handshake and the messages of one client until it disconnects.
+     *
+     * @param socket connection of the client
+     */
+    private void serve(Socket socket) {
+        Session session = null;
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            if (in.readInt() != RaceProtocol.MAGIC) throw new IOException("Not a race client");
+            session = join(socket, RaceProtocol.readString(in));
+            while (true) {
+                byte type = in.readByte();
+                if (type == RaceProtocol.MOVE) {
+                    int row = RaceProtocol.readVarInt(in);
+                    int col = RaceProtocol.readVarInt(in);
+                    move(session, row, col);
+                } else if (type == RaceProtocol.RESYNC) {
+                    resync(session, RaceProtocol.readVarInt(in));
+                } else {
+                    throw new IOException("Unknown message type " + type);
+                }
+            }
+        } catch (EOFException e) {
+            // the client left
+        } catch (IOException e) {
+            // a closed socket is a player that left or was dropped by its writer
+            if (!closed && !socket.isClosed()) System.err.println("Race player disconnected: " + e);
+        } finally {
+            if (session != null) {
+                leave(session);
+            } else {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /**
+     * Registers a new player: sends the welcome and the boards of all other players, then announces the player.
+     *
+     * @param socket connection of the client
+     * @param name   name of the player
+     * @return session of the player
+     * @throws IOException if the server is closed
+     */
+    private synchronized Session join(Socket socket, String name) throws IOException {
+        if (closed) throw new IOException("Race server is closed");
+        SameGameModel model = new SameGameModel(rows, cols, difficulty, seed);
+        Session session = new Session(nextPlayer++, name, socket, model);
+
+        Color[] palette = model.getBoard().getPalette();
+        encoder.reset().writeInt(RaceProtocol.MAGIC).writeVarLong(session.player).writeVarLong(rows).writeVarLong(cols)
+                .writeVarLong(difficulty).writeLong(seed).writeVarLong(palette.length);
+        for (Color color : palette) {
+            encoder.writeInt(color.getRGB());
+        }
+        session.send(encoder.toByteArray());
+        for (Session other : sessions.values()) {
+            session.send(joined(other));
+            if (other.moves > 0) session.send(snapshot(other));
+        }
+        sessions.put(session.player, session);
+        broadcast(joined(session));
+        return session;
+    }
+
+    /**
+     * Applies a move to the model of a player and broadcasts it if it removed a group.
+     *
+     * @param session session of the player
+     * @param row     row of the clicked tile
+     * @param col     col of the clicked tile
+     */
+    private synchronized void move(Session session, int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) return;
+        SameGameModel model = session.model;
+        PersistentBoard before = model.getBoard();
+        model.processGameInteraction(row, col);
+        if (model.getBoard() == before) return; // removed or single tile, nothing changed
+
+        session.moves++;
+        moves++;
+        broadcast(encoder.begin(RaceProtocol.DELTA).writeVarLong(session.player).writeVarLong(row).writeVarLong(col).toByteArray());
+        if (session.moves % checksumInterval == 0 || model.getGameOver()) {
+            broadcast(encoder.begin(RaceProtocol.CHECKSUM).writeVarLong(session.player).writeVarLong(session.moves)
+                    .writeLong(model.getBoard().toCompactBoard().hash64()).writeVarLong(model.getPoints()).toByteArray());
+        }
+    }
+
+    /**
+     * Sends the board of a player to a client whose copy does not match the checksum.
+     *
+     * @param session session of the client
+     * @param player  player whose board is requested
+     */
+    private synchronized void resync(Session session, int player) {
+        Session other = sessions.get(player);
+        if (other != null) session.send(snapshot(other));
+    }
+
+    private synchronized void leave(Session session) {
+        session.close();
+        if (sessions.remove(session.player) != null) {
+            broadcast(encoder.begin(RaceProtocol.LEFT).writeVarLong(session.player).toByteArray());
+        }
+    }
+
+    private byte[] joined(Session session) {
+        return encoder.begin(RaceProtocol.JOINED).writeVarLong(session.player).writeString(session.name).toByteArray();
+    }
+
+    private byte[] snapshot(Session session) {
+        PersistentBoard board = session.model.getBoard();
+        encoder.begin(RaceProtocol.SNAPSHOT).writeVarLong(session.player).writeVarLong(session.moves)
+                .writeVarLong(session.model.getPoints());
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                encoder.writeByte(board.get(row, col));
+            }
+        }
+        return encoder.toByteArray();
+    }
+
+    private void broadcast(byte[] message) {
+        for (Session session : sessions.values()) {
+            session.send(message);
+        }
+    }
+
+    /**
+     * Sets how often the checksum of a board is broadcast.
+     *
+     * @param moves number of moves of a player between two checksums of its board
+     * @throws IllegalArgumentException if {@code moves} is less than 1
+     */
+    public synchronized void setChecksumInterval(int moves) {
+        if (moves < 1) throw new IllegalArgumentException("Checksum interval must be at least 1 move: " + moves);
+        this.checksumInterval = moves;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Retrieves the number of connected players.
+     *
+     * @return number of players
+     */
+    public synchronized int getPlayerCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Retrieves the authoritative board of a player.
+     *
+     * @param player number of the player
+     * @return current version of the board of the player
+     * @throws IllegalArgumentException if the player is not connected
+     */
+    public synchronized PersistentBoard getBoard(int player) {
+        return session(player).model.getBoard();
+    }
+
+    /**
+     * Retrieves the authoritative score of a player.
+     *
+     * @param player number of the player
+     * @return points of the player
+     * @throws IllegalArgumentException if the player is not connected
+     */
+    public synchronized long getPoints(int player) {
+        return session(player).model.getPoints();
+    }
+
+    /**
+     * Retrieves the number of moves a player made that removed a group.
+     *
+     * @param player number of the player
+     * @return number of moves of the player
+     * @throws IllegalArgumentException if the player is not connected
+     */
+    public synchronized int getMoves(int player) {
+        return session(player).moves;
+    }
+
+    /**
+     * Retrieves the number of moves of all players that were broadcast.
+     *
+     * @return number of moves
+     */
+    public synchronized long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Retrieves the number of bytes written to all clients, including welcomes, snapshots and checksums.
+     *
+     * @return number of bytes sent
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private Session session(int player) {
+        Session session = sessions.get(player);
+        if (session == null) throw new IllegalArgumentException("No player " + player);
+        return session;
+    }
+
+    /**
+     * Stops accepting players and disconnects all clients.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(serverSocket);
+        synchronized (this) {
+            for (Session session : sessions.values()) {
+                session.close();
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // nothing left to clean up
+        }
+    }
+
+    /**
+     * The connection and the authoritative model of one player.
+     */
+    private final class Session {
+        private final int player;
+        private final String name;
+        private final Socket socket;
+        private final SameGameModel model;
+        private final BlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>(MAX_BACKLOG);
+        private final Thread writer;
+        private int moves; // guarded by the server
+
+        private Session(int player, String name, Socket socket, SameGameModel model) {
+            this.player = player;
+            this.name = name;
+            this.socket = socket;
+            this.model = model;
+            this.writer = new Thread(this::write, "SameGame-Race-Writer-" + player);
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+
+        /**
+         * Queues a message for the client, disconnects the client if its queue is full.
+         *
+         * @param message encoded message, must not be modified afterward
+         */
+        private void send(byte[] message) {
+            if (!outbox.offer(message)) {
+                System.err.println("Race player " + name + " is too slow and gets disconnected");
+                close();
+            }
+        }
+
+        private void write() {
+            List<byte[]> batch = new ArrayList<>();
+            try (OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+                while (true) {
+                    batch.add(outbox.take());
+                    outbox.drainTo(batch);
+                    long bytes = 0;
+                    for (byte[] message : batch) {
+                        out.write(message);
+                        bytes += message.length;
+                    }
+                    out.flush();
+                    bytesSent.addAndGet(bytes);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } catch (IOException e) {
+                closeQuietly(socket); // the reader notices and removes the player
+            }
+        }
+
+        private void close() {
+            writer.interrupt();
+            closeQuietly(socket);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package me.leon.samegame.review;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.PersistentBoard;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.solver.ExactSolver;
+import me.leon.samegame.solver.Solution;
+import me.leon.samegame.util.SoundManager;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The {@code GameReview} class analyzes every move of a recorded game: the seed and the move list are replayed on a
+ * {@link SameGameModel} to reconstruct all positions before a move, then all positions are analyzed in parallel.
+ * <p>
+ * A position is analyzed by valuing every removable group: its points plus the best score reachable afterward,
+ * found by the {@link ExactSolver} of the analyzing thread. All positions share one time budget: each one gets
+ * an equal slice of the thread time, split among its groups. A search that exceeds its share is aborted and
+ * valued by its greedy playout, so the review of large boards finishes in time, with the affected moves not proven.
+ * The solver tables are kept per thread for the whole review, so positions of the same game share their results.
+ * <p>
+ * Every {@link MoveReview} is handed to the listener as soon as its position is analyzed, on the calling thread,
+ * so a UI can show the review progressively.
+ */
+public class GameReview {
+    private final int threads;
+    private final long budgetMillis;
+
+    /**
+     * Constructs a new {@code GameReview}.
+     *
+     * @param threads      number of threads analyzing positions
+     * @param budgetMillis time budget of a whole review in milliseconds
+     */
+    public GameReview(int threads, long budgetMillis) {
+        this.threads = threads;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * Reviews a game.
+     *
+     * @param rows       number of rows of the game
+     * @param cols       number of cols of the game
+     * @param difficulty number of colors
+     * @param seed       seed of the game
+     * @param moves      moves of the game as {@code [row, col]}, played one after another
+     * @param listener   receives every review as soon as it is ready, in order of completion
+     * @return reviews of all moves in order of the moves, only the completed ones if the calling thread is interrupted
+     * @throws IllegalArgumentException if a move does not remove a group
+     */
+    public List<MoveReview> review(int rows, int cols, int difficulty, long seed, List<int[]> moves,
+                                   Consumer<MoveReview> listener) {
+        List<CompactBoard> positions = replay(rows, cols, difficulty, seed, moves);
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1_000_000;
+        long sliceNanos = positions.isEmpty() ? 0 : budgetMillis * 1_000_000 * threads / positions.size();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Analyzer> analyzers = ThreadLocal.withInitial(() -> new Analyzer(rows, cols));
+        MoveReview[] reviews = new MoveReview[positions.size()];
+        try {
+            CompletionService<MoveReview> completion = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < positions.size(); i++) {
+                int number = i;
+                int[] move = moves.get(i);
+                completion.submit(() -> analyzers.get().analyze(number, positions.get(number), move, deadline, sliceNanos));
+            }
+            for (int i = 0; i < positions.size(); i++) {
+                MoveReview review = completion.take().get();
+                reviews[review.getMoveNumber()] = review;
+                listener.accept(review);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A position could not be analyzed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        List<MoveReview> result = new ArrayList<>();
+        for (MoveReview review : reviews) {
+            if (review != null) result.add(review);
+        }
+        return result;
+    }
+
+    /**
+     * Replays a game on the model and collects the position before every move.
+     *
+     * @return positions before the moves
+     * @throws IllegalArgumentException if a move does not remove a group
+     */
+    private static List<CompactBoard> replay(int rows, int cols, int difficulty, long seed, List<int[]> moves) {
+        SameGameModel model = new SameGameModel(rows, cols, difficulty, seed);
+        List<CompactBoard> positions = new ArrayList<>();
+        for (int[] move : moves) {
+            PersistentBoard before = model.getBoard();
+            if (move[0] < 0 || move[0] >= rows || move[1] < 0 || move[1] >= cols) {
+                throw new IllegalArgumentException("Move " + (positions.size() + 1) + " at " + move[0] + "," + move[1] + " is outside the board");
+            }
+            model.processGameInteraction(move[0], move[1]);
+            if (model.getBoard() == before) {
+                throw new IllegalArgumentException("Move " + (positions.size() + 1) + " at " + move[0] + "," + move[1] + " removes no group");
+            }
+            positions.add(before.toCompactBoard());
+        }
+        return positions;
+    }
+
+    /**
+     * Adds two non-negative scores, saturating at {@link Long#MAX_VALUE} like the score formula does.
+     */
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * The analysis state of one thread: a solver for the board size and reusable buffers.
+     */
+    private static final class Analyzer {
+        private final int rows;
+        private final ExactSolver solver;
+        private final CompactBoard child;
+        private final int[] representatives;
+        private final int[] sizes;
+
+        private Analyzer(int rows, int cols) {
+            this.rows = rows;
+            this.solver = new ExactSolver(rows, cols);
+            this.child = new CompactBoard(rows, cols);
+            this.representatives = new int[rows * cols / 2 + 1];
+            this.sizes = new int[representatives.length];
+        }
+
+        /**
+         * Values every group of a position and compares the played move with the best one.
+         *
+         * @param number     index of the move
+         * @param position   position before the move, is not modified
+         * @param move       played move as {@code [row, col]}
+         * @param deadline   {@link System#nanoTime()} at the end of the review budget
+         * @param sliceNanos share of the budget of this position
+         * @return review of the move
+         */
+        private MoveReview analyze(int number, CompactBoard position, int[] move, long deadline, long sliceNanos) {
+            long now = System.nanoTime();
+            long end = deadline - now < sliceNanos ? deadline : now + sliceNanos;
+            int groups = position.findGroups(representatives, sizes);
+            position.beginVisit();
+            position.floodFillVisited(move[1] * rows + move[0], null);
+
+            long playedValue = -1;
+            long bestValue = -1;
+            int best = -1;
+            boolean proven = true;
+            for (int i = 0; i < groups; i++) {
+                child.copyFrom(position);
+                child.removeGroupAt(representatives[i]);
+                long budget = Math.max(1, (end - System.nanoTime()) / (groups - i));
+                Solution solution = solver.solve(child, budget);
+                proven &= solution.isProven();
+                long value = add(CompactBoard.pointsForGroup(sizes[i]), solution.getScore());
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = representatives[i];
+                }
+                if (position.isVisited(representatives[i])) playedValue = value;
+            }
+            return new MoveReview(number, move[0], move[1], playedValue, best % rows, best / rows, bestValue, proven);
+        }
+    }
+
+    /**
+     * Reviews a replay file as written by the {@code RecordOptimizer}: a comment line with
+     * {@code rows=, cols=, difficulty=, seed=}, then one move {@code row col} per line.
+     * Run with {@code java me.leon.samegame.review.GameReview <replay> [--seconds=10]}.
+     */
+    public static void main(String[] args) throws IOException {
+        SoundManager.setEnabled(false);
+        long seconds = 10;
+        String file = null;
+        for (String arg : args) {
+            if (arg.startsWith("--seconds=")) seconds = Long.parseLong(arg.substring("--seconds=".length()));
+            else file = arg;
+        }
+        if (file == null) throw new IllegalArgumentException("Missing replay file");
+        int rows = 0;
+        int cols = 0;
+        int difficulty = 0;
+        long seed = 0;
+        List<int[]> moves = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                line = line.trim();
+                if (line.startsWith("#")) {
+                    for (String field : line.substring(1).trim().split("\\s+")) {
+                        String value = field.substring(field.indexOf('=') + 1);
+                        if (field.startsWith("rows=")) rows = Integer.parseInt(value);
+                        else if (field.startsWith("cols=")) cols = Integer.parseInt(value);
+                        else if (field.startsWith("difficulty=")) difficulty = Integer.parseInt(value);
+                        else if (field.startsWith("seed=")) seed = Long.parseLong(value);
+                    }
+                } else if (!line.isEmpty()) {
+                    String[] move = line.split("\\s+");
+                    moves.add(new int[]{Integer.parseInt(move[0]), Integer.parseInt(move[1])});
+                }
+            }
+        }
+        new GameReview(Runtime.getRuntime().availableProcessors(), seconds * 1000)
+                .review(rows, cols, difficulty, seed, moves, System.out::println);
+    }
+}
@@ -0,0 +1,139 @@
+package me.leon.samegame.review;
+
+/**
+ * The {@code MoveReview} class holds the analysis of one move of a reviewed game: the move played, the best move
+ * found by the search, the values of both and the classification of the points lost.
+ * The value of a move is its points plus the best score reachable afterward.
+ */
+public class MoveReview {
+    /**
+     * Classification of a move by the share of the best value it loses.
+     */
+    public enum Classification {
+        /**
+         * No points lost.
+         */
+        BEST,
+        /**
+         * Less than 5% of the best value lost.
+         */
+        GOOD,
+        /**
+         * Less than 20% of the best value lost.
+         */
+        INACCURACY,
+        /**
+         * Less than 50% of the best value lost.
+         */
+        MISTAKE,
+        /**
+         * At least half of the best value lost.
+         */
+        BLUNDER;
+
+        /**
+         * Classifies the points lost by a move.
+         *
+         * @param pointsLost points lost compared to the best move
+         * @param bestValue  value of the best move
+         * @return classification of the move
+         */
+        public static Classification of(long pointsLost, long bestValue) {
+            if (pointsLost <= 0) return BEST;
+            double share = (double) pointsLost / bestValue;
+            if (share < 0.05) return GOOD;
+            if (share < 0.2) return INACCURACY;
+            if (share < 0.5) return MISTAKE;
+            return BLUNDER;
+        }
+    }
+
+    private final int moveNumber;
+    private final int playedRow;
+    private final int playedCol;
+    private final long playedValue;
+    private final int bestRow;
+    private final int bestCol;
+    private final long bestValue;
+    private final boolean proven;
+
+    /**
+     * Constructs a new {@code MoveReview}.
+     *
+     * @param moveNumber  index of the move in the game, starting at 0
+     * @param playedRow   row of the played move
+     * @param playedCol   col of the played move
+     * @param playedValue value of the played move
+     * @param bestRow     row of the best move
+     * @param bestCol     col of the best move
+     * @param bestValue   value of the best move
+     * @param proven      {@code true} if all values are exact, {@code false} if some are estimates of an aborted search
+     */
+    public MoveReview(int moveNumber, int playedRow, int playedCol, long playedValue, int bestRow, int bestCol,
+                      long bestValue, boolean proven) {
+        this.moveNumber = moveNumber;
+        this.playedRow = playedRow;
+        this.playedCol = playedCol;
+        this.playedValue = playedValue;
+        this.bestRow = bestRow;
+        this.bestCol = bestCol;
+        this.bestValue = bestValue;
+        this.proven = proven;
+    }
+
+    public int getMoveNumber() {
+        return moveNumber;
+    }
+
+    public int getPlayedRow() {
+        return playedRow;
+    }
+
+    public int getPlayedCol() {
+        return playedCol;
+    }
+
+    public long getPlayedValue() {
+        return playedValue;
+    }
+
+    public int getBestRow() {
+        return bestRow;
+    }
+
+    public int getBestCol() {
+        return bestCol;
+    }
+
+    public long getBestValue() {
+        return bestValue;
+    }
+
+    /**
+     * Calculates the points lost by the played move.
+     *
+     * @return value of the best move minus value of the played move, 0 if the played move is the best
+     */
+    public long getPointsLost() {
+        return Math.max(0, bestValue - playedValue);
+    }
+
+    /**
+     * Classifies the played move.
+     *
+     * @return classification by the share of the best value lost
+     */
+    public Classification getClassification() {
+        return Classification.of(getPointsLost(), bestValue);
+    }
+
+    public boolean isProven() {
+        return proven;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%3d. played %d,%d (%d), best %d,%d (%d), lost %d: %s%s", moveNumber + 1, playedRow, playedCol,
+                playedValue, bestRow, bestCol, bestValue, getPointsLost(), getClassification(), proven ? "" : " (estimated)");
+    }
+}
@@ -0,0 +1,124 @@
+package me.leon.samegame.solver;
+
+import me.leon.samegame.model.CompactBoard;
+
+/**
+ * The {@code EndgameSolver} class replaces the heuristic next best move by the move of the {@link ExactSolver}
+ * near the end of a game, where the heuristic is weakest and the exhaustive search is cheap.
+ * The solver takes over once both the remaining tiles and the remaining removable groups fall to their thresholds,
+ * a few groups alone do not make a large board cheap to search.
+ * <p>
+ * Every hint is time-boxed to the hint budget, by default one frame at 60 Hz, so a hint never takes noticeably
+ * longer than before. The clock starts before the endgame check and before the solver allocates its buffers. If the search does not complete in time, no move is suggested and the caller keeps its heuristic;
+ * the completed subtrees stay memoized, so the search of a later position in the same game starts ahead.
+ * The {@link ExactSolver} is created on first use for the size of the boards, instances are not thread-safe.
+ */
+public class EndgameSolver {
+    /**
+     * Default threshold of the remaining tiles.
+     */
+    public static final int DEFAULT_MAX_TILES = 40;
+    /**
+     * Default threshold of the remaining removable groups.
+     */
+    public static final int DEFAULT_MAX_GROUPS = 8;
+    /**
+     * Default time budget of a search, one frame at 60 Hz.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = 16_000_000;
+    private final int maxTiles;
+    private final int maxGroups;
+    private final long budgetNanos;
+    private ExactSolver solver;
+    private int[] representatives;
+    private int[] sizes;
+    private int[] colorCounts;
+
+    /**
+     * Constructs a new {@code EndgameSolver} with the default thresholds and budget.
+     */
+    public EndgameSolver() {
+        this(DEFAULT_MAX_TILES, DEFAULT_MAX_GROUPS, DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Constructs a new {@code EndgameSolver}.
+     *
+     * @param maxTiles    the solver takes over at this number of remaining tiles or less, if the groups are few enough
+     * @param maxGroups   the solver takes over at this number of removable groups or less, if the tiles are few enough
+     * @param budgetNanos maximum duration of a search in nanoseconds
+     */
+    public EndgameSolver(int maxTiles, int maxGroups, long budgetNanos) {
+        if (budgetNanos <= 0) throw new IllegalArgumentException("Budget must be positive, but was " + budgetNanos);
+        this.maxTiles = maxTiles;
+        this.maxGroups = maxGroups;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Checks whether a position is an endgame: at most {@code maxTiles} tiles and at most {@code maxGroups} groups.
+     *
+     * @param board the position, is not modified
+     * @return {@code true} if the exact solver shall take over
+     */
+    public boolean isEndgame(CompactBoard board) {
+        int cells = board.getRows() * board.getCols();
+        if (representatives == null || representatives.length != cells) {
+            representatives = new int[cells];
+            sizes = new int[cells];
+            colorCounts = new int[256];
+        }
+        if (board.countColors(colorCounts) > maxTiles) return false;
+        return board.findGroups(representatives, sizes) <= maxGroups;
+    }
+
+    /**
+     * Solves an endgame position within the budget.
+     *
+     * @param board the position, is not modified
+     * @return the solution, {@link Solution#isProven()} tells whether the search completed in time
+     */
+    public Solution solve(CompactBoard board) {
+        return solve(board, System.nanoTime());
+    }
+
+    /**
+     * Solves an endgame position within what is left of the budget of a hint.
+     *
+     * @param board the position, is not modified
+     * @param start {@link System#nanoTime()} at the start of the hint
+     * @return the solution, {@link Solution#isProven()} tells whether the search completed in time
+     */
+    private Solution solve(CompactBoard board, long start) {
+        if (solver == null || solver.getRows() != board.getRows() || solver.getCols() != board.getCols()) {
+            solver = new ExactSolver(board.getRows(), board.getCols());
+        }
+        return solver.solve(board, budgetNanos - (System.nanoTime() - start));
+    }
+
+    /**
+     * Suggests the first move of the optimal solution of a position, if it is an endgame and the search completes in time.
+     *
+     * @param board the position, is not modified
+     * @return the proven best move as {@code [row, col]}, or {@code null} if the heuristic has to be used
+     */
+    public int[] suggest(CompactBoard board) {
+        long start = System.nanoTime();
+        if (!isEndgame(board)) return null;
+        Solution solution = solve(board, start);
+        if (!solution.isProven() || solution.getMoves().isEmpty()) return null;
+        return solution.getMoves().get(0).clone();
+    }
+
+    public int getMaxTiles() {
+        return maxTiles;
+    }
+
+    public int getMaxGroups() {
+        return maxGroups;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+}
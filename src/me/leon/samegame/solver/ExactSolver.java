@@ -0,0 +1,309 @@
+package me.leon.samegame.solver;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.GameModel;
+import me.leon.samegame.model.SameGameModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code ExactSolver} class finds the provably optimal move sequence for small SameGame boards.
+ * Scores are calculated exactly like {@link SameGameModel#pointsForTileGroup(int)}.
+ * <p>
+ * Boards up to 6x9 with 3 to 5 colors are solved in less than a second, 8x8 boards take up to a few seconds.
+ * Larger boards are often not proven within 20 seconds: 9x9 with 4 colors and 10x10 with 3 colors only for some seeds,
+ * 10x10 with 5 colors for none, so they should be solved with a time budget.
+ * <p>
+ * The search is a depth-first branch-and-bound on {@link CompactBoard}s:
+ * <ul>
+ *  <li>Moves are tried in order of decreasing group size.</li>
+ *  <li>A move is skipped if its points plus an upper bound of the remaining position cannot beat the best
+ *  result found so far for the current position. The bound assumes every color is removed in one single group,
+ *  which is never less than any real outcome because {@code 2^a + 2^b - 4 <= 2^(a+b) - 2}.</li>
+ *  <li>The search starts with the score of a greedy playout (always removing the largest group) as lower bound,
+ *  and passes the score a subtree has to beat down to its children, so hopeless subtrees are cut off early.</li>
+ *  <li>The result of every searched position is memoized in a {@link TranspositionTable}
+ *  keyed by the {@link CompactBoard#canonicalHash64() canonical hash}, so positions reached by different move orders,
+ *  and positions that differ only by a permutation of the colors, are solved only once.
+ *  Scores and moves (cells) do not depend on the colors, so they are valid for every permutation.
+ *  Positions that were cut off are stored as upper bounds and only searched again if a higher score is needed.</li>
+ * </ul>
+ * The table is kept between calls, so solving the positions along a solution again is almost free.
+ * A search can be time-boxed with {@link #solve(CompactBoard, long)}: the clock starts before any buffer is allocated,
+ * the greedy playout and the search run under the same deadline, and the clock is checked more often on larger boards,
+ * where every node costs more. When the budget is used up, the search is aborted, keeping every completed subtree
+ * in the table, and the {@link Solution} is then not {@link Solution#isProven() proven}.
+ */
+public class ExactSolver {
+    private static final int MAX_TABLE_SIZE = 1 << 20;
+    private static final int CELLS_PER_CLOCK_CHECK = 1 << 16; // about the cells a search visits between two clock checks
+    private final int rows;
+    private final int cols;
+    private final TranspositionTable table;
+    private CompactBoard[] boards; // one board per search depth, reused
+    private int[][] representatives; // groups per search depth
+    private int[][] sizes;
+    private int[][] counts; // remaining tiles per color per search depth
+    private long nodes;
+    private long deadline;
+    private int clockInterval; // nodes between two clock checks, fewer on larger boards
+    private boolean aborted;
+
+    /**
+     * Constructs a new {@code ExactSolver} for boards of the given size.
+     *
+     * @param rows number of rows of the boards to be solved
+     * @param cols number of cols of the boards to be solved
+     */
+    public ExactSolver(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.table = new TranspositionTable(1 << 16);
+    }
+
+    /**
+     * Solves the current position of a game model.
+     *
+     * @param gameModel the model to solve, is not modified
+     * @return optimal solution starting from the current position
+     */
+    public Solution solve(GameModel gameModel) {
+        return solve(CompactBoard.fromTiles(gameModel.getTiles()));
+    }
+
+    /**
+     * Solves the given position.
+     *
+     * @param board the position to solve, is not modified
+     * @return optimal solution starting from the given position
+     */
+    public Solution solve(CompactBoard board) {
+        return solve(board, Long.MAX_VALUE);
+    }
+
+    /**
+     * Solves the given position within a time budget.
+     * If the budget is used up, the search is aborted and the returned solution is not proven:
+     * its score is the lower bound of the greedy playout, as far as it got, and it has no moves.
+     *
+     * @param board       the position to solve, is not modified
+     * @param budgetNanos maximum duration of the search in nanoseconds
+     * @return optimal solution starting from the given position, or an unproven solution if the budget was exceeded
+     */
+    public Solution solve(CompactBoard board, long budgetNanos) {
+        long start = System.nanoTime();
+        deadline = budgetNanos > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + budgetNanos;
+        if (board.getRows() != rows || board.getCols() != cols) {
+            throw new IllegalArgumentException("Board size does not match the solver size " + rows + "x" + cols);
+        }
+        int colors = board.maxColor() + 1;
+        int tiles = board.countColors(new int[colors]);
+        int depth = tiles / 2 + 2; // every move removes at least 2 tiles
+        int groups = tiles / 2 + 1;
+        if (boards == null || boards.length < depth || counts[0].length < colors) {
+            // the boards of the depths are created when the search first reaches them
+            depth = boards == null ? depth : Math.max(depth, boards.length);
+            colors = counts == null ? colors : Math.max(colors, counts[0].length);
+            boards = boards == null ? new CompactBoard[depth] : Arrays.copyOf(boards, depth);
+            representatives = new int[depth][groups];
+            sizes = new int[depth][groups];
+            counts = new int[depth][colors];
+        } else if (representatives[0].length < groups) {
+            representatives = new int[boards.length][groups];
+            sizes = new int[boards.length][groups];
+        }
+        if (table.size() > MAX_TABLE_SIZE) table.clear();
+        nodes = 0;
+        aborted = false;
+        clockInterval = Math.max(1, CELLS_PER_CLOCK_CHECK / (rows * cols));
+
+        board(0).copyFrom(board);
+        long greedy = greedyScore(board);
+        long score = aborted ? 0 : search(0, greedy - 1);
+        if (aborted) return new Solution(greedy, List.of(), nodes, System.nanoTime() - start, false);
+
+        // follow the best moves stored in the table
+        List<int[]> moves = new ArrayList<>();
+        CompactBoard replay = board.copy();
+        for (int slot = table.find(replay.canonicalHash64()); slot >= 0 && table.move(slot) >= 0; slot = table.find(replay.canonicalHash64())) {
+            int move = table.move(slot);
+            moves.add(new int[]{move % rows, move / rows});
+            replay.removeGroupAt(move);
+        }
+        return new Solution(score, moves, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Searches the position stored in {@code boards[depth]}.
+     * Only scores above {@code alpha} are of interest: if the position cannot beat {@code alpha},
+     * the returned score is an upper bound instead of the exact value.
+     *
+     * @param depth current search depth
+     * @param alpha score the position has to beat
+     * @return best score reachable from the position, or an upper bound not above {@code alpha}
+     */
+    private long search(int depth, long alpha) {
+        if (++nodes % clockInterval == 0 && isTimeUp()) return 0;
+        if (aborted) return 0;
+        CompactBoard board = boards[depth];
+        long hash = board.canonicalHash64();
+        int slot = table.find(hash);
+        if (slot >= 0 && (table.isExact(slot) || table.score(slot) <= alpha)) return table.score(slot);
+
+        int[] colorCounts = counts[depth];
+        board.countColors(colorCounts);
+        long bound = upperBound(colorCounts);
+        if (bound <= alpha) return bound;
+
+        int[] reps = representatives[depth];
+        int[] groupSizes = sizes[depth];
+        int groupCount = board.findGroups(reps, groupSizes);
+        if (groupCount == 0) {
+            table.put(hash, 0, -1, true);
+            return 0;
+        }
+        sortBySizeDescending(reps, groupSizes, groupCount);
+
+        long best = -1;
+        int bestMove = -1;
+        CompactBoard child = board(depth + 1);
+        for (int i = 0; i < groupCount; i++) {
+            long target = Math.max(alpha, best);
+            int color = board.getAt(reps[i]);
+            int size = groupSizes[i];
+            long gain = SameGameModel.pointsForTileGroup(size);
+            // bound of the child: this color loses size tiles, all other colors are unchanged
+            long childBound = bound - colorBound(colorCounts[color]) + colorBound(colorCounts[color] - size);
+            if (add(gain, childBound) <= target) continue;
+
+            child.copyFrom(board);
+            child.removeGroupAt(reps[i]);
+            long value = add(gain, search(depth + 1, target - gain));
+            if (aborted) return 0; // unwind without storing incomplete results
+            if (value > best) {
+                best = value;
+                bestMove = reps[i];
+            }
+        }
+        if (best > alpha) {
+            table.put(hash, best, bestMove, true);
+            return best;
+        }
+        // every move was cut off, so alpha cannot be beaten from here
+        table.put(hash, alpha, -1, false);
+        return alpha;
+    }
+
+    /**
+     * Retrieves the reusable board of a search depth, creating it on first use.
+     *
+     * @param depth search depth
+     * @return board of the depth
+     */
+    private CompactBoard board(int depth) {
+        if (boards[depth] == null) boards[depth] = new CompactBoard(rows, cols);
+        return boards[depth];
+    }
+
+    /**
+     * Checks the clock and marks the search as aborted once the deadline has passed.
+     *
+     * @return {@code true} if the search has to be aborted
+     */
+    private boolean isTimeUp() {
+        if (System.nanoTime() - deadline > 0) aborted = true;
+        return aborted;
+    }
+
+    /**
+     * Plays the position greedily by always removing the largest group, used as first lower bound of the search.
+     * The playout runs under the deadline of the search and stops early, marking the search as aborted, if it is exceeded.
+     *
+     * @param board position to play, is not modified
+     * @return score of the greedy playout, or the score so far if the deadline was exceeded
+     */
+    private long greedyScore(CompactBoard board) {
+        CompactBoard playout = board(1);
+        playout.copyFrom(board);
+        int[] reps = representatives[0];
+        int[] groupSizes = sizes[0];
+        long score = 0;
+        for (int groupCount = playout.findGroups(reps, groupSizes); groupCount > 0 && !isTimeUp(); groupCount = playout.findGroups(reps, groupSizes)) {
+            int largest = 0;
+            for (int i = 1; i < groupCount; i++) {
+                if (groupSizes[i] > groupSizes[largest]) largest = i;
+            }
+            score = add(score, SameGameModel.pointsForTileGroup(playout.removeGroupAt(reps[largest])));
+        }
+        return score;
+    }
+
+    /**
+     * Upper bound of the score reachable with the given remaining tiles per color.
+     *
+     * @param colorCounts remaining tiles per color
+     * @return upper bound of the reachable score
+     */
+    private static long upperBound(int[] colorCounts) {
+        long bound = 0;
+        for (int count : colorCounts) {
+            bound = add(bound, colorBound(count));
+        }
+        return bound;
+    }
+
+    /**
+     * Upper bound of the score reachable with the given number of tiles of one color.
+     *
+     * @param count remaining tiles of the color
+     * @return points for removing all of them as one group, 0 if they cannot be removed at all
+     */
+    private static long colorBound(int count) {
+        return count >= 2 ? SameGameModel.pointsForTileGroup(count) : 0;
+    }
+
+    /**
+     * Adds two non-negative scores, saturating at {@link Long#MAX_VALUE} like the score formula does.
+     */
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Insertion sort of the groups by decreasing size, the buffers are short so this is fast enough.
+     */
+    private static void sortBySizeDescending(int[] reps, int[] groupSizes, int count) {
+        for (int i = 1; i < count; i++) {
+            int rep = reps[i];
+            int size = groupSizes[i];
+            int j = i - 1;
+            while (j >= 0 && groupSizes[j] < size) {
+                reps[j + 1] = reps[j];
+                groupSizes[j + 1] = groupSizes[j];
+                j--;
+            }
+            reps[j + 1] = rep;
+            groupSizes[j + 1] = size;
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Retrieves the number of positions currently memoized.
+     *
+     * @return size of the transposition table
+     */
+    public int getTableSize() {
+        return table.size();
+    }
+}
@@ -0,0 +1,137 @@
+package me.leon.samegame.solver;
+
+import java.util.Arrays;
+
+/**
+ * The {@code PolicyWeights} class is the rollout policy of the {@link RecordOptimizer}: a growable open-addressing
+ * hash map from 64-bit move codes to weights, 0 for unknown codes.
+ * Like the {@link TranspositionTable} it stores primitives only, and copies reuse the arrays of the target,
+ * so the nested search does not allocate once the maps have grown to their working size.
+ */
+class PolicyWeights {
+    private long[] keys;
+    private double[] weights;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs a new empty {@code PolicyWeights}.
+     */
+    PolicyWeights() {
+        keys = new long[1024];
+        weights = new double[keys.length];
+        mask = keys.length - 1;
+    }
+
+    /**
+     * Looks up the weight of a move code.
+     *
+     * @param code move code
+     * @return weight of the code, 0 if it was never adapted
+     */
+    double get(long code) {
+        code = nonZero(code);
+        for (int slot = slot(code); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == code) return weights[slot];
+        }
+        return 0;
+    }
+
+    /**
+     * Adds to the weight of a move code.
+     *
+     * @param code  move code
+     * @param delta change of the weight
+     */
+    void add(long code, double delta) {
+        if (2 * (size + 1) > keys.length) grow();
+        code = nonZero(code);
+        int slot = slot(code);
+        while (keys[slot] != 0 && keys[slot] != code) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            keys[slot] = code;
+            size++;
+        }
+        weights[slot] += delta;
+    }
+
+    /**
+     * Overwrites this policy with another one.
+     *
+     * @param other policy to copy from
+     */
+    void copyFrom(PolicyWeights other) {
+        if (keys.length != other.keys.length) {
+            keys = new long[other.keys.length];
+            weights = new double[keys.length];
+            mask = keys.length - 1;
+        }
+        System.arraycopy(other.keys, 0, keys, 0, keys.length);
+        System.arraycopy(other.weights, 0, weights, 0, keys.length);
+        size = other.size;
+    }
+
+    /**
+     * Removes all weights, keeping the capacity.
+     */
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(weights, 0);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the number of slots, for iterating over the entries with {@link #code(int)} and {@link #weight(int)}.
+     *
+     * @return capacity of the map
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves the code stored in a slot.
+     *
+     * @param slot slot index below {@link #capacity()}
+     * @return move code, 0 if the slot is empty
+     */
+    long code(int slot) {
+        return keys[slot];
+    }
+
+    double weight(int slot) {
+        return weights[slot];
+    }
+
+    private int slot(long code) {
+        return (int) (code ^ (code >>> 32)) & mask;
+    }
+
+    /**
+     * Doubles the capacity and re-inserts all entries.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldWeights = weights;
+        keys = new long[oldKeys.length * 2];
+        weights = new double[keys.length];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) add(oldKeys[i], oldWeights[i]);
+        }
+    }
+
+    /**
+     * Code 0 marks an empty slot, so it is mapped to another value.
+     */
+    private static long nonZero(long code) {
+        return code == 0 ? 1 : code;
+    }
+}
@@ -0,0 +1,530 @@
+package me.leon.samegame.solver;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The {@code RecordOptimizer} class searches the highest score of one fixed game, the start position of
+ * {@code SameGameModel(rows, cols, difficulty, seed)}, with nested rollout policy adaptation (NRPA).
+ * It is meant for record attempts that run for hours, far beyond the boards the {@link ExactSolver} can prove.
+ * <p>
+ * A level 0 search is a playout that picks every move with a probability proportional to {@code exp(weight)} of the
+ * move's code, the color and the cells of the removed group. A level {@code n} search runs {@code iterations}
+ * searches of level {@code n - 1} and after each one adapts its policy towards the best sequence found so far.
+ * The top level is parallelized at the root: every top level iteration runs one search of the level below
+ * per thread, all starting from the root policy, and the root policy is adapted to the best of them.
+ * After {@code iterations} top level iterations the search restarts with an empty policy, keeping the best sequence.
+ * <p>
+ * With a checkpoint file, the root policy, the best sequences and the counters are saved to it periodically and
+ * at the end of {@link #run(long)}, and a new optimizer for the same game resumes from it. Every new best sequence
+ * is also written as a replay file next to the checkpoint. Throughput and the best score over time are logged.
+ */
+public class RecordOptimizer {
+    private static final int FILE_MAGIC = 0x5347524F; // "SGRO"
+    private static final double ALPHA = 1.0;
+    private final int rows;
+    private final int cols;
+    private final int difficulty;
+    private final long seed;
+    private final int level;
+    private final int iterations;
+    private final int threads;
+    private final CompactBoard start;
+    private final File checkpoint;
+    private long checkpointIntervalMillis = 60_000;
+    private long logIntervalMillis = 10_000;
+    private PrintStream log = System.out;
+    // state of the search, saved in the checkpoint
+    private final PolicyWeights rootPolicy = new PolicyWeights();
+    private int round;
+    private int iteration;
+    private long roundScore = -1;
+    private int[] roundMoves = new int[0];
+    private long bestScore = -1;
+    private int[] bestMoves = new int[0];
+    private long playouts;
+    private long elapsedNanos;
+
+    /**
+     * Constructs a new {@code RecordOptimizer}, resuming from the checkpoint file if it exists.
+     *
+     * @param rows       number of rows of the game
+     * @param cols       number of cols of the game
+     * @param difficulty number of colors
+     * @param seed       seed of the game
+     * @param level      nesting level of the search, at least 1
+     * @param iterations iterations per level, e.g. 100
+     * @param threads    number of threads searching below the root
+     * @param checkpoint file of the checkpoint, {@code null} to neither save nor resume
+     * @throws IOException if the checkpoint exists but cannot be read or belongs to another game
+     */
+    public RecordOptimizer(int rows, int cols, int difficulty, long seed, int level, int iterations, int threads,
+                           File checkpoint) throws IOException {
+        if (level < 1) throw new IllegalArgumentException("Level must be at least 1, but was " + level);
+        this.rows = rows;
+        this.cols = cols;
+        this.difficulty = difficulty;
+        this.seed = seed;
+        this.level = level;
+        this.iterations = iterations;
+        this.threads = threads;
+        this.start = CompactBoard.random(rows, cols, difficulty, seed);
+        this.checkpoint = checkpoint;
+        if (checkpoint != null && checkpoint.exists()) loadCheckpoint();
+    }
+
+    /**
+     * Searches until the duration is over or the calling thread is interrupted, then saves a checkpoint.
+     * Can be called again to continue the search.
+     *
+     * @param durationMillis maximum duration of this run in milliseconds
+     * @return best sequence found so far, not proven, its node count is the number of playouts
+     */
+    public Solution run(long durationMillis) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+        Worker coordinator = new Worker();
+        long runStart = System.nanoTime();
+        long deadline = System.currentTimeMillis() + durationMillis;
+        long lastCheckpoint = System.currentTimeMillis();
+        long lastLog = lastCheckpoint;
+        try {
+            while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+                List<Callable<Result>> tasks = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    tasks.add(() -> workers.get().searchBelowRoot(rootPolicy));
+                }
+                for (Future<Result> future : executor.invokeAll(tasks)) {
+                    Result result = future.get();
+                    playouts += result.playouts;
+                    if (result.score >= roundScore) {
+                        roundScore = result.score;
+                        roundMoves = result.moves;
+                    }
+                }
+                coordinator.adapt(rootPolicy, roundMoves, roundMoves.length);
+                if (roundScore > bestScore) {
+                    bestScore = roundScore;
+                    bestMoves = roundMoves;
+                    logProgress(runStart, "new best");
+                    writeReplay();
+                }
+                if (++iteration == iterations) { // restart with an empty policy
+                    round++;
+                    iteration = 0;
+                    rootPolicy.clear();
+                    roundScore = -1;
+                    roundMoves = new int[0];
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastLog >= logIntervalMillis) {
+                    logProgress(runStart, "");
+                    lastLog = now;
+                }
+                if (now - lastCheckpoint >= checkpointIntervalMillis) {
+                    saveCheckpoint(runStart);
+                    lastCheckpoint = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A search thread failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        elapsedNanos += System.nanoTime() - runStart;
+        saveCheckpoint(System.nanoTime());
+        logProgress(System.nanoTime(), "stopped");
+        return getBest();
+    }
+
+    /**
+     * Retrieves the best sequence found so far, including previous runs resumed from the checkpoint.
+     *
+     * @return best sequence as moves {@code [row, col]} for the model, score -1 and no moves if nothing was searched yet
+     */
+    public Solution getBest() {
+        List<int[]> moves = new ArrayList<>();
+        for (int move : bestMoves) {
+            moves.add(new int[]{move % rows, move / rows});
+        }
+        return new Solution(bestScore, moves, playouts, elapsedNanos, false);
+    }
+
+    /**
+     * Logs the elapsed time of all runs, the playouts, the throughput and the best score.
+     *
+     * @param runStart {@link System#nanoTime()} at the start of the current run, whose time is not yet in {@code elapsedNanos}
+     * @param event    reason of the log line, may be empty
+     */
+    private void logProgress(long runStart, String event) {
+        double seconds = (elapsedNanos + System.nanoTime() - runStart) / 1e9;
+        log.printf("%10.1f s %14d playouts %10.0f playouts/s  round %4d  best %d %s%n",
+                seconds, playouts, seconds == 0 ? 0 : playouts / seconds, round, bestScore, event);
+    }
+
+    /**
+     * Writes the best sequence to {@code <checkpoint>-<score>.replay}: a comment line with the game,
+     * then one move {@code row col} per line, to be played on the model one after another.
+     */
+    private void writeReplay() {
+        if (checkpoint == null) return;
+        File replay = new File(checkpoint.getAbsoluteFile().getParentFile(), checkpoint.getName() + "-" + bestScore + ".replay");
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(replay)))) {
+            out.println("# rows=" + rows + " cols=" + cols + " difficulty=" + difficulty + " seed=" + seed + " score=" + bestScore);
+            for (int move : bestMoves) {
+                out.println(move % rows + " " + move / rows);
+            }
+        } catch (IOException e) {
+            System.err.println("Replay could not be written: " + e);
+        }
+    }
+
+    /**
+     * Saves the state of the search durably: it is written to a temporary file, forced to the disk
+     * and then moved over the old checkpoint, so a crash leaves either the old or the new checkpoint.
+     *
+     * @param runStart {@link System#nanoTime()} at the start of the current run, whose time is not yet in {@code elapsedNanos}
+     */
+    private void saveCheckpoint(long runStart) {
+        if (checkpoint == null) return;
+        File temp = new File(checkpoint.getAbsoluteFile().getParentFile(), checkpoint.getName() + ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(rows);
+                out.writeInt(cols);
+                out.writeInt(difficulty);
+                out.writeLong(seed);
+                out.writeInt(round);
+                out.writeInt(iteration);
+                out.writeLong(playouts);
+                out.writeLong(elapsedNanos + System.nanoTime() - runStart);
+                writeSequence(out, bestScore, bestMoves);
+                writeSequence(out, roundScore, roundMoves);
+                out.writeInt(rootPolicy.size());
+                for (int slot = 0; slot < rootPolicy.capacity(); slot++) {
+                    if (rootPolicy.code(slot) == 0) continue;
+                    out.writeLong(rootPolicy.code(slot));
+                    out.writeDouble(rootPolicy.weight(slot));
+                }
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Checkpoint could not be saved: " + e);
+        }
+    }
+
+    private static void writeSequence(DataOutputStream out, long score, int[] moves) throws IOException {
+        out.writeLong(score);
+        out.writeInt(moves.length);
+        for (int move : moves) {
+            out.writeInt(move);
+        }
+    }
+
+    /**
+     * Restores the state of the search from the checkpoint.
+     *
+     * @throws IOException if the file cannot be read, is no checkpoint or belongs to another game
+     */
+    private void loadCheckpoint() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpoint)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a record optimizer checkpoint: " + checkpoint);
+            }
+            if (in.readInt() != rows || in.readInt() != cols || in.readInt() != difficulty || in.readLong() != seed) {
+                throw new IOException("Checkpoint " + checkpoint + " belongs to another game");
+            }
+            round = in.readInt();
+            iteration = in.readInt();
+            playouts = in.readLong();
+            elapsedNanos = in.readLong();
+            bestScore = in.readLong();
+            bestMoves = readMoves(in);
+            roundScore = in.readLong();
+            roundMoves = readMoves(in);
+            for (int i = in.readInt(); i > 0; i--) {
+                rootPolicy.add(in.readLong(), in.readDouble());
+            }
+        }
+    }
+
+    private int[] readMoves(DataInputStream in) throws IOException {
+        int[] moves = new int[in.readInt()];
+        if (moves.length > rows * cols / 2) throw new IOException("Broken checkpoint: " + checkpoint);
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = in.readInt();
+        }
+        return moves;
+    }
+
+    /**
+     * Sets the interval of the periodic checkpoints, by default one minute.
+     *
+     * @param millis minimum milliseconds between two checkpoints
+     */
+    public void setCheckpointInterval(long millis) {
+        this.checkpointIntervalMillis = millis;
+    }
+
+    /**
+     * Sets the interval of the periodic progress log, by default ten seconds. New best scores are always logged.
+     *
+     * @param millis minimum milliseconds between two log lines
+     */
+    public void setLogInterval(long millis) {
+        this.logIntervalMillis = millis;
+    }
+
+    /**
+     * Sets the stream of the progress log, by default {@link System#out}.
+     *
+     * @param log stream to log to
+     */
+    public void setLog(PrintStream log) {
+        this.log = log;
+    }
+
+    /**
+     * Adds two non-negative scores, saturating at {@link Long#MAX_VALUE} like the score formula does.
+     */
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Result of a search below the root: the best sequence of column-major cell indices and its score.
+     */
+    private static final class Result {
+        private final long score;
+        private final int[] moves;
+        private final long playouts;
+
+        private Result(long score, int[] moves, long playouts) {
+            this.score = score;
+            this.moves = moves;
+            this.playouts = playouts;
+        }
+    }
+
+    /**
+     * The search state of one thread: a board, the move buffers and one policy and best sequence per level, all reused.
+     */
+    private final class Worker {
+        private final Random random = new Random();
+        private final CompactBoard board = new CompactBoard(rows, cols);
+        private final int[] cells = new int[rows * cols];
+        private final int[] representatives = new int[rows * cols / 2 + 1];
+        private final long[] codes = new long[representatives.length];
+        private final double[] probabilities = new double[representatives.length];
+        private final PolicyWeights[] policies = new PolicyWeights[level];
+        private final int[][] moves = new int[level][rows * cols / 2];
+        private final int[] lengths = new int[level];
+        private long[] deltaCodes = new long[1024];
+        private double[] deltas = new double[deltaCodes.length];
+        private long playoutCount;
+
+        private Worker() {
+            for (int i = 0; i < level; i++) {
+                policies[i] = new PolicyWeights();
+            }
+        }
+
+        /**
+         * Runs one search of the level below the root, starting from a copy of the root policy.
+         */
+        private Result searchBelowRoot(PolicyWeights root) {
+            long before = playoutCount;
+            int below = level - 1;
+            long score;
+            if (below == 0) {
+                score = playout(root);
+            } else {
+                policies[below].copyFrom(root);
+                score = search(below, policies[below]);
+            }
+            return new Result(score, Arrays.copyOf(moves[below], lengths[below]), playoutCount - before);
+        }
+
+        /**
+         * Nested search of a level, its best sequence is stored in {@code moves[level]}.
+         *
+         * @param level  level of the search, at least 1
+         * @param policy policy of this level, adapted by the search
+         * @return score of the best sequence
+         */
+        private long search(int level, PolicyWeights policy) {
+            long best = -1;
+            for (int i = 0; i < iterations; i++) {
+                long score;
+                if (level == 1) {
+                    score = playout(policy);
+                } else {
+                    policies[level - 1].copyFrom(policy);
+                    score = search(level - 1, policies[level - 1]);
+                }
+                if (score >= best) {
+                    best = score;
+                    System.arraycopy(moves[level - 1], 0, moves[level], 0, lengths[level - 1]);
+                    lengths[level] = lengths[level - 1];
+                }
+                adapt(policy, moves[level], lengths[level]);
+            }
+            return best;
+        }
+
+        /**
+         * Plays the start position to the end with the policy, the sequence is stored in {@code moves[0]}.
+         *
+         * @param policy policy choosing the moves, not modified
+         * @return score of the playout
+         */
+        private long playout(PolicyWeights policy) {
+            board.copyFrom(start);
+            long score = 0;
+            int length = 0;
+            for (int count = enumerate(); count > 0; count = enumerate()) {
+                double total = 0;
+                for (int i = 0; i < count; i++) {
+                    probabilities[i] = Math.exp(policy.get(codes[i]));
+                    total += probabilities[i];
+                }
+                double r = random.nextDouble() * total;
+                int choice = count - 1;
+                for (int i = 0; i < count - 1; i++) {
+                    r -= probabilities[i];
+                    if (r < 0) {
+                        choice = i;
+                        break;
+                    }
+                }
+                moves[0][length++] = representatives[choice];
+                score = add(score, CompactBoard.pointsForGroup(board.removeGroupAt(representatives[choice])));
+            }
+            lengths[0] = length;
+            playoutCount++;
+            return score;
+        }
+
+        /**
+         * Adapts a policy towards a sequence: the chosen move of every step gains {@code ALPHA},
+         * all moves of the step lose {@code ALPHA} times their probability under the policy before the adaptation.
+         *
+         * @param policy   policy to adapt
+         * @param sequence moves as column-major cell indices, played from the start position
+         * @param length   number of moves
+         */
+        private void adapt(PolicyWeights policy, int[] sequence, int length) {
+            int count = 0;
+            board.copyFrom(start);
+            for (int step = 0; step < length; step++) {
+                int groups = enumerate();
+                double total = 0;
+                for (int i = 0; i < groups; i++) {
+                    probabilities[i] = Math.exp(policy.get(codes[i]));
+                    total += probabilities[i];
+                }
+                if (count + groups + 1 > deltaCodes.length) {
+                    deltaCodes = Arrays.copyOf(deltaCodes, 2 * (count + groups + 1));
+                    deltas = Arrays.copyOf(deltas, deltaCodes.length);
+                }
+                for (int i = 0; i < groups; i++) {
+                    deltaCodes[count] = codes[i];
+                    deltas[count++] = -ALPHA * probabilities[i] / total;
+                    if (representatives[i] == sequence[step]) {
+                        deltaCodes[count] = codes[i];
+                        deltas[count++] = ALPHA;
+                    }
+                }
+                board.removeGroupAt(sequence[step]);
+            }
+            for (int i = 0; i < count; i++) {
+                policy.add(deltaCodes[i], deltas[i]);
+            }
+        }
+
+        /**
+         * Finds the removable groups of the board with one cell index and the move code of each group.
+         * The code combines the color and the cells of the group independently of their order.
+         *
+         * @return number of groups
+         */
+        private int enumerate() {
+            int count = 0;
+            board.beginVisit();
+            for (int col = 0; col < cols; col++) {
+                if (board.getAt(col * rows + rows - 1) == CompactBoard.EMPTY) break; // only empty columns follow
+                for (int index = col * rows; index < (col + 1) * rows; index++) {
+                    if (board.getAt(index) == CompactBoard.EMPTY || board.isVisited(index)) continue;
+                    int size = board.floodFillVisited(index, cells);
+                    if (size < 2) continue;
+                    long code = board.getAt(index) * 0x9E3779B97F4A7C15L;
+                    for (int i = 0; i < size; i++) {
+                        code += mix(cells[i] + 1L);
+                    }
+                    representatives[count] = index;
+                    codes[count++] = mix(code);
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Entry point of the optimizer, e.g. {@code --seed=408 --rows=15 --cols=15 --difficulty=5 --minutes=600
+     * --checkpoint=record-408.ckpt}. Runs until the time is over or the process is stopped; a stopped run is resumed
+     * from its last periodic checkpoint.
+     */
+    public static void main(String[] args) throws IOException {
+        int rows = 15;
+        int cols = 15;
+        int difficulty = Difficulty.HARD;
+        long seed = 0;
+        int level = 3;
+        int iterations = 100;
+        long minutes = 60;
+        int threads = Runtime.getRuntime().availableProcessors();
+        File checkpoint = null;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--rows=")) rows = Integer.parseInt(value);
+            else if (arg.startsWith("--cols=")) cols = Integer.parseInt(value);
+            else if (arg.startsWith("--difficulty=")) difficulty = Integer.parseInt(value);
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(value);
+            else if (arg.startsWith("--level=")) level = Integer.parseInt(value);
+            else if (arg.startsWith("--iterations=")) iterations = Integer.parseInt(value);
+            else if (arg.startsWith("--minutes=")) minutes = Long.parseLong(value);
+            else if (arg.startsWith("--threads=")) threads = Integer.parseInt(value);
+            else if (arg.startsWith("--checkpoint=")) checkpoint = new File(value);
+            else throw new IllegalArgumentException("Unknown argument " + arg);
+        }
+        RecordOptimizer optimizer = new RecordOptimizer(rows, cols, difficulty, seed, level, iterations, threads, checkpoint);
+        Solution best = optimizer.run(minutes * 60_000);
+        System.out.println("Best score " + best.getScore() + " with " + best.getMoves().size() + " moves");
+    }
+}
@@ -0,0 +1,78 @@
+package me.leon.samegame.solver;
+
+import java.util.List;
+
+/**
+ * The {@code Solution} class holds the result of a solver run:
+ * the best score found, the move sequence reaching it and some search statistics.
+ */
+public class Solution {
+    private final long score;
+    private final List<int[]> moves;
+    private final long nodes;
+    private final long nanos;
+    private final boolean proven;
+
+    /**
+     * Constructs a new proven {@code Solution}.
+     *
+     * @param score score reachable from the solved position with the given moves
+     * @param moves sequence of moves as {@code [row, col]} arrays, to be played one after another
+     * @param nodes number of searched nodes
+     * @param nanos duration of the search in nanoseconds
+     */
+    public Solution(long score, List<int[]> moves, long nodes, long nanos) {
+        this(score, moves, nodes, nanos, true);
+    }
+
+    /**
+     * Constructs a new {@code Solution}.
+     *
+     * @param score  score reachable from the solved position with the given moves, a lower bound if not proven
+     * @param moves  sequence of moves as {@code [row, col]} arrays, to be played one after another
+     * @param nodes  number of searched nodes
+     * @param nanos  duration of the search in nanoseconds
+     * @param proven {@code true} if the search completed, so the score is optimal
+     */
+    public Solution(long score, List<int[]> moves, long nodes, long nanos, boolean proven) {
+        this.score = score;
+        this.moves = List.copyOf(moves);
+        this.nodes = nodes;
+        this.nanos = nanos;
+        this.proven = proven;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public List<int[]> getMoves() {
+        return moves;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Checks whether the search completed within its budget.
+     *
+     * @return {@code true} if the score is optimal, {@code false} if the search was aborted
+     */
+    public boolean isProven() {
+        return proven;
+    }
+
+    /**
+     * Calculates the search speed.
+     *
+     * @return searched nodes per second
+     */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+}
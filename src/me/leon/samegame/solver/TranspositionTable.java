@@ -0,0 +1,120 @@
+package me.leon.samegame.solver;
+
+import java.util.Arrays;
+
+/**
+ * The {@code TranspositionTable} class is a growable open-addressing hash map from 64-bit board hashes
+ * to the best reachable score and the best move of that position.
+ * A score is either exact or only an upper bound, if the position was cut off by the search window.
+ * It stores primitives only, so lookups during the search do not allocate.
+ */
+class TranspositionTable {
+    private long[] keys;
+    private long[] scores;
+    private int[] moves;
+    private boolean[] exact;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs a new {@code TranspositionTable} with the given initial capacity.
+     *
+     * @param capacity initial capacity, rounded up to a power of two
+     */
+    TranspositionTable(int capacity) {
+        int n = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        keys = new long[n];
+        scores = new long[n];
+        moves = new int[n];
+        exact = new boolean[n];
+        mask = n - 1;
+    }
+
+    /**
+     * Looks up the slot of a board hash.
+     *
+     * @param key board hash
+     * @return slot index, or -1 if the key is not stored
+     */
+    int find(long key) {
+        key = nonZero(key);
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the result of a position, overwriting a previous entry with the same key.
+     *
+     * @param key   board hash
+     * @param score best score reachable from the position
+     * @param move  column-major cell index of the best move, -1 if there is none
+     * @param exact {@code true} if the score is exact, {@code false} if it is an upper bound
+     */
+    void put(long key, long score, int move, boolean exact) {
+        if (2 * (size + 1) > keys.length) grow();
+        key = nonZero(key);
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) size++;
+        keys[slot] = key;
+        scores[slot] = score;
+        moves[slot] = move;
+        this.exact[slot] = exact;
+    }
+
+    long score(int slot) {
+        return scores[slot];
+    }
+
+    int move(int slot) {
+        return moves[slot];
+    }
+
+    boolean isExact(int slot) {
+        return exact[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries, keeping the capacity.
+     */
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    /**
+     * Doubles the capacity and re-inserts all entries.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldScores = scores;
+        int[] oldMoves = moves;
+        boolean[] oldExact = exact;
+        keys = new long[oldKeys.length * 2];
+        scores = new long[keys.length];
+        moves = new int[keys.length];
+        exact = new boolean[keys.length];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) put(oldKeys[i], oldScores[i], oldMoves[i], oldExact[i]);
+        }
+    }
+
+    /**
+     * Key 0 marks an empty slot, so it is mapped to another value.
+     */
+    private static long nonZero(long key) {
+        return key == 0 ? 1 : key;
+    }
+}
@@ -0,0 +1,105 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.BoardAnalytics;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code BoardAnalyticsTest} class tests the statistics of {@link BoardAnalytics}
+ * on a small known board and against repeated flood fills on random boards.
+ */
+public class BoardAnalyticsTest {
+
+    /**
+     * Tests all statistics of a hand-made board.
+     */
+    @Test
+    void testKnownBoard() {
+        int[][] cells = {
+                {1, 1, 2},
+                {1, 3, 2},
+                {3, 3, 1},
+        };
+        CompactBoard board = new CompactBoard(3, 3);
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                board.set(row, col, cells[row][col]);
+            }
+        }
+        BoardAnalytics analytics = new BoardAnalytics().analyze(board);
+
+        assertEquals(3, analytics.getGroupCount());
+        assertEquals(1, analytics.getSingletonCount());
+        assertEquals(4, analytics.getComponentCount());
+        assertEquals(9, analytics.getTiles());
+        assertEquals(3, analytics.getColors());
+        assertEquals(1, analytics.getGroupCount(1, 3));
+        assertEquals(1, analytics.getGroupCount(1, 1));
+        assertEquals(1, analytics.getGroupCount(2, 2));
+        assertEquals(1, analytics.getGroupCount(3, 3));
+        assertEquals(0, analytics.getGroupCount(2, 3));
+        assertEquals(3, analytics.getMaxGroupSize(1));
+        assertEquals(6 + 2 + 6, analytics.getPotentialScore());
+        assertEquals(3, analytics.getLargestGroup());
+        assertEquals(0, analytics.getLargestGroupIndex());
+        assertEquals(4, analytics.getLargestAchievableGroup());
+    }
+
+    /**
+     * Tests that one reused instance matches the groups of {@link CompactBoard#findGroups(int[], int[])}
+     * for many random boards, and that the model reports the same statistics.
+     */
+    @Test
+    void testMatchesFindGroups() {
+        BoardAnalytics analytics = new BoardAnalytics();
+        for (long seed = 0; seed < 200; seed++) {
+            int rows = 3 + (int) (seed % 11);
+            int cols = 2 + (int) (seed % 7);
+            CompactBoard board = CompactBoard.random(rows, cols, 2 + (int) (seed % 4), seed);
+            analytics.analyze(board);
+
+            int[] representatives = new int[rows * cols];
+            int[] sizes = new int[rows * cols];
+            int groups = board.findGroups(representatives, sizes);
+            long potential = 0;
+            int largest = 0;
+            int[][] histogram = new int[6][rows * cols + 1];
+            for (int i = 0; i < groups; i++) {
+                potential += CompactBoard.pointsForGroup(sizes[i]);
+                largest = Math.max(largest, sizes[i]);
+                histogram[board.getAt(representatives[i])][sizes[i]]++;
+            }
+            int[] counts = new int[6];
+            int tiles = board.countColors(counts);
+            int singletons = 0;
+            for (int index = 0; index < rows * cols; index++) {
+                if (board.getAt(index) != CompactBoard.EMPTY && !board.hasEqualNeighbor(index)) singletons++;
+            }
+
+            assertEquals(groups, analytics.getGroupCount(), "Groups for seed " + seed);
+            assertEquals(singletons, analytics.getSingletonCount(), "Singletons for seed " + seed);
+            assertEquals(tiles, analytics.getTiles(), "Tiles for seed " + seed);
+            assertEquals(potential, analytics.getPotentialScore(), "Potential score for seed " + seed);
+            assertEquals(Math.max(largest, singletons > 0 ? 1 : 0), analytics.getLargestGroup(), "Largest group for seed " + seed);
+            for (int color = 1; color < 6; color++) {
+                assertEquals(counts[color], analytics.getTiles(color), "Tiles of color " + color + " for seed " + seed);
+                for (int size = 2; size <= rows * cols; size++) {
+                    assertEquals(histogram[color][size], analytics.getGroupCount(color, size),
+                            "Groups of color " + color + " and size " + size + " for seed " + seed);
+                }
+            }
+        }
+
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        BoardAnalytics fromModel = sgm.analyze(new BoardAnalytics());
+        CompactBoard board = sgm.getBoard().toCompactBoard();
+        analytics.analyze(board);
+        assertEquals(analytics.getGroupCount(), fromModel.getGroupCount());
+        assertEquals(analytics.getPotentialScore(), fromModel.getPotentialScore());
+        assertEquals(board.groupSize(sgm.getNextBestMove()[0], sgm.getNextBestMove()[1]), fromModel.getLargestGroup());
+    }
+}
@@ -0,0 +1,169 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.GameSnapshot;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.view.BoardPanel;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code BoardPanelTest} class tests that the {@link BoardPanel} paints every pixel in the color of the cell
+ * {@link BoardPanel#cellAt(int, int, int)} maps it to, with sprites and with the level of detail painting.
+ */
+public class BoardPanelTest {
+    private static final Color[] COLORS = {Color.red, Color.yellow, Color.blue};
+
+    /**
+     * Tests the sprites of large cells, sampled in the middle of every cell, and a removed cell.
+     */
+    @Test
+    void testSpritePainting() {
+        CompactBoard board = stripes(6, 9);
+        board.set(5, 8, CompactBoard.EMPTY);
+        BoardPanel panel = new BoardPanel();
+        panel.setSnapshot(GameSnapshot.of(board, COLORS, 0));
+        BufferedImage image = paint(panel, 451, 301, new Rectangle(0, 0, 451, 301));
+
+        for (int col = 0; col < 9; col++) {
+            for (int row = 0; row < 6; row++) {
+                int x = (BoardPanel.cellStart(col, 451, 9) + BoardPanel.cellStart(col + 1, 451, 9)) / 2;
+                int y = (BoardPanel.cellStart(row, 301, 6) + BoardPanel.cellStart(row + 1, 301, 6)) / 2;
+                Color expected = board.get(row, col) == CompactBoard.EMPTY ? Color.white : COLORS[board.get(row, col) - 1];
+                assertEquals(expected.getRGB(), image.getRGB(x, y), "Cell " + row + "," + col);
+            }
+        }
+        assertEquals(Color.black.getRGB(), image.getRGB(0, 0), "Tiles shall have a border");
+    }
+
+    /**
+     * Tests the level of detail painting of a board with more cells than pixels, clipped to a section of the panel.
+     */
+    @Test
+    void testPixelPaintingOfClip() {
+        CompactBoard board = stripes(2000, 3000);
+        BoardPanel panel = new BoardPanel();
+        panel.setSnapshot(GameSnapshot.of(board, COLORS, 0));
+        Rectangle clip = new Rectangle(100, 50, 200, 100);
+        BufferedImage image = paint(panel, 700, 500, clip);
+
+        for (int y = clip.y; y < clip.y + clip.height; y++) {
+            for (int x = clip.x; x < clip.x + clip.width; x++) {
+                int cell = board.get(BoardPanel.cellAt(y, 500, 2000), BoardPanel.cellAt(x, 700, 3000));
+                assertEquals(COLORS[cell - 1].getRGB(), image.getRGB(x, y), "Pixel " + x + "," + y);
+            }
+        }
+        assertEquals(0, image.getRGB(0, 0), "Pixels outside the clip shall not be painted");
+    }
+
+    /**
+     * Tests that the board surface, which only paints the changed columns again after a move,
+     * shows the same pixels as a new panel painting the whole board.
+     */
+    @Test
+    void testIncrementalSurfaceUpdate() {
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        BoardPanel panel = new BoardPanel();
+        panel.setAnimated(false);
+        panel.setSnapshot(GameSnapshot.of(sgm, 0, 0));
+        paint(panel, 451, 301, new Rectangle(0, 0, 451, 301));
+
+        for (int version = 1; !sgm.getGameOver(); version++) {
+            int[] move = sgm.getNextBestMove();
+            sgm.processGameInteraction(move[0], move[1]);
+            GameSnapshot snapshot = GameSnapshot.of(sgm, version, 0);
+            panel.setSnapshot(snapshot);
+            BufferedImage updated = paint(panel, 451, 301, new Rectangle(0, 0, 451, 301));
+            BoardPanel fresh = new BoardPanel();
+            fresh.setSnapshot(snapshot);
+            BufferedImage expected = paint(fresh, 451, 301, new Rectangle(0, 0, 451, 301));
+            for (int y = 0; y < 301; y++) {
+                for (int x = 0; x < 451; x++) {
+                    assertEquals(expected.getRGB(x, y), updated.getRGB(x, y), "Pixel " + x + "," + y + " of version " + version);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests the animation of a move: the first frame shows the tiles before the move without the removed group,
+     * the frame after the animation shows the new board, and then the animation stops.
+     */
+    @Test
+    void testMoveAnimation() {
+        long[] now = {0};
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        BoardPanel panel = new BoardPanel(() -> now[0]);
+        GameSnapshot before = GameSnapshot.of(sgm, 0, 0);
+        panel.setSnapshot(before);
+        assertFalse(panel.isAnimating(), "The first snapshot shall not be animated");
+
+        int[] move = sgm.getNextBestMove();
+        CompactBoard removed = new CompactBoard(6, 9);
+        for (int col = 0; col < 9; col++) {
+            for (int row = 0; row < 6; row++) {
+                removed.set(row, col, before.getCell(row, col));
+            }
+        }
+        removeGroup(removed, move[0], move[1], removed.get(move[0], move[1]));
+        sgm.processGameInteraction(move[0], move[1]);
+        GameSnapshot after = GameSnapshot.of(sgm, 1, 0);
+        panel.setSnapshot(after);
+        assertTrue(panel.isAnimating(), "A move shall be animated");
+
+        assertSamePixels(fresh(GameSnapshot.of(removed, before.getPalette(), 0)), paint(panel, 451, 301,
+                new Rectangle(0, 0, 451, 301)), "first frame");
+        now[0] = 1_000_000_000;
+        assertSamePixels(fresh(after), paint(panel, 451, 301, new Rectangle(0, 0, 451, 301)), "last frame");
+        panel.setAnimated(false);
+        assertFalse(panel.isAnimating(), "The animation shall stop");
+    }
+
+    private static void removeGroup(CompactBoard board, int row, int col, int color) {
+        if (row < 0 || row >= board.getRows() || col < 0 || col >= board.getCols() || board.get(row, col) != color) return;
+        board.set(row, col, CompactBoard.EMPTY);
+        removeGroup(board, row + 1, col, color);
+        removeGroup(board, row - 1, col, color);
+        removeGroup(board, row, col + 1, color);
+        removeGroup(board, row, col - 1, color);
+    }
+
+    private static BufferedImage fresh(GameSnapshot snapshot) {
+        BoardPanel panel = new BoardPanel();
+        panel.setSnapshot(snapshot);
+        return paint(panel, 451, 301, new Rectangle(0, 0, 451, 301));
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String frame) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Pixel " + x + "," + y + " of the " + frame);
+            }
+        }
+    }
+
+    private static CompactBoard stripes(int rows, int cols) {
+        CompactBoard board = new CompactBoard(rows, cols);
+        for (int col = 0; col < cols; col++) {
+            for (int row = 0; row < rows; row++) {
+                board.set(row, col, (row + 2 * col) % COLORS.length + 1);
+            }
+        }
+        return board;
+    }
+
+    private static BufferedImage paint(BoardPanel panel, int width, int height, Rectangle clip) {
+        panel.setSize(width, height);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(clip);
+        panel.paint(g);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,110 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.BoardPool;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code BoardPoolTest} class contains tests for the {@link BoardPool}.
+ * Games are played simultaneously on a {@link SameGameModel} and on a pooled position,
+ * both have to stay identical after every move.
+ */
+public class BoardPoolTest {
+
+    /**
+     * Tests that moves on a handle behave exactly like moves on the model.
+     */
+    @Test
+    void testMovesMatchModel() {
+        BoardPool pool = new BoardPool(6, 9, 4);
+        Random rTest = new Random(408);
+        for (long seed = 0; seed < 20; seed++) {
+            SameGameModel sgm = new SameGameModel(6, 9, Difficulty.HARD, seed);
+            int handle = pool.allocate();
+            List<Color> palette = new ArrayList<>();
+            pool.store(handle, CompactBoard.fromTiles(sgm.getTiles(), palette), 0);
+            CompactBoard loaded = new CompactBoard(6, 9);
+
+            while (!sgm.getGameOver()) {
+                int row = rTest.nextInt(6);
+                int col = rTest.nextInt(9);
+                sgm.processGameInteraction(row, col);
+                pool.removeGroup(handle, row, col);
+
+                pool.load(handle, loaded);
+                assertEquals(CompactBoard.fromTiles(sgm.getTiles(), palette), loaded, "Board shall match the model, seed " + seed);
+                assertEquals(sgm.getPoints(), pool.getPoints(handle), "Score shall match the model, seed " + seed);
+                assertEquals(sgm.checkGameOver(), pool.isGameOver(handle), "Game over shall match the model, seed " + seed);
+            }
+            pool.free(handle);
+        }
+        assertEquals(0, pool.size(), "All handles shall be freed");
+    }
+
+    /**
+     * Tests handle reuse, copying and the capacity limit.
+     */
+    @Test
+    void testAllocateCopyFree() {
+        BoardPool pool = new BoardPool(3, 3, 2);
+        int a = pool.allocate();
+        int b = pool.allocate();
+        assertThrows(IllegalStateException.class, pool::allocate, "Pool shall be full");
+
+        CompactBoard board = new CompactBoard(3, 3);
+        board.set(2, 0, 1);
+        board.set(2, 1, 1);
+        pool.store(a, board, 42);
+        pool.copy(a, b);
+        assertEquals(42, pool.getPoints(b));
+        assertEquals(2, pool.removeGroup(b, 2, 0));
+        assertTrue(pool.isGameOver(b));
+        assertEquals(1, pool.get(a, 2, 1), "Source slot shall be untouched by moves on the copy");
+
+        pool.free(a);
+        assertEquals(a, pool.allocate(), "Freed handle shall be reused");
+        assertEquals(0, pool.get(a, 2, 0), "Reused slot shall be cleared");
+    }
+
+    /**
+     * Tests that a color beyond the 4 bits of a cell, a double free and every use of a freed handle
+     * are rejected instead of corrupting the pool.
+     */
+    @Test
+    void testRejectsInvalidUse() {
+        BoardPool pool = new BoardPool(2, 2, 4);
+        int a = pool.allocate();
+        int b = pool.allocate();
+        CompactBoard board = new CompactBoard(2, 2);
+        board.set(1, 0, BoardPool.MAX_COLOR);
+        board.set(1, 1, BoardPool.MAX_COLOR + 1);
+        assertThrows(IllegalArgumentException.class, () -> pool.store(a, board, 0));
+        assertEquals(0, pool.get(a, 1, 0), "Rejected position shall not be stored");
+
+        pool.free(a);
+        assertThrows(IllegalArgumentException.class, () -> pool.free(a), "Double free shall be rejected");
+        assertThrows(IllegalArgumentException.class, () -> pool.free(3), "Unused handle shall be rejected");
+        CompactBoard target = new CompactBoard(2, 2);
+        assertThrows(IllegalArgumentException.class, () -> pool.get(a, 0, 0), "Freed handle shall not be read");
+        assertThrows(IllegalArgumentException.class, () -> pool.getPoints(a));
+        assertThrows(IllegalArgumentException.class, () -> pool.load(a, target));
+        assertThrows(IllegalArgumentException.class, () -> pool.store(a, target, 0), "Freed handle shall not be written");
+        assertThrows(IllegalArgumentException.class, () -> pool.copy(a, b));
+        assertThrows(IllegalArgumentException.class, () -> pool.copy(b, a));
+        assertThrows(IllegalArgumentException.class, () -> pool.removeGroup(a, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> pool.isGameOver(a));
+        assertEquals(1, pool.size());
+        assertEquals(a, pool.allocate());
+        assertNotEquals(a, pool.allocate(), "Freed handle shall be handed out once");
+        pool.free(b);
+    }
+}
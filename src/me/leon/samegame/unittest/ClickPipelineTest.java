@@ -0,0 +1,57 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.controller.ClickPipeline;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.GameSnapshot;
+import me.leon.samegame.model.SameGameModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code ClickPipelineTest} class tests the {@link ClickPipeline} with the seeded test game of {@link SameGameModelTest}.
+ */
+public class ClickPipelineTest {
+
+    /**
+     * Tests that a click is applied on the model thread and published as snapshot,
+     * and that a following click on the removed tile is dropped without a snapshot: the next snapshot already
+     * shows the valid click queued behind it.
+     */
+    @Test
+    void testClickIsPublishedAndRemovedTileDropped() throws InterruptedException {
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        BlockingQueue<GameSnapshot> published = new LinkedBlockingQueue<>();
+        ClickPipeline pipeline = new ClickPipeline(sgm, published::add);
+
+        pipeline.enqueue(3, 7);
+        GameSnapshot snapshot = published.poll(5, TimeUnit.SECONDS);
+        assertNotNull(snapshot, "Snapshot shall be published after a valid click");
+        assertEquals(30, snapshot.getPoints(), "Score shall be 30 for this move");
+        assertNull(snapshot.getColor(0, 7), "Top tile of the collapsed column shall be removed in the snapshot");
+        assertEquals(1, pipeline.getProcessedClicks());
+        long firstPoints = snapshot.getPoints();
+
+        CompactBoard board = CompactBoard.random(6, 9, Difficulty.MEDIUM, 408);
+        board.removeGroup(3, 7);
+        int next = 0;
+        while (board.get(next % 6, next / 6) == CompactBoard.EMPTY || board.groupSize(next % 6, next / 6) < 2) next++;
+        long expected = firstPoints + CompactBoard.pointsForGroup(board.groupSize(next % 6, next / 6));
+
+        pipeline.enqueue(0, 7);
+        pipeline.enqueue(next % 6, next / 6);
+        snapshot = published.poll(5, TimeUnit.SECONDS);
+        assertNotNull(snapshot, "Snapshot shall be published after the valid click");
+        assertEquals(expected, snapshot.getPoints(),
+                "Click on a removed tile shall not publish a snapshot, so the next snapshot shows the valid click");
+        assertEquals(1, pipeline.getDroppedClicks());
+        assertEquals(2, pipeline.getProcessedClicks());
+        assertTrue(pipeline.getMaxLatencyNanos() > 0, "Latency shall be measured");
+        pipeline.stop();
+    }
+}
@@ -0,0 +1,84 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.fuzz.CompactBoardEngine;
+import me.leon.samegame.fuzz.DifferentialFuzzer;
+import me.leon.samegame.fuzz.Divergence;
+import me.leon.samegame.fuzz.FuzzReport;
+import me.leon.samegame.fuzz.ModelEngine;
+import me.leon.samegame.fuzz.ReferenceModel;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.util.SoundManager;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code DifferentialFuzzerTest} class fuzzes the engines of the game against the {@link ReferenceModel}
+ * and checks that a broken engine is caught and shrunk to a minimal replay.
+ */
+public class DifferentialFuzzerTest {
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Tests that the model follows the reference in every game.
+     */
+    @Test
+    void testModelMatchesReference() {
+        SoundManager.setEnabled(false);
+        FuzzReport report = new DifferentialFuzzer(ModelEngine::new, THREADS).run(0, 10_000);
+        assertNull(report.getDivergence(), () -> report.getDivergence().toString());
+        assertEquals(10_000, report.getGames());
+    }
+
+    /**
+     * Tests that the compact board follows the reference in every game.
+     */
+    @Test
+    void testCompactBoardMatchesReference() {
+        FuzzReport report = new DifferentialFuzzer(CompactBoardEngine::new, THREADS).run(0, 10_000);
+        assertNull(report.getDivergence(), () -> report.getDivergence().toString());
+    }
+
+    /**
+     * Tests that an engine with a wrong score is shrunk to a single click on a pair.
+     */
+    @Test
+    void testDivergenceIsShrunk() {
+        FuzzReport report = new DifferentialFuzzer(SquareScoreEngine::new, THREADS).run(0, 1000);
+        Divergence divergence = report.getDivergence();
+        assertNotNull(divergence, "Wrong scores shall be found");
+        assertEquals(1, divergence.getMoves().length, divergence::toString);
+        CompactBoard start = divergence.getStart();
+        assertEquals(2, start.getRows() * start.getCols(), divergence::toString);
+        assertTrue(divergence.getDifference().startsWith("points"), divergence::toString);
+    }
+
+    /**
+     * An engine scoring {@code n * n} points for a group of {@code n} tiles.
+     */
+    private static class SquareScoreEngine extends CompactBoardEngine {
+        private long points;
+
+        @Override
+        public void reset(CompactBoard start) {
+            super.reset(start);
+            points = 0;
+        }
+
+        @Override
+        public void play(int row, int col) {
+            long before = super.getPoints();
+            super.play(row, col);
+            if (super.getPoints() != before) {
+                int size = 1;
+                while (CompactBoard.pointsForGroup(size) != super.getPoints() - before) size++;
+                points += (long) size * size;
+            }
+        }
+
+        @Override
+        public long getPoints() {
+            return points;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.solver.EndgameSolver;
+import me.leon.samegame.solver.ExactSolver;
+import me.leon.samegame.solver.Solution;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code EndgameSolverTest} class tests the exact endgame hints of the {@link SameGameModel}
+ * with the {@link EndgameSolver}, and the time box of the {@link ExactSolver}.
+ */
+public class EndgameSolverTest {
+    private static final long NO_LIMIT = 60_000_000_000L;
+
+    /**
+     * Tests that the hints turn proven at the tile threshold and following them reaches the optimal score from there.
+     */
+    @Test
+    void testProvenHintsAreOptimal() {
+        for (long seed = 0; seed < 10; seed++) {
+            SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, seed);
+            sgm.setEndgameSolver(new EndgameSolver(30, Integer.MAX_VALUE, NO_LIMIT));
+            long expected = -1;
+            while (!sgm.getGameOver()) {
+                CompactBoard board = sgm.getBoard().toCompactBoard();
+                int tiles = board.countColors(new int[Difficulty.MEDIUM + 1]);
+                assertEquals(tiles <= 30, sgm.isNextBestMoveProven(), "Hints shall be proven at 30 tiles, seed " + seed);
+                if (sgm.isNextBestMoveProven() && expected < 0) {
+                    expected = sgm.getPoints() + new ExactSolver(6, 9).solve(board).getScore();
+                }
+                int[] move = sgm.getNextBestMove();
+                sgm.processGameInteraction(move[0], move[1]);
+            }
+            assertFalse(sgm.isNextBestMoveProven(), "A finished game has no proven move");
+            if (expected >= 0) assertEquals(expected, sgm.getPoints(), "Proven hints shall reach the optimum, seed " + seed);
+        }
+    }
+
+    /**
+     * Tests that a position is an endgame only if both the tile and the group threshold are met.
+     */
+    @Test
+    void testGroupThreshold() {
+        CompactBoard board = new CompactBoard(2, 4);
+        board.set(0, 0, 1);
+        board.set(1, 0, 1);
+        board.set(0, 1, 2);
+        board.set(1, 1, 2);
+        board.set(0, 2, 1);
+        board.set(1, 2, 2);
+        board.set(0, 3, 1);
+        board.set(1, 3, 1);
+        assertTrue(new EndgameSolver(8, 3, NO_LIMIT).isEndgame(board));
+        assertFalse(new EndgameSolver(8, 2, NO_LIMIT).isEndgame(board));
+        assertFalse(new EndgameSolver(7, 3, NO_LIMIT).isEndgame(board));
+    }
+
+    /**
+     * Tests that a search exceeding its budget is not proven and the model falls back to the heuristic hint.
+     */
+    @Test
+    void testExceededBudgetFallsBackToHeuristic() {
+        Solution solution = new ExactSolver(12, 12).solve(CompactBoard.random(12, 12, 4, 408), 1);
+        assertFalse(solution.isProven(), "Aborted search shall not be proven");
+        assertTrue(solution.getMoves().isEmpty(), "Aborted search shall have no moves");
+
+        SameGameModel heuristic = new SameGameModel(12, 12, Difficulty.HARD, 408);
+        heuristic.setEndgameSolver(null);
+        SameGameModel timeBoxed = new SameGameModel(12, 12, Difficulty.HARD, 408);
+        timeBoxed.setEndgameSolver(new EndgameSolver(1000, 1000, 1));
+        assertFalse(timeBoxed.isNextBestMoveProven(), "Hint shall not be proven when the budget is exceeded");
+        assertArrayEquals(heuristic.getNextBestMove(), timeBoxed.getNextBestMove(), "Hint shall fall back to the heuristic");
+    }
+}
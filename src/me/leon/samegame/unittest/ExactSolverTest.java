@@ -0,0 +1,68 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.solver.ExactSolver;
+import me.leon.samegame.solver.Solution;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code ExactSolverTest} class contains tests for the {@link ExactSolver}.
+ * The solver's move sequence is replayed on a real {@link SameGameModel}, so the claimed score
+ * has to match the scoring of the game.
+ */
+public class ExactSolverTest {
+
+    /**
+     * Tests that the solution replays to its score on the model and ends the game.
+     */
+    @Test
+    void testSolutionReplaysOnModel() {
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        Solution solution = new ExactSolver(6, 9).solve(sgm);
+
+        for (int[] move : solution.getMoves()) {
+            assertFalse(sgm.getGameOver(), "Game shall not be over before the last move");
+            sgm.processGameInteraction(move[0], move[1]);
+        }
+        assertTrue(sgm.getGameOver(), "Game shall be over after the solution");
+        assertEquals(solution.getScore(), sgm.getPoints(), "Replayed score shall match the solution");
+    }
+
+    /**
+     * Tests that the optimal score is at least as good as always playing the suggested next best move.
+     */
+    @Test
+    void testSolutionBeatsGreedy() {
+        for (long seed = 0; seed < 10; seed++) {
+            SameGameModel greedy = new SameGameModel(5, 5, Difficulty.EASY, seed);
+            long optimal = new ExactSolver(5, 5).solve(greedy).getScore();
+            while (!greedy.getGameOver()) {
+                int[] move = greedy.getNextBestMove();
+                greedy.processGameInteraction(move[0], move[1]);
+            }
+            assertTrue(optimal >= greedy.getPoints(), "Optimal score shall never be below the greedy score, seed " + seed);
+        }
+    }
+
+    /**
+     * Tests a hand-made board where the greedy choice is not optimal:
+     * removing the blue pair first joins both red pairs into one group of 4.
+     */
+    @Test
+    void testSolutionFindsCombination() {
+        CompactBoard board = new CompactBoard(3, 2);
+        board.set(0, 0, 1);
+        board.set(0, 1, 1);
+        board.set(1, 0, 2);
+        board.set(1, 1, 2);
+        board.set(2, 0, 1);
+        board.set(2, 1, 1);
+        Solution solution = new ExactSolver(3, 2).solve(board);
+        assertEquals(16, solution.getScore(), "Blue pair (2) and then all reds (14) shall be found");
+        assertEquals(2, solution.getMoves().size());
+    }
+}
@@ -0,0 +1,85 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.review.GameReview;
+import me.leon.samegame.review.MoveReview;
+import me.leon.samegame.solver.ExactSolver;
+import me.leon.samegame.solver.Solution;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code GameReviewTest} class tests the {@link GameReview} of recorded games against the {@link ExactSolver}.
+ */
+public class GameReviewTest {
+
+    /**
+     * Tests the review of a game played with the largest group hints: every move is streamed once,
+     * the values are exact and consistent with the optimal score and the points of the game.
+     */
+    @Test
+    void testReviewOfHintGame() {
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        List<int[]> moves = new ArrayList<>();
+        while (!sgm.getGameOver()) {
+            int[] move = sgm.getNextBestMove();
+            moves.add(move.clone());
+            sgm.processGameInteraction(move[0], move[1]);
+        }
+
+        List<MoveReview> streamed = new ArrayList<>();
+        List<MoveReview> reviews = new GameReview(2, 60_000).review(6, 9, Difficulty.MEDIUM, 408, moves, streamed::add);
+        assertEquals(moves.size(), reviews.size());
+        assertEquals(moves.size(), streamed.size(), "Every review shall be streamed once");
+        long optimum = new ExactSolver(6, 9).solve(new SameGameModel(6, 9, Difficulty.MEDIUM, 408)).getScore();
+        assertEquals(optimum, reviews.get(0).getBestValue(), "Best value of the first move shall be the optimum");
+
+        long lost = 0;
+        for (int i = 0; i < reviews.size(); i++) {
+            MoveReview review = reviews.get(i);
+            assertEquals(i, review.getMoveNumber());
+            assertTrue(streamed.contains(review));
+            assertTrue(review.isProven(), "Small boards shall be solved exactly");
+            assertArrayEquals(moves.get(i), new int[]{review.getPlayedRow(), review.getPlayedCol()});
+            assertTrue(review.getBestValue() >= review.getPlayedValue());
+            assertEquals(review.getPointsLost() == 0, review.getClassification() == MoveReview.Classification.BEST);
+            if (i > 0) {
+                // the played value of the previous move is its points plus the best value of this position
+                assertTrue(reviews.get(i - 1).getPlayedValue() > review.getBestValue());
+            }
+            lost += review.getPointsLost();
+        }
+        assertTrue(optimum - sgm.getPoints() <= lost, "Points lost shall explain the distance to the optimum");
+    }
+
+    /**
+     * Tests that the optimal solution is reviewed as best moves only.
+     */
+    @Test
+    void testOptimalGameHasOnlyBestMoves() {
+        SameGameModel sgm = new SameGameModel(5, 6, Difficulty.MEDIUM, 7);
+        Solution solution = new ExactSolver(5, 6).solve(sgm);
+        for (MoveReview review : new GameReview(1, 60_000).review(5, 6, Difficulty.MEDIUM, 7, solution.getMoves(), r -> { })) {
+            assertEquals(MoveReview.Classification.BEST, review.getClassification(), review.toString());
+        }
+    }
+
+    /**
+     * Tests that a move which removes no group is rejected.
+     */
+    @Test
+    void testInvalidMoveIsRejected() {
+        CompactBoard board = new SameGameModel(6, 9, Difficulty.MEDIUM, 408).getBoard().toCompactBoard();
+        int single = 0;
+        while (board.groupSize(single % 6, single / 6) != 1) single++;
+        List<int[]> moves = List.of(new int[]{single % 6, single / 6});
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameReview(1, 1000).review(6, 9, Difficulty.MEDIUM, 408, moves, r -> { }));
+    }
+}
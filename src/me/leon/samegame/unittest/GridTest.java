@@ -0,0 +1,157 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.game2048.Game2048;
+import me.leon.samegame.grid.Direction;
+import me.leon.samegame.grid.Grid;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.util.SuggestionCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code GridTest} class contains tests for the {@link Grid} kernel and its two clients,
+ * {@link CompactBoard} for SameGame and {@link Game2048}.
+ */
+public class GridTest {
+
+    /**
+     * Tests that the incremental Zobrist hash matches a grid built from scratch, and that undo restores cells and hash.
+     */
+    @Test
+    void testHashAndUndo() {
+        SameGameModel sgm = new SameGameModel(8, 8, Difficulty.EASY, 408);
+        CompactBoard board = CompactBoard.fromTiles(sgm.getTiles());
+        CompactBoard start = board.copy();
+        board.setJournaling(true);
+        int mark = board.mark();
+
+        Random rTest = new Random(408);
+        while (!board.isGameOver()) {
+            board.removeGroup(rTest.nextInt(8), rTest.nextInt(8));
+            CompactBoard rebuilt = new CompactBoard(8, 8);
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    rebuilt.set(row, col, board.get(row, col));
+                }
+            }
+            assertEquals(rebuilt.hash64(), board.hash64(), "Incremental hash shall match the rebuilt grid");
+        }
+        board.undo(mark);
+        assertEquals(start, board, "Undo shall restore the start position");
+        assertEquals(start.hash64(), board.hash64(), "Undo shall restore the hash");
+    }
+
+    /**
+     * Tests gravity in all four directions on a small grid.
+     */
+    @Test
+    void testGravity() {
+        Grid grid = new Grid(3, 3);
+        grid.set(0, 0, 1);
+        grid.set(1, 1, 2);
+        grid.gravity(Direction.DOWN);
+        assertEquals(1, grid.get(2, 0));
+        assertEquals(2, grid.get(2, 1));
+        grid.gravity(Direction.RIGHT);
+        assertEquals(1, grid.get(2, 1));
+        assertEquals(2, grid.get(2, 2));
+        grid.gravity(Direction.UP);
+        assertEquals(1, grid.get(0, 1));
+        grid.gravity(Direction.LEFT);
+        assertEquals(1, grid.get(0, 0));
+        assertEquals(2, grid.get(0, 1));
+    }
+
+    /**
+     * Tests that a flood fill skipping visited cells also works before the first {@link Grid#beginVisit()}.
+     */
+    @Test
+    void testFloodFillVisitedWithoutBeginVisit() {
+        Grid grid = new Grid(2, 2);
+        grid.set(0, 0, 1);
+        grid.set(1, 0, 1);
+        grid.set(0, 1, 2);
+        assertEquals(2, grid.floodFillVisited(0, null));
+        assertTrue(grid.isVisited(1));
+        assertEquals(0, grid.floodFillVisited(1, null), "Visited cell shall be skipped");
+        assertEquals(1, grid.floodFillVisited(2, null));
+    }
+
+    /**
+     * Tests 2048 merging rules and undo of a move.
+     */
+    @Test
+    void testGame2048() {
+        Game2048 game = new Game2048(4, 408);
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                game.set(row, col, Grid.EMPTY);
+            }
+        }
+        game.set(0, 0, 1);
+        game.set(0, 1, 1);
+        game.set(0, 2, 1);
+        game.set(0, 3, 1);
+        long before = game.hash64();
+
+        assertEquals(8, game.move(Direction.LEFT), "2+2 and 2+2 shall merge into two 4s");
+        assertEquals(4, game.getNumber(0, 0));
+        assertEquals(4, game.getNumber(0, 1));
+        assertEquals(0, game.getNumber(0, 2));
+
+        assertTrue(game.undo());
+        assertEquals(before, game.hash64(), "Undo shall restore the grid before the move");
+        assertEquals(0, game.getPoints());
+        assertEquals(2, game.getNumber(0, 3));
+    }
+
+    /**
+     * Tests that color permutations of a position have the same canonical hash, form and cache key along a game,
+     * with the incremental hashes matching a board built from scratch, also after undo.
+     */
+    @Test
+    void testCanonicalForm() {
+        Random rTest = new Random(408);
+        for (long seed = 0; seed < 50; seed++) {
+            CompactBoard board = CompactBoard.random(7, 6, Difficulty.HARD, seed);
+            int[] permutation = {0, 3, 5, 1, 2, 4};
+            CompactBoard permuted = new CompactBoard(7, 6);
+            for (int i = 0; i < 7 * 6; i++) {
+                permuted.setAt(i, permutation[board.getAt(i)]);
+            }
+            long startHash = board.canonicalHash64();
+            board.setJournaling(true);
+            int mark = board.mark();
+            while (!board.isGameOver()) {
+                assertEquals(board.canonicalHash64(), permuted.canonicalHash64(), "Permutation shall not change the hash");
+                assertEquals(board.canonical(), permuted.canonical(), "Permutation shall not change the canonical form");
+                assertEquals(SuggestionCache.Key.of(board), SuggestionCache.Key.of(permuted));
+                CompactBoard rebuilt = new CompactBoard(7, 6);
+                for (int i = 0; i < 7 * 6; i++) {
+                    rebuilt.setAt(i, board.getAt(i));
+                }
+                assertEquals(board.canonicalHash64(), rebuilt.canonicalHash64(), "Incremental hash shall match a rebuilt board");
+                int row = rTest.nextInt(7);
+                int col = rTest.nextInt(6);
+                board.removeGroup(row, col);
+                permuted.removeGroup(row, col);
+            }
+            board.undo(mark);
+            assertEquals(startHash, board.canonicalHash64(), "Undo shall restore the canonical hash");
+        }
+        CompactBoard red = new CompactBoard(1, 3);
+        red.set(0, 0, 1);
+        red.set(0, 1, 1);
+        red.set(0, 2, 2);
+        CompactBoard blue = new CompactBoard(1, 3);
+        blue.set(0, 0, 1);
+        blue.set(0, 1, 2);
+        blue.set(0, 2, 2);
+        assertNotEquals(red.canonicalHash64(), blue.canonicalHash64(), "Different positions shall have different hashes");
+    }
+}
@@ -0,0 +1,105 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.util.HighscoreManager;
+import me.leon.samegame.util.HighscoreStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code HighscoreStoreTest} class tests the write-behind persistence of {@link HighscoreStore}.
+ */
+public class HighscoreStoreTest {
+    @TempDir
+    File directory;
+
+    /**
+     * Tests that scores are returned from memory at once and are on the disk after closing.
+     */
+    @Test
+    void testScoresSurviveClose() {
+        File file = new File(directory, "highscores.dat");
+        HighscoreStore store = new HighscoreStore(file, 60_000);
+        List<Long> scores = store.addScore(1000);
+        assertTrue(scores.contains(1000L), "Added score shall be returned right away");
+        store.addScore(2000);
+        store.close();
+
+        List<Long> saved = HighscoreManager.loadHighscores(file.getPath()).getHighscores();
+        assertEquals(List.of(408L, 1000L, 2000L), saved);
+        assertFalse(new File(directory, "highscores.dat.tmp").exists(), "Temporary file shall be moved");
+
+        HighscoreStore reopened = new HighscoreStore(file, 60_000);
+        reopened.addScore(3000);
+        reopened.close();
+        assertEquals(List.of(408L, 1000L, 2000L, 3000L), reopened.getHighscores());
+        assertEquals(List.of(408L, 1000L, 2000L, 3000L), HighscoreManager.loadHighscores(file.getPath()).getHighscores());
+    }
+
+    /**
+     * Tests that the first score added right after creating the store is returned with the scores of the file.
+     */
+    @Test
+    void testFirstScoreIncludesFile() throws IOException {
+        File file = new File(directory, "highscores.dat");
+        HighscoreManager.mergeHighscores(file, List.of(111L, 222L, 333L));
+        for (int run = 0; run < 3; run++) {
+            HighscoreStore store = new HighscoreStore(file, 1000);
+            List<Long> scores = store.addScore(999);
+            assertTrue(scores.containsAll(List.of(408L, 111L, 222L, 333L, 999L)),
+                    "First score shall be shown with the scores of the file, but got " + scores);
+            store.close();
+        }
+    }
+
+    /**
+     * Tests that many scores within one flush interval are written in a single batch.
+     */
+    @Test
+    void testScoresAreBatched() {
+        File file = new File(directory, "highscores.dat");
+        HighscoreStore store = new HighscoreStore(file, 60_000);
+        for (long score = 1; score <= 100; score++) {
+            store.addScore(score);
+        }
+        store.close();
+        assertTrue(store.getFlushes() <= 2, "Scores shall be written in batches, but got " + store.getFlushes() + " writes");
+        assertEquals(101, HighscoreManager.loadHighscores(file.getPath()).getHighscores().size());
+    }
+
+    /**
+     * Tests that stores of several game instances sharing one file do not lose each other's scores.
+     */
+    @Test
+    void testSharedFileKeepsAllScores() throws InterruptedException {
+        File file = new File(directory, "highscores.dat");
+        Thread[] instances = new Thread[8];
+        for (int i = 0; i < instances.length; i++) {
+            long first = i * 1000L;
+            instances[i] = new Thread(() -> {
+                HighscoreStore store = new HighscoreStore(file, 0);
+                for (long score = first; score < first + 25; score++) {
+                    store.addScore(score);
+                    Thread.yield();
+                }
+                store.close();
+            });
+            instances[i].start();
+        }
+        for (Thread instance : instances) {
+            instance.join();
+        }
+        List<Long> saved = HighscoreManager.loadHighscores(file.getPath()).getHighscores();
+        assertEquals(1 + 8 * 25, saved.size());
+        for (long i = 0; i < 8; i++) {
+            for (long score = i * 1000; score < i * 1000 + 25; score++) {
+                assertTrue(saved.contains(score), "Score " + score + " shall not be lost");
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.BoardAnalytics;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.MoveCandidates;
+import me.leon.samegame.model.SameGameModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code MoveCandidatesTest} class tests the ranked moves of {@link SameGameModel#rankMoves(MoveCandidates)}
+ * and {@link MoveCandidates#rank(CompactBoard)} throughout seeded games.
+ */
+public class MoveCandidatesTest {
+
+    /**
+     * Tests that all candidates are the groups of the position, ranked by size, and that the best one is the hint.
+     */
+    @Test
+    void testRankingMatchesGroups() {
+        MoveCandidates all = new MoveCandidates(6 * 9 / 2, false);
+        MoveCandidates top3 = new MoveCandidates(3, false);
+        MoveCandidates fromBoard = new MoveCandidates(6 * 9 / 2, false);
+        int[] representatives = new int[6 * 9];
+        int[] sizes = new int[6 * 9];
+        for (long seed = 0; seed < 30; seed++) {
+            SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, seed);
+            while (!sgm.getGameOver()) {
+                sgm.rankMoves(all);
+                CompactBoard board = sgm.getBoard().toCompactBoard();
+                int groups = board.findGroups(representatives, sizes);
+                int[] expected = Arrays.copyOf(sizes, groups);
+                Arrays.sort(expected);
+                assertEquals(groups, all.size(), "All groups shall be candidates for seed " + seed);
+                for (int rank = 0; rank < groups; rank++) {
+                    assertEquals(expected[groups - 1 - rank], all.getSize(rank), "Size of rank " + rank + " for seed " + seed);
+                    assertEquals(all.getSize(rank), board.groupSize(all.getRow(rank), all.getCol(rank)));
+                    assertEquals(CompactBoard.pointsForGroup(all.getSize(rank)), all.getScore(rank));
+                    assertEquals(MoveCandidates.NO_LOOKAHEAD, all.getLookahead(rank));
+                }
+                assertArrayEquals(sgm.getNextBestMove(), new int[]{all.getRow(0), all.getCol(0)}, "Best candidate shall be the hint");
+
+                sgm.rankMoves(top3);
+                assertEquals(Math.min(3, groups), top3.size());
+                fromBoard.rank(sgm.getBoard());
+                for (int rank = 0; rank < groups; rank++) {
+                    if (rank < 3) {
+                        assertEquals(all.getRow(rank), top3.getRow(rank), "Top 3 shall be a prefix for seed " + seed);
+                        assertEquals(all.getCol(rank), top3.getCol(rank), "Top 3 shall be a prefix for seed " + seed);
+                    }
+                    assertEquals(all.getRow(rank), fromBoard.getRow(rank), "Board ranking shall match the model for seed " + seed);
+                    assertEquals(all.getCol(rank), fromBoard.getCol(rank), "Board ranking shall match the model for seed " + seed);
+                }
+                sgm.processGameInteraction(all.getRow(groups - 1), all.getCol(groups - 1));
+            }
+        }
+    }
+
+    /**
+     * Tests the lookahead values against playing each candidate on a copy of the position.
+     */
+    @Test
+    void testLookahead() {
+        MoveCandidates candidates = new MoveCandidates(10, true);
+        BoardAnalytics analytics = new BoardAnalytics();
+        SameGameModel sgm = new SameGameModel(10, 10, Difficulty.MEDIUM, 408);
+        while (!sgm.getGameOver()) {
+            CompactBoard before = sgm.getBoard().toCompactBoard();
+            sgm.rankMoves(candidates);
+            for (int rank = 0; rank < candidates.size(); rank++) {
+                CompactBoard board = before.copy();
+                int size = board.removeGroup(candidates.getRow(rank), candidates.getCol(rank));
+                int next = analytics.analyze(board).getLargestGroup();
+                long expected = CompactBoard.pointsForGroup(size) + (next >= 2 ? CompactBoard.pointsForGroup(next) : 0);
+                assertEquals(expected, candidates.getLookahead(rank), "Lookahead of rank " + rank);
+            }
+            assertEquals(before, sgm.getBoard().toCompactBoard(), "Ranking shall not change the position");
+            sgm.processGameInteraction(candidates.getRow(0), candidates.getCol(0));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.NeighborScan;
+import me.leon.samegame.model.PackedCells;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code NeighborScanTest} class tests that the packed and the scalar neighbor scans of {@link NeighborScan}
+ * always agree, on random grids with removed cells and with odd sizes that do not fill whole words.
+ * The scan of {@link PackedCells} is compared with the scalar scan for every bit width of the cells.
+ */
+public class NeighborScanTest {
+
+    /**
+     * Tests both scans against each other on random grids.
+     */
+    @Test
+    void testSwarMatchesScalar() {
+        Random rTest = new Random(408);
+        for (int i = 0; i < 5000; i++) {
+            int rows = 1 + rTest.nextInt(40);
+            int cols = 1 + rTest.nextInt(40);
+            int colors = 2 + rTest.nextInt(20);
+            byte[] cells = new byte[rows * cols];
+            for (int j = 0; j < cells.length; j++) {
+                // mostly colors without pairs (diagonal pattern), sometimes a random cell or a removed one
+                int roll = rTest.nextInt(rows * cols);
+                if (roll == 0) cells[j] = 0;
+                else if (roll == 1) cells[j] = (byte) (1 + rTest.nextInt(colors));
+                else cells[j] = (byte) ((j % rows + j / rows) % 3 + 1);
+            }
+            assertEquals(NeighborScan.scalarHasAdjacentPair(cells, rows, cols), NeighborScan.swarHasAdjacentPair(cells, rows, cols),
+                    "Scans shall agree for grid " + i + " (" + rows + "x" + cols + ")");
+        }
+    }
+
+    /**
+     * Tests the packed scan against the scalar scan for 1 to 31 colors, i.e. 1 to 5 bits per cell.
+     */
+    @Test
+    void testPackedMatchesScalar() {
+        Random rTest = new Random(408);
+        for (int i = 0; i < 5000; i++) {
+            int rows = 1 + rTest.nextInt(40);
+            int cols = 1 + rTest.nextInt(40);
+            int colors = 1 + rTest.nextInt(31);
+            byte[] cells = new byte[rows * cols];
+            for (int j = 0; j < cells.length; j++) {
+                int roll = rTest.nextInt(rows * cols);
+                if (roll == 0) cells[j] = 0;
+                else if (roll == 1) cells[j] = (byte) (1 + rTest.nextInt(colors));
+                else cells[j] = (byte) ((j % rows + j / rows) % Math.min(3, colors) + colors + 1 - Math.min(3, colors));
+            }
+            assertEquals(NeighborScan.scalarHasAdjacentPair(cells, rows, cols),
+                    NeighborScan.hasAdjacentPair(PackedCells.of(cells, colors), rows, cols),
+                    "Scans shall agree for grid " + i + " (" + rows + "x" + cols + ", " + colors + " colors)");
+        }
+    }
+
+    /**
+     * Tests that two adjacent removed cells are no pair.
+     */
+    @Test
+    void testEmptyCellsAreNoPair() {
+        byte[] cells = new byte[64];
+        assertFalse(NeighborScan.swarHasAdjacentPair(cells, 8, 8));
+        cells[9] = 3;
+        cells[17] = 3;
+        assertTrue(NeighborScan.swarHasAdjacentPair(cells, 8, 8), "Horizontal pair shall be found");
+        cells[17] = 0;
+        cells[10] = 3;
+        assertTrue(NeighborScan.swarHasAdjacentPair(cells, 8, 8), "Vertical pair shall be found");
+    }
+}
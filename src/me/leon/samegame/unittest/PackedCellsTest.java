@@ -0,0 +1,104 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.PackedCells;
+import me.leon.samegame.model.Palette;
+import me.leon.samegame.model.SameGameModel;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code PackedCellsTest} class tests the {@link PackedCells} against a {@code byte[]} and the models
+ * with more colors than the classic palette, which store their grid packed.
+ */
+public class PackedCellsTest {
+
+    /**
+     * Tests random writes, clears and column copies of every bit width against a byte array doing the same.
+     */
+    @Test
+    void testOperationsMatchByteArray() {
+        Random rTest = new Random(408);
+        for (int maxValue = 1; maxValue <= 31; maxValue++) {
+            int length = 1 + rTest.nextInt(300);
+            PackedCells cells = new PackedCells(length, maxValue);
+            byte[] expected = new byte[length];
+            for (int i = 0; i < 2000; i++) {
+                int from = rTest.nextInt(length);
+                int to = from + rTest.nextInt(length - from + 1);
+                switch (rTest.nextInt(4)) {
+                    case 0:
+                    case 1:
+                        expected[from] = (byte) rTest.nextInt(maxValue + 1);
+                        cells.set(from, expected[from]);
+                        break;
+                    case 2:
+                        Arrays.fill(expected, from, to, (byte) 0);
+                        cells.clear(from, to);
+                        break;
+                    default:
+                        int target = rTest.nextInt(from + 1); // toward lower indices, may overlap
+                        System.arraycopy(expected, from, expected, target, to - from);
+                        cells.copy(from, target, to - from);
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                assertEquals(expected[i], cells.get(i), "Value " + i + " of " + maxValue + " colors");
+            }
+            assertEquals(PackedCells.of(expected, maxValue), cells);
+            int from = rTest.nextInt(length);
+            assertEquals(PackedCells.of(Arrays.copyOfRange(expected, from, length), maxValue), cells.copyOfRange(from, length));
+        }
+    }
+
+    /**
+     * Tests that a game with {@link Difficulty#MAX} colors deals the seeded board, is played like the compact board
+     * and needs 5 bits per cell, while the classic difficulties need 2 or 3.
+     */
+    @Test
+    void testManyColors() {
+        SameGameModel sgm = new SameGameModel(30, 30, Difficulty.MAX, 408);
+        CompactBoard board = CompactBoard.random(30, 30, Difficulty.MAX, 408);
+        List<Color> palette = new ArrayList<>(Arrays.asList(Palette.standard(Difficulty.MAX)));
+        assertEquals(board, CompactBoard.fromTiles(sgm.getTiles(), palette), "Tiles shall show the seeded board");
+        assertEquals(Difficulty.MAX, palette.size(), "Palette shall not grow");
+        assertEquals(Difficulty.MAX, sgm.getBoard().getPalette().length);
+        while (!sgm.getGameOver()) {
+            int[] move = sgm.getNextBestMove();
+            board.removeGroup(move[0], move[1]);
+            sgm.processGameInteraction(move[0], move[1]);
+            assertEquals(board, sgm.getBoard().toCompactBoard());
+            assertEquals(board.isGameOver(), sgm.checkGameOver());
+        }
+
+        assertEquals(8 * ((30 * 30 * 5 + 63) / 64 + 1), sgm.getCellBytes(), "16 colors shall take 5 bits per cell");
+        assertEquals(8 * ((30 * 30 * 2 + 63) / 64 + 1), new SameGameModel(30, 30, Difficulty.EASY, 408).getCellBytes());
+        assertEquals(8 * ((30 * 30 * 3 + 63) / 64 + 1), new SameGameModel(30, 30, Difficulty.HARD, 408).getCellBytes());
+    }
+
+    /**
+     * Tests that palettes are supplied separately: the same seed deals the same color indices in other colors,
+     * and difficulties beyond the palette or {@link Difficulty#MAX} are rejected.
+     */
+    @Test
+    void testSuppliedPalette() {
+        Color[] gray = new Color[8];
+        for (int i = 0; i < gray.length; i++) {
+            gray[i] = new Color(30 * i, 30 * i, 30 * i);
+        }
+        SameGameModel sgm = new SameGameModel(8, 8, 8, 7, gray);
+        assertEquals(CompactBoard.random(8, 8, 8, 7), sgm.getBoard().toCompactBoard());
+        assertEquals(gray[sgm.getBoard().get(0, 0) - 1], sgm.getTiles()[0][0].getColor());
+        assertThrows(IllegalArgumentException.class, () -> new SameGameModel(8, 8, 9, 7, gray));
+        assertThrows(IllegalArgumentException.class, () -> new SameGameModel(8, 8, Difficulty.MAX + 1, 7));
+        assertEquals(Color.red, Palette.standard(Difficulty.HARD)[0], "Classic colors shall come first");
+    }
+}
@@ -0,0 +1,73 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.PersistentBoard;
+import me.leon.samegame.model.SameGameModel;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code PersistentBoardTest} class tests the board versions of {@link SameGameModel#getBoard()}
+ * with the seeded test game of {@link SameGameModelTest}.
+ */
+public class PersistentBoardTest {
+    private static final Color[] COLORS = {Color.red, Color.yellow, Color.blue, Color.green, Color.orange};
+
+    /**
+     * Tests that a move only replaces the changed columns and leaves the previous version untouched.
+     */
+    @Test
+    void testMoveSharesUntouchedColumns() {
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        PersistentBoard before = sgm.getBoard();
+        CompactBoard beforeCells = before.toCompactBoard();
+
+        sgm.processGameInteraction(3, 7); // removes a group in columns 5 to 7
+        PersistentBoard after = sgm.getBoard();
+
+        assertNotSame(before, after);
+        for (int col = 0; col < 9; col++) {
+            boolean touched = col >= 5 && col <= 7;
+            assertEquals(!touched, after.sharesColumn(before, col), "Only untouched columns shall be shared, col " + col);
+        }
+        assertEquals(beforeCells, before.toCompactBoard(), "Previous version shall not change");
+        assertEquals(tilesOf(sgm), after.toCompactBoard());
+    }
+
+    /**
+     * Tests that every version equals the tiles of the model throughout random games.
+     */
+    @Test
+    void testVersionsMatchTiles() {
+        for (long seed = 0; seed < 50; seed++) {
+            SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, seed);
+            while (!sgm.getGameOver()) {
+                int[] move = sgm.getNextBestMove();
+                sgm.processGameInteraction(move[0], move[1]);
+                assertEquals(tilesOf(sgm), sgm.getBoard().toCompactBoard(), "Version shall match the tiles for seed " + seed);
+            }
+        }
+    }
+
+    /**
+     * Tests that a cell beyond the palette is rejected instead of being stored as another color.
+     */
+    @Test
+    void testColorAbovePaletteRejected() {
+        CompactBoard board = CompactBoard.random(6, 9, Difficulty.MEDIUM, 408);
+        assertEquals(board, PersistentBoard.of(board, COLORS).toCompactBoard());
+        board.set(2, 3, COLORS.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> PersistentBoard.of(board, COLORS));
+    }
+
+    private static CompactBoard tilesOf(SameGameModel sgm) {
+        List<Color> palette = new ArrayList<>(List.of(COLORS));
+        return CompactBoard.fromTiles(sgm.getTiles(), palette);
+    }
+}
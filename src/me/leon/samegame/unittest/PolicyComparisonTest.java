@@ -0,0 +1,90 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.bot.ComparisonResult;
+import me.leon.samegame.bot.LargestGroupPolicy;
+import me.leon.samegame.bot.Policy;
+import me.leon.samegame.bot.PolicyComparison;
+import me.leon.samegame.bot.RandomPolicy;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code PolicyComparisonTest} class contains tests for the {@link PolicyComparison} harness and its policies.
+ */
+public class PolicyComparisonTest {
+
+    /**
+     * Tests that the seeded boards of the harness are the boards of the seeded model.
+     */
+    @Test
+    void testRandomBoardMatchesModel() {
+        for (long seed = 0; seed < 20; seed++) {
+            SameGameModel sgm = new SameGameModel(6, 9, Difficulty.HARD, seed);
+            List<Color> palette = new ArrayList<>(List.of(Color.red, Color.yellow, Color.blue, Color.green, Color.orange));
+            assertEquals(CompactBoard.fromTiles(sgm.getTiles(), palette), CompactBoard.random(6, 9, Difficulty.HARD, seed),
+                    "Board shall match the model for seed " + seed);
+        }
+    }
+
+    /**
+     * Tests that the largest group policy scores like following the models next best move.
+     */
+    @Test
+    void testLargestGroupPolicyMatchesHint() {
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        long policyScore = new LargestGroupPolicy().play(CompactBoard.fromTiles(sgm.getTiles()));
+        while (!sgm.getGameOver()) {
+            int[] move = sgm.getNextBestMove();
+            sgm.processGameInteraction(move[0], move[1]);
+        }
+        assertEquals(sgm.getPoints(), policyScore, "Policy shall play like the next best move suggestion");
+    }
+
+    /**
+     * Tests that the sequential test decides quickly for a clearly better policy, but not before the minimum number
+     * of pairs, so the decision agrees with the confidence interval, and never decides between identical policies.
+     */
+    @Test
+    void testSequentialDecision() {
+        Policy resign = board -> -1; // never moves, scores 0
+        ComparisonResult better = new PolicyComparison(6, 9, Difficulty.MEDIUM, RandomPolicy::new,
+                seed -> resign, 2).run(0, 0.1, 0.05, 0.05, 10_000);
+        assertEquals(ComparisonResult.Decision.A_BETTER, better.getDecision(), better.toString());
+        assertEquals(better.getPairs(), better.getWinsA());
+        assertTrue(better.getPairs() >= PolicyComparison.MIN_PAIRS, "Test shall not stop before the minimum: " + better);
+        assertTrue(better.getPairs() < 1_000, "Clear difference shall stop early: " + better);
+        assertTrue(better.getConfidenceLow() > 0, "Mean difference shall be significantly positive: " + better);
+
+        ComparisonResult same = new PolicyComparison(6, 9, Difficulty.MEDIUM, seed -> new LargestGroupPolicy(),
+                seed -> new LargestGroupPolicy(), 2).run(0, 0.1, 0.05, 0.05, 200);
+        assertEquals(ComparisonResult.Decision.INCONCLUSIVE, same.getDecision());
+        assertEquals(200, same.getTies());
+    }
+
+    /**
+     * Tests that a comparison with a random policy gives the same result on several threads as on one,
+     * although the threads play the pairs in any order.
+     */
+    @Test
+    void testReproducibleAcrossThreads() {
+        ComparisonResult expected = new PolicyComparison(6, 9, Difficulty.MEDIUM, RandomPolicy::new,
+                seed -> new LargestGroupPolicy(), 1).run(0, 0.05, 0.05, 0.05, 300);
+        for (int run = 0; run < 2; run++) {
+            ComparisonResult result = new PolicyComparison(6, 9, Difficulty.MEDIUM, RandomPolicy::new,
+                    seed -> new LargestGroupPolicy(), 4).run(0, 0.05, 0.05, 0.05, 300);
+            assertEquals(expected.getDecision(), result.getDecision());
+            assertEquals(expected.getPairs(), result.getPairs());
+            assertEquals(expected.getWinsA(), result.getWinsA());
+            assertEquals(expected.getWinsB(), result.getWinsB());
+            assertEquals(expected.getMeanDifference(), result.getMeanDifference(), "Run " + run);
+        }
+    }
+}
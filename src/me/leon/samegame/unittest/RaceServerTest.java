@@ -0,0 +1,181 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.bot.LargestGroupPolicy;
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.race.RaceClient;
+import me.leon.samegame.race.RaceServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code RaceServerTest} class tests races of {@link RaceClient}s on a {@link RaceServer} over the loopback address:
+ * the copies of the clients follow the authoritative boards of the server by deltas only.
+ */
+public class RaceServerTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private RaceServer server;
+    private final List<RaceClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new RaceServer(6, 9, Difficulty.MEDIUM, 408, 0);
+        server.setChecksumInterval(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (RaceClient client : clients) {
+            client.close();
+        }
+        server.close();
+    }
+
+    private RaceClient join(String name) throws IOException {
+        RaceClient client = new RaceClient(server.getPort(), name, (player, moves) -> { });
+        clients.add(client);
+        return client;
+    }
+
+    /**
+     * Plays the largest group of the own board of a client and waits until the move is applied.
+     *
+     * @return {@code false} if the own game is over
+     */
+    private static boolean playLargestGroup(RaceClient client) throws IOException, InterruptedException {
+        int self = client.getPlayer();
+        assertTrue(client.awaitMoves(self, 0, TIMEOUT_MILLIS), "Own board shall arrive");
+        CompactBoard board = client.getBoard(self);
+        int move = new LargestGroupPolicy().chooseMove(board);
+        if (move < 0) return false;
+        int moves = client.getMoves(self);
+        client.move(move % board.getRows(), move / board.getRows());
+        assertTrue(client.awaitMoves(self, moves + 1, TIMEOUT_MILLIS), "Own move shall be applied");
+        return true;
+    }
+
+    /**
+     * Tests that three players racing to the end see the authoritative boards and scores of all players,
+     * without a checksum mismatch and with far less traffic than a board per move.
+     */
+    @Test
+    void testClientsMirrorAuthoritativeBoards() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            join("player" + i);
+        }
+        boolean playing = true;
+        while (playing) {
+            playing = false;
+            for (RaceClient client : clients) {
+                playing |= playLargestGroup(client);
+            }
+        }
+
+        for (RaceClient client : clients) {
+            for (RaceClient other : clients) {
+                int player = other.getPlayer();
+                assertTrue(client.awaitMoves(player, server.getMoves(player), TIMEOUT_MILLIS));
+                assertEquals(server.getBoard(player).toCompactBoard(), client.getBoard(player));
+                assertEquals(server.getPoints(player), client.getPoints(player));
+                assertEquals("player" + player, client.getName(player));
+            }
+            assertEquals(0, client.getMismatches(), "Replayed deltas shall match every checksum");
+        }
+        assertTrue(server.getBoard(0).toCompactBoard().isGameOver());
+        double bytesPerMove = (double) server.getBytesSent() / (server.getMoves() * clients.size());
+        assertTrue(bytesPerMove < 6 * 9, "Bytes per move and client: " + bytesPerMove);
+    }
+
+    /**
+     * Tests that a player joining late receives the boards of the others as snapshots and then follows their deltas.
+     */
+    @Test
+    void testLateJoinerReceivesSnapshots() throws IOException, InterruptedException {
+        RaceClient early = join("early");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(playLargestGroup(early));
+        }
+        RaceClient late = join("late");
+        assertTrue(late.awaitMoves(early.getPlayer(), 3, TIMEOUT_MILLIS), "Snapshot of the early player shall arrive");
+        assertEquals(server.getBoard(early.getPlayer()).toCompactBoard(), late.getBoard(early.getPlayer()));
+
+        assertTrue(playLargestGroup(early));
+        assertTrue(late.awaitMoves(early.getPlayer(), 4, TIMEOUT_MILLIS));
+        assertEquals(server.getBoard(early.getPlayer()).toCompactBoard(), late.getBoard(early.getPlayer()));
+        assertEquals(server.getPoints(early.getPlayer()), late.getPoints(early.getPlayer()));
+        assertTrue(early.awaitMoves(late.getPlayer(), 0, TIMEOUT_MILLIS), "Late player shall be announced");
+    }
+
+    /**
+     * Tests that a click on a single tile is not broadcast as a move.
+     */
+    @Test
+    void testInvalidMoveIsNotBroadcast() throws IOException, InterruptedException {
+        RaceClient player = join("player");
+        RaceClient watcher = join("watcher");
+        assertTrue(watcher.awaitMoves(player.getPlayer(), 0, TIMEOUT_MILLIS));
+        CompactBoard board = watcher.getBoard(player.getPlayer());
+        int single = 0;
+        while (board.groupSize(single % 6, single / 6) != 1) single++;
+        player.move(single % 6, single / 6);
+        player.move(6, 9); // outside the board
+        assertTrue(playLargestGroup(player));
+
+        assertTrue(watcher.awaitMoves(player.getPlayer(), 1, TIMEOUT_MILLIS));
+        assertEquals(1, server.getMoves(player.getPlayer()));
+        assertEquals(server.getBoard(player.getPlayer()).toCompactBoard(), watcher.getBoard(player.getPlayer()));
+    }
+
+    /**
+     * Tests that a move whose variable length integers decode to a negative number drops only that client,
+     * without an exception escaping the reader thread of the server.
+     */
+    @Test
+    void testNegativeMoveDropsClient() throws IOException, InterruptedException {
+        List<Throwable> uncaught = new ArrayList<>();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            synchronized (uncaught) {
+                uncaught.add(e);
+            }
+        });
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            socket.setSoTimeout((int) TIMEOUT_MILLIS);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(0x53475243); // handshake "SGRC"
+            out.write(new byte[] {4, 'e', 'v', 'i', 'l'});
+            out.write(1); // move
+            out.write(new byte[] {-1, -1, -1, -1, -1, -1, -1, -1, -1, 1}); // row -1 as 10 bytes
+            out.write(0); // col
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) >= 0) {
+                // skip the welcome and snapshots until the server drops the connection
+            }
+            // the connection is closed before an exception reaches the handler, so wait for the reader to end
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("SameGame-Race-Reader")) thread.join(TIMEOUT_MILLIS);
+            }
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        synchronized (uncaught) {
+            assertTrue(uncaught.isEmpty(), "No exception shall escape the server: " + uncaught);
+        }
+
+        RaceClient player = join("player");
+        assertTrue(playLargestGroup(player), "Server shall still accept players");
+    }
+}
@@ -0,0 +1,75 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.solver.ExactSolver;
+import me.leon.samegame.solver.RecordOptimizer;
+import me.leon.samegame.solver.Solution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code RecordOptimizerTest} class tests the {@link RecordOptimizer}: its sequences replay to their score
+ * on the model, and a new optimizer resumes from the checkpoint of an earlier one.
+ */
+public class RecordOptimizerTest {
+    @TempDir
+    File directory;
+
+    /**
+     * Tests that the best sequence replays on the seeded model, is written as replay and survives a restart.
+     */
+    @Test
+    void testBestSequenceReplaysAndResumes() throws IOException {
+        File checkpoint = new File(directory, "record.ckpt");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        RecordOptimizer optimizer = new RecordOptimizer(6, 9, Difficulty.MEDIUM, 408, 2, 10, 2, checkpoint);
+        optimizer.setLog(new PrintStream(log, true));
+        Solution first = optimizer.run(1000);
+
+        SameGameModel sgm = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        long optimum = new ExactSolver(6, 9).solve(sgm).getScore();
+        assertTrue(first.getScore() > 0 && first.getScore() <= optimum, "Score " + first.getScore() + " of " + optimum);
+        assertFalse(first.isProven(), "Record attempts are not proven");
+        for (int[] move : first.getMoves()) {
+            sgm.processGameInteraction(move[0], move[1]);
+        }
+        assertTrue(sgm.getGameOver(), "Sequence shall end the game");
+        assertEquals(first.getScore(), sgm.getPoints(), "Sequence shall replay to its score");
+        assertTrue(log.toString().contains("new best"), "New best scores shall be logged");
+
+        List<String> replay = Files.readAllLines(new File(directory, "record.ckpt-" + first.getScore() + ".replay").toPath());
+        assertEquals(first.getMoves().size() + 1, replay.size());
+        assertTrue(replay.get(0).contains("seed=408"));
+        assertEquals(first.getMoves().get(0)[0] + " " + first.getMoves().get(0)[1], replay.get(1));
+
+        RecordOptimizer resumed = new RecordOptimizer(6, 9, Difficulty.MEDIUM, 408, 2, 10, 2, checkpoint);
+        resumed.setLog(new PrintStream(new ByteArrayOutputStream()));
+        assertEquals(first.getScore(), resumed.getBest().getScore(), "Best score shall be resumed");
+        assertEquals(first.getNodes(), resumed.getBest().getNodes(), "Playouts shall be resumed");
+        Solution second = resumed.run(200);
+        assertTrue(second.getScore() >= first.getScore(), "Resumed search shall not lose the best score");
+        assertTrue(second.getNodes() > first.getNodes(), "Resumed search shall continue counting playouts");
+    }
+
+    /**
+     * Tests that a checkpoint of another game is rejected.
+     */
+    @Test
+    void testCheckpointOfAnotherGameIsRejected() throws IOException {
+        File checkpoint = new File(directory, "record.ckpt");
+        RecordOptimizer optimizer = new RecordOptimizer(5, 5, Difficulty.EASY, 1, 1, 10, 1, checkpoint);
+        optimizer.setLog(new PrintStream(new ByteArrayOutputStream()));
+        optimizer.run(50);
+        assertThrows(IOException.class, () -> new RecordOptimizer(5, 5, Difficulty.EASY, 2, 1, 10, 1, checkpoint));
+    }
+}
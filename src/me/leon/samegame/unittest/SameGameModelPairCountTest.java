@@ -0,0 +1,65 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.model.Tile;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code SameGameModelPairCountTest} class tests the same colored pair counters of the {@link SameGameModel}
+ * against a full recount of the grid and against the full {@link SameGameModel#checkGameOver()} scan.
+ * Many seeded games with random clicks (including clicks on removed tiles and single tiles) are played,
+ * and the counters are compared after every click.
+ */
+public class SameGameModelPairCountTest {
+    private static final Color[] COLORS = {Color.red, Color.yellow, Color.blue, Color.green, Color.orange};
+
+    /**
+     * Plays random games of different sizes and difficulties and compares the counters after every click.
+     */
+    @Test
+    void testCountersMatchFullScan() {
+        Random rTest = new Random(408);
+        int[] difficulties = {Difficulty.EASY, Difficulty.MEDIUM, Difficulty.HARD};
+        for (int game = 0; game < 300; game++) {
+            int rows = 1 + rTest.nextInt(12);
+            int cols = 2 + rTest.nextInt(12);
+            SameGameModel sgm = new SameGameModel(rows, cols, difficulties[game % 3], game);
+            assertCounters(sgm, game);
+            while (!sgm.getGameOver()) {
+                sgm.processGameInteraction(rTest.nextInt(rows), rTest.nextInt(cols));
+                assertCounters(sgm, game);
+                assertEquals(sgm.checkGameOver(), sgm.getGameOver(), "Game over shall match the full scan, game " + game);
+            }
+        }
+    }
+
+    /**
+     * Recounts all same colored pairs of the grid and compares them with the models counters.
+     */
+    private void assertCounters(SameGameModel sgm, int game) {
+        Tile[][] tiles = sgm.getTiles();
+        int[] byColor = new int[COLORS.length];
+        for (int row = 0; row < sgm.getGameRows(); row++) {
+            for (int col = 0; col < sgm.getGameCols(); col++) {
+                if (tiles[row][col].isRemoved()) continue;
+                Color color = tiles[row][col].getColor();
+                int c = Arrays.asList(COLORS).indexOf(color);
+                if (row + 1 < sgm.getGameRows() && !tiles[row + 1][col].isRemoved() && tiles[row + 1][col].getColor() == color) byColor[c]++;
+                if (col + 1 < sgm.getGameCols() && !tiles[row][col + 1].isRemoved() && tiles[row][col + 1].getColor() == color) byColor[c]++;
+            }
+        }
+        int total = 0;
+        for (int c = 0; c < COLORS.length; c++) {
+            assertEquals(byColor[c], sgm.getSameColorPairs(c), "Pairs of color " + c + " shall match the recount, game " + game);
+            total += byColor[c];
+        }
+        assertEquals(total, sgm.getSameColorPairs(), "Pairs shall match the recount, game " + game);
+    }
+}
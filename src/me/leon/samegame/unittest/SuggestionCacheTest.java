@@ -0,0 +1,109 @@
+package me.leon.samegame.unittest;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.Difficulty;
+import me.leon.samegame.model.SameGameModel;
+import me.leon.samegame.util.SuggestionCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code SuggestionCacheTest} class contains tests for the {@link SuggestionCache}.
+ */
+public class SuggestionCacheTest {
+
+    /**
+     * Tests that the least recently used entry is evicted when the cache is full.
+     */
+    @Test
+    void testSizeEviction() {
+        SuggestionCache cache = new SuggestionCache(16, Long.MAX_VALUE, () -> 0);
+        SuggestionCache.Key first = new SuggestionCache.Key(1, 0);
+        SuggestionCache.Key second = new SuggestionCache.Key(2, 0);
+        SuggestionCache.Key third = new SuggestionCache.Key(3, 0); // all three in the same segment of one entry
+        cache.put(first, new int[]{1, 1});
+        cache.put(second, new int[]{2, 2});
+        assertNull(cache.lookup(first), "Eldest entry shall be evicted");
+        assertArrayEquals(new int[]{2, 2}, cache.lookup(second));
+        cache.put(third, new int[]{3, 3});
+        assertNull(cache.lookup(second));
+        assertEquals(2, cache.getEvictions());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Tests that entries older than the maximum age are not returned anymore.
+     */
+    @Test
+    void testAgeEviction() {
+        AtomicLong now = new AtomicLong(1000);
+        SuggestionCache cache = new SuggestionCache(100, 500, now::get);
+        SuggestionCache.Key key = new SuggestionCache.Key(7, 7);
+        cache.put(key, new int[]{4, 2});
+        now.addAndGet(500);
+        assertArrayEquals(new int[]{4, 2}, cache.lookup(key));
+        now.addAndGet(1);
+        assertNull(cache.lookup(key), "Expired entry shall not be returned");
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    /**
+     * Tests that saved entries are loaded with their original age.
+     */
+    @Test
+    void testPersistence() throws IOException {
+        AtomicLong now = new AtomicLong(1000);
+        SuggestionCache cache = new SuggestionCache(100, 500, now::get);
+        SuggestionCache.Key key = SuggestionCache.Key.of(CompactBoard.random(6, 9, Difficulty.MEDIUM, 408));
+        cache.put(key, new int[]{3, 7});
+        File file = File.createTempFile("suggestions", ".dat");
+        file.deleteOnExit();
+        cache.save(file);
+
+        SuggestionCache loaded = new SuggestionCache(100, 500, now::get);
+        loaded.load(file);
+        assertArrayEquals(new int[]{3, 7}, loaded.lookup(SuggestionCache.Key.of(CompactBoard.random(6, 9, Difficulty.MEDIUM, 408))));
+        now.addAndGet(600);
+        SuggestionCache expired = new SuggestionCache(100, 500, now::get);
+        expired.load(file);
+        assertEquals(0, expired.size(), "Expired entries shall not be loaded");
+    }
+
+    /**
+     * Tests that a recurring position answers its suggestion from the shared cache.
+     */
+    @Test
+    void testModelUsesSharedCache() {
+        SameGameModel first = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        long hits = SuggestionCache.get().getHits();
+        SameGameModel second = new SameGameModel(6, 9, Difficulty.MEDIUM, 408);
+        assertEquals(hits + 1, SuggestionCache.get().getHits(), "Same seed shall be a cache hit");
+        assertArrayEquals(first.getNextBestMove(), second.getNextBestMove());
+        assertNotSame(first.getNextBestMove(), second.getNextBestMove(), "Models shall not share the move array");
+    }
+
+    /**
+     * Tests that the key the model maintains per move is the key of its position as {@link CompactBoard},
+     * so the model and the search algorithms share their entries.
+     */
+    @Test
+    void testModelKeyMatchesBoardKey() {
+        for (long seed = 0; seed < 5; seed++) {
+            SameGameModel sgm = new SameGameModel(5, 11, Difficulty.HARD, seed);
+            while (!sgm.getGameOver()) {
+                // the model cached its hint under its own key, the key of the board shall find it
+                int[] cached = SuggestionCache.get().lookup(SuggestionCache.Key.of(sgm.getBoard().toCompactBoard()));
+                assertArrayEquals(sgm.getNextBestMove(), cached, "Keys shall match for seed " + seed);
+                int[] move = sgm.getNextBestMove();
+                sgm.processGameInteraction(move[0], move[1]);
+            }
+        }
+    }
+}
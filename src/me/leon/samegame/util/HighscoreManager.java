@@ -1,6 +1,11 @@
 package me.leon.samegame.util;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,10 +13,15 @@ import java.util.List;
  * The {@code HighscoreManager} class manages the highscores for the game.
  * It provides functionality to add, retrieve, save, and load high scores from this class using Serialization.
  * This class is inspired by Horstmann Cay's "Object-Oriented Design and Patterns", chapter 7.5.
+ * <p>
+ * Several game processes can share one highscore file with {@link #mergeHighscores(File, List)}: writers take turns
+ * through an exclusive {@link FileLock} on a sidecar lock file, and readers never lock, as the file is only ever
+ * replaced atomically.
  */
 public class HighscoreManager implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    private static final Object PROCESS_LOCK = new Object(); // file locks are held per JVM, not per thread
     private List<Long> highscores;
 
     /**
@@ -22,6 +32,15 @@ public class HighscoreManager implements Serializable {
         highscores.add(408L);
     }
 
+    /**
+     * Constructs a new {@code HighscoreManager} with the given highscores.
+     *
+     * @param highscores scores to be copied
+     */
+    public HighscoreManager(List<Long> highscores) {
+        this.highscores = new ArrayList<>(highscores);
+    }
+
     /**
      * Adds a new score to the list of highscores.
      *
@@ -47,14 +66,30 @@ public class HighscoreManager implements Serializable {
      */
     public void saveHighscores(String filename) {
         try {
-            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename));
-            out.writeObject(this);
-            out.close();
+            writeHighscores(new File(filename));
         } catch (IOException e) {
             System.err.println("Problem with trying to write the highscore file to the system.");
         }
     }
 
+    /**
+     * Saves the current highscores object to a file durably: it is written to a temporary file, forced to the disk
+     * and then moved over the old file, so a crash leaves either the old or the new highscores, never a broken file.
+     *
+     * @param file file to save the serialized highscores to
+     * @throws IOException if the file cannot be written
+     */
+    public void writeHighscores(File file) throws IOException {
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeObject(this);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
     /**
      * Loads the highscores from a file.
      *
@@ -63,12 +98,46 @@ public class HighscoreManager implements Serializable {
      * or a new instance if the file does not exist or cannot be read
      */
     public static HighscoreManager loadHighscores(String filename) {
-        try {
-            ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename));
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
             return (HighscoreManager) in.readObject();
         } catch (IOException | ClassNotFoundException e) {
             System.err.println("Probably no highscores have been saved yet, a new file will be created.");
             return new HighscoreManager(); // Returns new instance after first gameplay, or deletion of highscores.dat file
         }
     }
+
+    /**
+     * Adds scores to a highscore file that other processes may update at the same time.
+     * The scores are merged under an exclusive lock of {@code <file>.lock}: the current file is read, the scores are
+     * added and the result is written with {@link #writeHighscores(File)}. So no writer loses the scores of another,
+     * while readers of the file are never blocked.
+     *
+     * @param file   shared highscore file, created if it does not exist
+     * @param scores scores to be added
+     * @return the highscores of the file after the merge, including the scores of other processes
+     * @throws IOException if the file cannot be locked, read or written, nothing is added in this case
+     */
+    public static HighscoreManager mergeHighscores(File file, List<Long> scores) throws IOException {
+        File lockFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".lock");
+        synchronized (PROCESS_LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    HighscoreManager merged = new HighscoreManager();
+                    if (file.exists()) {
+                        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                            merged = (HighscoreManager) in.readObject();
+                        } catch (ClassNotFoundException | ClassCastException e) {
+                            throw new IOException("Highscore file cannot be read: " + file, e);
+                        }
+                    }
+                    merged.highscores.addAll(scores);
+                    merged.writeHighscores(file);
+                    return merged;
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
 }
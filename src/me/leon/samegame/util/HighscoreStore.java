@@ -0,0 +1,200 @@
+package me.leon.samegame.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code HighscoreStore} class keeps the highscores in memory and writes them to the disk behind the game.
+ * {@link #addScore(long)} only updates the in-memory {@link HighscoreManager} and returns the scores right away,
+ * so the game over dialog never waits for a write. A background thread loads the highscore file once and then
+ * merges all scores added since its last write into the file in one batch, at most once per flush interval,
+ * with {@link HighscoreManager#mergeHighscores(File, List)}. So several game processes can share the file without
+ * losing scores, and every write also picks up the scores of the other processes.
+ * A failed write is logged and retried with the next batch.
+ * <p>
+ * Until the file is loaded, {@link #addScore(long)} and {@link #getHighscores()} wait for it, so they never return
+ * the scores of this run without the scores on the disk. The store should be created at launch, then the file is
+ * loaded long before the first game ends.
+ * <p>
+ * {@link #close()} writes the remaining scores. The shared instance of {@link #get()} is closed when the JVM exits.
+ */
+public class HighscoreStore {
+    private static final String DEFAULT_FILE = "highscores.dat";
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    private static HighscoreStore instance;
+
+    private final File file;
+    private final long flushIntervalMillis;
+    private final Thread writer;
+    private final Object writeLock = new Object();
+    private final List<Long> sessionScores = new ArrayList<>(); // scores added before the file was loaded, if interrupted
+    private HighscoreManager highscores = new HighscoreManager();
+    private boolean loaded;
+    private boolean closed;
+    private List<Long> pending = new ArrayList<>(); // scores added since the last successful write
+    private long lastFlushMillis;
+    private volatile long flushes;
+
+    /**
+     * Constructs a new {@code HighscoreStore} and starts its writer thread, which loads the file first.
+     *
+     * @param file                highscore file, created on the first write
+     * @param flushIntervalMillis minimum time between two writes in milliseconds
+     */
+    public HighscoreStore(File file, long flushIntervalMillis) {
+        this.file = file;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.writer = new Thread(this::run, "SameGame-Highscores");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Adds a score, returns without any I/O once the file is loaded.
+     *
+     * @param score score to be added
+     * @return all highscores including the new score and the scores of the file
+     */
+    public synchronized List<Long> addScore(long score) {
+        awaitLoad();
+        highscores.addScore(score);
+        if (!loaded) sessionScores.add(score);
+        pending.add(score);
+        notifyAll();
+        return highscores.getHighscores();
+    }
+
+    /**
+     * Retrieves the highscores from memory, waiting for the file to be loaded first.
+     *
+     * @return copy of the list of highscores
+     */
+    public synchronized List<Long> getHighscores() {
+        awaitLoad();
+        return highscores.getHighscores();
+    }
+
+    /**
+     * Waits until the writer thread has loaded the file. If the waiting thread is interrupted, it returns early
+     * with its interrupt flag set, the scores added until the file is loaded are then merged into it afterward.
+     */
+    private synchronized void awaitLoad() {
+        try {
+            while (!loaded) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes the scores that are not on the disk yet.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Loop of the writer thread: loads the file, then waits for new scores and writes them at the flush interval.
+     */
+    private void run() {
+        HighscoreManager fromFile = HighscoreManager.loadHighscores(file.getPath());
+        synchronized (this) {
+            for (long score : sessionScores) {
+                fromFile.addScore(score);
+            }
+            sessionScores.clear();
+            highscores = fromFile;
+            loaded = true;
+            notifyAll();
+        }
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (pending.isEmpty() && !closed) {
+                        wait();
+                    }
+                    long now;
+                    while (!closed && (now = System.currentTimeMillis()) < lastFlushMillis + flushIntervalMillis) {
+                        wait(lastFlushMillis + flushIntervalMillis - now);
+                    }
+                    if (closed) return; // close() writes the rest
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Merges the scores added since the last write into the file and takes over the merged highscores.
+     * Only one thread writes at a time, and the store is not locked during the I/O, so scores can still be added.
+     */
+    private void flush() {
+        synchronized (writeLock) {
+            List<Long> batch;
+            synchronized (this) {
+                if (pending.isEmpty() || !loaded) return;
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            HighscoreManager merged = null;
+            try {
+                merged = HighscoreManager.mergeHighscores(file, batch);
+                flushes++;
+            } catch (IOException e) {
+                System.err.println("Problem with trying to write the highscore file to the system: " + e);
+            }
+            synchronized (this) {
+                if (merged != null) {
+                    for (long score : pending) {
+                        merged.addScore(score); // added during the write
+                    }
+                    highscores = merged;
+                } else {
+                    batch.addAll(pending);
+                    pending = batch;
+                }
+                lastFlushMillis = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of successful writes of the highscore file.
+     *
+     * @return number of writes
+     */
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * Retrieves the shared instance of the store following the <b>Singleton</b> pattern,
+     * which writes {@code highscores.dat} in the working directory and is closed when the JVM exits.
+     * The first call starts loading the file, so it should be made at launch.
+     *
+     * @return shared instance of the store
+     */
+    public static synchronized HighscoreStore get() {
+        if (instance == null) {
+            HighscoreStore store = new HighscoreStore(new File(DEFAULT_FILE), DEFAULT_FLUSH_INTERVAL_MILLIS);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "SameGame-HighscoreFlush"));
+            instance = store;
+        }
+        return instance;
+    }
+}
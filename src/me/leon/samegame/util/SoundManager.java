@@ -9,17 +9,32 @@ import java.util.Map;
 /**
  * A singleton class responsible for managing sound effects in the SameGame application.
  * Sounds are played when a tile is clicked to remove a block or when whitespace is clicked.
+ * <p>
+ * The sound files are loaded lazily on the first played sound or by {@link #preload()},
+ * so modes without sound (console, headless) never initialize the audio system.
+ * Sound can be turned off completely with {@link #setEnabled(boolean)}.
  */
 public class SoundManager {
     private static SoundManager instance;
+    private static volatile boolean enabled = true;
     private Map<String, Clip> sounds;
+    private boolean loaded;
 
     /**
      * Private constructor to initialize the SoundManager.
-     * Loads sound files for "click_empty" and "click_tile".
+     * The sound files are not loaded yet, see {@link #preload()}.
      */
     private SoundManager() {
         sounds = new HashMap<>();
+    }
+
+    /**
+     * Loads the sound files for "click_empty" and "click_tile" if not done yet.
+     * Can be called on a background thread to have the sounds ready before the first click.
+     */
+    public synchronized void preload() {
+        if (loaded) return;
+        loaded = true;
         loadSound("click_empty", "ress/click_empty.wav");
         loadSound("click_tile", "ress/click_tile.wav");
     }
@@ -41,7 +56,8 @@ public class SoundManager {
             Clip clip = AudioSystem.getClip();
             clip.open(audioInputStream);
             sounds.put(name, clip);
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
+        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException | IllegalArgumentException e) {
+            // IllegalArgumentException: no audio line available, e.g. on a server
             System.err.println("Some unforeseen error occurred: " + e);
         }
     }
@@ -52,6 +68,8 @@ public class SoundManager {
      * @param soundName the name of the sound to be played
      */
     public void playSound(String soundName) {
+        if (!enabled) return;
+        preload();
         Clip clip = sounds.get(soundName);
         try {
             if (clip.isRunning()) {
@@ -69,10 +87,19 @@ public class SoundManager {
      *
      * @return the singleton instance of SoundManager
      */
-    public static SoundManager get() {
+    public static synchronized SoundManager get() {
         if (instance == null) {
             instance = new SoundManager();
         }
         return instance;
     }
+
+    /**
+     * Turns all sounds on or off, e.g. off for the console and headless modes.
+     *
+     * @param enabled {@code false} to mute all sounds and never load them
+     */
+    public static void setEnabled(boolean enabled) {
+        SoundManager.enabled = enabled;
+    }
 }
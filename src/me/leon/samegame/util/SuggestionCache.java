@@ -0,0 +1,371 @@
+package me.leon.samegame.util;
+
+import me.leon.samegame.model.CompactBoard;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@code SuggestionCache} class remembers move suggestions of positions that were already analyzed,
+ * so recurring positions (same seeds, replays, many bots on the same daily seed) do not need to be searched again.
+ * <p>
+ * Positions are identified by a 128-bit {@link Key} of their canonical form, so positions that differ only by
+ * a permutation of the colors share their suggestion: a move is a cell, which is the same in all of them. The cache is bounded in size and in age:
+ * the least recently used entry is evicted when it is full, and entries older than the maximum age are dropped.
+ * It is split into independently locked segments, so many threads can use it at the same time.
+ * <p>
+ * A shared instance for all games in the JVM is returned by {@link #get()}. If the system property
+ * {@code samegame.suggestions} names a file, the shared instance is loaded from it on first use and saved back
+ * when the JVM exits, so suggestions survive between runs.
+ */
+public class SuggestionCache {
+    private static final int SEGMENTS = 16;
+    private static final int FILE_MAGIC = 0x53475344; // "SGSD", keys of the two canonical hashes
+    private static final int DEFAULT_MAX_ENTRIES = 100_000;
+    private static final long DEFAULT_MAX_AGE_MILLIS = 7L * 24 * 60 * 60 * 1000;
+    private static SuggestionCache instance;
+
+    private final Segment[] segments;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Constructs a new empty {@code SuggestionCache}.
+     *
+     * @param maxEntries   maximum number of cached positions
+     * @param maxAgeMillis maximum age of an entry in milliseconds
+     * @param clock        current time in milliseconds, e.g. {@code System::currentTimeMillis}
+     */
+    public SuggestionCache(int maxEntries, long maxAgeMillis, LongSupplier clock) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+        this.segments = new Segment[SEGMENTS];
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Looks up the suggestion of a position.
+     *
+     * @param key key of the position
+     * @return copy of the cached move as {@code [row, col]}, or {@code null} if the position is not cached
+     */
+    public int[] lookup(Key key) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null && clock.getAsLong() - entry.created > maxAgeMillis) {
+                segment.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return new int[]{entry.row, entry.col};
+        }
+    }
+
+    /**
+     * Caches the suggestion of a position, replacing an older one.
+     *
+     * @param key  key of the position
+     * @param move suggested move as {@code [row, col]}, is copied
+     */
+    public void put(Key key, int[] move) {
+        put(key, move[0], move[1], clock.getAsLong());
+    }
+
+    private void put(Key key, int row, int col, long created) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(row, col, created));
+        }
+    }
+
+    /**
+     * Removes all entries, the counters are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentOf(Key key) {
+        return segments[(int) (key.low >>> 60) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Writes all entries that are not expired to a file. They are written to a temporary file, which is then moved
+     * over the old file, so a JVM killed during the save, e.g. in the shutdown hook, leaves the old file intact.
+     *
+     * @param file file to write to, is overwritten
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(FILE_MAGIC);
+            long now = clock.getAsLong();
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    for (Map.Entry<Key, Entry> e : segment.entrySet()) {
+                        Entry entry = e.getValue();
+                        if (now - entry.created > maxAgeMillis) continue;
+                        out.writeBoolean(true);
+                        out.writeLong(e.getKey().high);
+                        out.writeLong(e.getKey().low);
+                        out.writeInt(entry.row);
+                        out.writeInt(entry.col);
+                        out.writeLong(entry.created);
+                    }
+                }
+            }
+            out.writeBoolean(false);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the entries of a file written by {@link #save(File)}, keeping their original age.
+     *
+     * @param file file to read from
+     * @throws IOException if the file cannot be read or has an unknown format
+     */
+    public void load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a suggestion cache file: " + file);
+            }
+            long now = clock.getAsLong();
+            while (in.readBoolean()) {
+                Key key = new Key(in.readLong(), in.readLong());
+                int row = in.readInt();
+                int col = in.readInt();
+                long created = in.readLong();
+                if (now - created <= maxAgeMillis) put(key, row, col, created);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of lookups answered from the cache.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of lookups of positions not (or no longer) in the cache.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the share of lookups answered from the cache.
+     *
+     * @return hit rate between 0 and 1, 0 if nothing was looked up yet
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Retrieves the number of entries evicted because the cache was full.
+     *
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Retrieves the number of entries dropped because they were too old.
+     *
+     * @return number of expired entries
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * Retrieves the number of cached positions.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Retrieves the shared instance of the cache following the <b>Singleton</b> pattern.
+     * See the class description for the persistence through the {@code samegame.suggestions} property.
+     *
+     * @return shared instance of the cache
+     */
+    public static synchronized SuggestionCache get() {
+        if (instance == null) {
+            instance = new SuggestionCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE_MILLIS, System::currentTimeMillis);
+            String path = System.getProperty("samegame.suggestions");
+            if (path != null) {
+                File file = new File(path);
+                SuggestionCache cache = instance;
+                if (file.exists()) {
+                    try {
+                        cache.load(file);
+                    } catch (IOException e) {
+                        System.err.println("Suggestion cache could not be loaded: " + e);
+                    }
+                }
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        cache.save(file);
+                    } catch (IOException e) {
+                        System.err.println("Suggestion cache could not be saved: " + e);
+                    }
+                }, "SameGame-SuggestionCache"));
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The {@code Key} class identifies a position by two independent 64-bit hashes of its size and cells.
+     */
+    public static final class Key {
+        private final long high;
+        private final long low;
+
+        /**
+         * Constructs a new {@code Key} from its two halves.
+         *
+         * @param high first 64 bits
+         * @param low  second 64 bits
+         */
+        public Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        /**
+         * Creates the key of a board from its canonical form, see {@link CompactBoard#canonicalHash64()}:
+         * the two independent canonical hashes, both mixed with the board size.
+         * Both hashes are maintained incrementally, so this only scans the first tiles until every color was seen,
+         * and they are stable between runs, so keys can be persisted.
+         *
+         * @param board the position
+         * @return key of the position, equal for all color permutations of the position
+         */
+        public static Key of(CompactBoard board) {
+            return of(board.getRows(), board.getCols(), board.canonicalHash64(), board.canonicalHashLow64());
+        }
+
+        /**
+         * Creates the key of a position from its size and its canonical hashes, for representations of a board
+         * that maintain the hashes of {@link CompactBoard#canonicalHash64()} and
+         * {@link CompactBoard#canonicalHashLow64()} themselves.
+         *
+         * @param rows          number of rows of the board
+         * @param cols          number of cols of the board
+         * @param canonicalHash first canonical hash
+         * @param canonicalLow  second canonical hash
+         * @return key of the position, equal to the key of the same position as {@link CompactBoard}
+         */
+        public static Key of(int rows, int cols, long canonicalHash, long canonicalLow) {
+            long size = (long) rows << 32 | cols;
+            return new Key(mix(canonicalHash ^ size), mix(canonicalLow ^ size));
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+            z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return z ^ (z >>> 33);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high);
+        }
+    }
+
+    /**
+     * A cached move and the time it was cached.
+     */
+    private static final class Entry {
+        private final int row;
+        private final int col;
+        private final long created;
+
+        private Entry(int row, int col, long created) {
+            this.row = row;
+            this.col = col;
+            this.created = created;
+        }
+    }
+
+    /**
+     * One independently locked part of the cache, a {@link LinkedHashMap} in access order,
+     * which drops its least recently used entry when it is full.
+     */
+    private final class Segment extends LinkedHashMap<Key, Entry> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final int maxEntries;
+
+        private Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() <= maxEntries) return false;
+            if (clock.getAsLong() - eldest.getValue().created > maxAgeMillis) {
+                expirations.increment();
+            } else {
+                evictions.increment();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package me.leon.samegame.view;
+
+import me.leon.samegame.model.CompactBoard;
+import me.leon.samegame.model.GameSnapshot;
+import me.leon.samegame.model.PersistentBoard;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.VolatileImage;
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@code BoardPanel} class paints the game grid of a {@link GameSnapshot}.
+ * Tiles are drawn as filled rectangles with a black border, removed tiles stay white.
+ * Cell {@code (row, col)} starts at pixel {@link #cellStart(int, int, int) cellStart(col, width, cols)} horizontally,
+ * and accordingly vertically, so {@link #cellAt(int, int, int)} maps every pixel back to exactly the cell painted there.
+ * <p>
+ * The panel is meant to be shown in a {@link JScrollPane}. By default the board is fitted into the visible area.
+ * Ctrl + mouse wheel zooms around the mouse pointer, which makes the panel larger than the scroll pane,
+ * and the mouse wheel or the scroll bars scroll it.
+ * Only the cells inside the clip area are painted, so the time per frame depends on the size of the window,
+ * not on the size of the board:
+ * <ul>
+ *  <li>Cells of at least {@value #MIN_SPRITE_SIZE} pixels are blitted from pre-rendered sprites, one per color and cell size,
+ *  into a board surface covering the visible area. Sprites and surface are compatible images of the screen
+ *  ({@link VolatileImage} for the surface, so it can live in video memory), and the sprites are only rendered again
+ *  when the cell size changes. The surface keeps the painted cells between frames: after a move only the columns that
+ *  the new {@link PersistentBoard} version does not share with the painted one are blitted again, after a resize or
+ *  scroll the whole area. A frame is then a single blit of the surface.</li>
+ *  <li>Smaller cells (level of detail) are painted as one pixel per screen pixel into a raster image,
+ *  without borders, so zoomed out boards show one sampled cell per pixel.</li>
+ * </ul>
+ * <p>
+ * Moves are animated: when a new snapshot follows the previous one by a single move, the panel derives where every
+ * remaining tile came from and lets the tiles fall into the collapsed columns, then slide into the shifted columns.
+ * A single Swing {@link Timer} repaints at 60 frames per second only while tiles move, so a static board costs no CPU.
+ * The model is not involved: the next snapshot interrupts a running animation, which skips to its end and starts
+ * the animation of the new move. Animated frames paint the moving tiles directly with the sprites and allocate nothing.
+ */
+public class BoardPanel extends JPanel implements Scrollable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final int MIN_SPRITE_SIZE = 4;
+    private static final double MAX_CELL_SIZE = 64;
+    private static final double ZOOM_STEP = 1.25;
+    private static final long MAX_SURFACE_PIXELS = 3840L * 2160;
+    private static final long FALL_NANOS = 150_000_000;
+    private static final long SLIDE_NANOS = 150_000_000;
+    private GameSnapshot snapshot;
+    private Color[] palette = new Color[0];
+    private double cellSize; // pixels per cell when zoomed, 0 fits the board into the visible area
+    private BufferedImage[][] sprites = new BufferedImage[0][]; // [color][size variant]
+    private Color[] spritePalette = new Color[0];
+    private int spriteWidth;
+    private int spriteHeight;
+    // board surface, a VolatileImage on screen or a BufferedImage without a GraphicsConfiguration (headless)
+    private VolatileImage volatileSurface;
+    private BufferedImage bufferedSurface;
+    private final Rectangle surfaceArea = new Rectangle(); // part of the panel held by the surface
+    private int surfaceWidth; // size of the panel when the surface was painted
+    private int surfaceHeight;
+    private PersistentBoard surfaceBoard; // board version painted into the surface, null if it has to be painted again
+    private BufferedImage raster; // reusable image for the level of detail painting
+    private int[] rowForY = new int[0];
+    private int[] colForX = new int[0];
+    private final Rectangle clipBounds = new Rectangle();
+    private final Rectangle visibleBounds = new Rectangle();
+    // animation of the last move, see deriveMotion
+    private final LongSupplier nanoClock;
+    private final Timer animationTimer;
+    private boolean animated = true;
+    private boolean animating;
+    private long animationStart;
+    private long fallNanos;
+    private long slideNanos;
+    private int[] fromRow = new int[0]; // column-major per cell of the new board: row of the tile before the move, -1 if empty
+    private int[] fromCol = new int[0]; // per col of the new board: col before the move, -1 if empty
+
+    /**
+     * Constructs a new {@code BoardPanel} without a snapshot.
+     */
+    public BoardPanel() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Constructs a new {@code BoardPanel} without a snapshot, with the clock of the animations.
+     *
+     * @param nanoClock current time in nanoseconds, e.g. {@code System::nanoTime}
+     */
+    public BoardPanel(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.animationTimer = new Timer(1000 / 60, e -> onAnimationFrame());
+        setBackground(Color.white);
+        addMouseWheelListener(this::onMouseWheel);
+    }
+
+    /**
+     * Sets the snapshot to be painted and schedules a repaint. Must be called on the event dispatch thread.
+     *
+     * @param snapshot state of the game to be painted
+     */
+    public void setSnapshot(GameSnapshot snapshot) {
+        boolean resized = this.snapshot == null || this.snapshot.getGameRows() != snapshot.getGameRows()
+                || this.snapshot.getGameCols() != snapshot.getGameCols();
+        PersistentBoard previous = this.snapshot == null ? null : this.snapshot.getBoard();
+        this.snapshot = snapshot;
+        this.palette = snapshot.getPalette();
+        if (resized) {
+            cellSize = 0;
+            revalidate();
+        }
+        if (animated && !resized && deriveMotion(previous, snapshot.getBoard())) {
+            animating = true;
+            animationStart = nanoClock.getAsLong();
+            animationTimer.restart();
+        } else {
+            stopAnimation();
+        }
+        repaint();
+    }
+
+    /**
+     * Turns the animation of moves on or off. Turning it off ends a running animation.
+     *
+     * @param animated {@code false} to show every snapshot right away
+     */
+    public void setAnimated(boolean animated) {
+        this.animated = animated;
+        if (!animated && animating) {
+            stopAnimation();
+            repaint();
+        }
+    }
+
+    /**
+     * Checks whether tiles are moving, i.e. the timer of the animation is running.
+     *
+     * @return {@code true} while a move is animated
+     */
+    public boolean isAnimating() {
+        return animating;
+    }
+
+    private void stopAnimation() {
+        animating = false;
+        animationTimer.stop();
+    }
+
+    /**
+     * Called by the animation timer: ends the animation once all tiles arrived, then repaints.
+     */
+    private void onAnimationFrame() {
+        if (nanoClock.getAsLong() - animationStart >= fallNanos + slideNanos) stopAnimation();
+        repaint();
+    }
+
+    /**
+     * Derives the motion of the tiles from one board version to the next, if the next version follows by a single move:
+     * the removed tiles all have one color, every column keeps its remaining tiles in order at its bottom,
+     * and the remaining columns keep their order at the left.
+     * The tiles are matched bottom up per column. A tile of the removed color that matches the next remaining tile
+     * can not have been removed: the tiles between it and the matching tile above would all be removed, so the
+     * matching tile would belong to the same group and be removed as well. So the greedy match is exact.
+     *
+     * @param from previous board version, may be {@code null}
+     * @param to   next board version of the same size
+     * @return {@code true} if the versions differ by a single move and {@link #fromRow}/{@link #fromCol} describe it
+     */
+    private boolean deriveMotion(PersistentBoard from, PersistentBoard to) {
+        if (from == null || from == to) return false;
+        int rows = to.getRows();
+        int cols = to.getCols();
+        if (fromRow.length != rows * cols) fromRow = new int[rows * cols];
+        if (fromCol.length != cols) fromCol = new int[cols];
+        int removedColor = CompactBoard.EMPTY;
+        int removed = 0;
+        boolean falls = false;
+        boolean slides = false;
+        int next = 0; // next col of the new board
+        for (int col = 0; col < cols; col++) {
+            if (from.get(rows - 1, col) == CompactBoard.EMPTY) continue; // empty column
+            int row = rows - 1; // next row of the new column
+            int matched = 0;
+            for (int oldRow = rows - 1; oldRow >= 0; oldRow--) {
+                int cell = from.get(oldRow, col);
+                if (cell == CompactBoard.EMPTY) break;
+                if (next < cols && row >= 0 && to.get(row, next) == cell) {
+                    fromRow[next * rows + row] = oldRow;
+                    falls |= oldRow != row;
+                    row--;
+                    matched++;
+                } else {
+                    if (removedColor != CompactBoard.EMPTY && removedColor != cell) return false;
+                    removedColor = cell;
+                    removed++;
+                }
+            }
+            if (matched == 0) {
+                slides = true; // the whole column was removed
+                continue;
+            }
+            if (row >= 0 && to.get(row, next) != CompactBoard.EMPTY) return false;
+            for (; row >= 0; row--) {
+                fromRow[next * rows + row] = -1;
+            }
+            fromCol[next] = col;
+            slides |= col != next;
+            next++;
+        }
+        for (; next < cols; next++) {
+            if (to.get(rows - 1, next) != CompactBoard.EMPTY) return false;
+            fromCol[next] = -1;
+        }
+        fallNanos = falls ? FALL_NANOS : 0;
+        slideNanos = slides ? SLIDE_NANOS : 0;
+        return removed >= 2;
+    }
+
+    /**
+     * Zooms in ({@code factor > 1}) or out, keeping the cell under the anchor point in place.
+     * Zooming out stops when the board fits into the visible area.
+     *
+     * @param factor factor for the cell size
+     * @param anchor point of the panel that stays in place, e.g. the mouse pointer
+     */
+    public void zoom(double factor, Point anchor) {
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (snapshot == null || viewport == null) return;
+        int rows = snapshot.getGameRows();
+        int cols = snapshot.getGameCols();
+        double fitSize = Math.min((double) viewport.getWidth() / cols, (double) viewport.getHeight() / rows);
+        double current = cellSize == 0 ? fitSize : cellSize;
+        double next = Math.min(current * factor, MAX_CELL_SIZE);
+        if (next <= fitSize) {
+            cellSize = 0;
+            revalidate();
+            repaint();
+            return;
+        }
+        cellSize = next;
+        Dimension size = getPreferredSize();
+        Point view = viewport.getViewPosition();
+        int x = (int) ((long) anchor.x * size.width / Math.max(getWidth(), 1)) - (anchor.x - view.x);
+        int y = (int) ((long) anchor.y * size.height / Math.max(getHeight(), 1)) - (anchor.y - view.y);
+        setSize(size);
+        viewport.setViewPosition(new Point(Math.max(0, Math.min(x, size.width - viewport.getWidth())),
+                Math.max(0, Math.min(y, size.height - viewport.getHeight()))));
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Zooms with Ctrl + mouse wheel, other wheel events scroll the surrounding scroll pane.
+     */
+    private void onMouseWheel(MouseWheelEvent e) {
+        if ((e.getModifiersEx() & InputEvent.CTRL_DOWN_MASK) != 0) {
+            zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getPoint());
+        } else {
+            Container scrollPane = SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+            if (scrollPane != null) {
+                scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(this, e, scrollPane));
+            }
+        }
+    }
+
+    /**
+     * Paints the remaining tiles of the current snapshot inside the clip area.
+     * The background is part of the painted cells, so it is not filled separately.
+     *
+     * @param g the {@code Graphics} object used for painting
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (snapshot == null) {
+            super.paintComponent(g);
+            return;
+        }
+        int width = getWidth();
+        int height = getHeight();
+        Rectangle clip = clipBounds;
+        clip.setBounds(0, 0, width, height);
+        g.getClipBounds(clip);
+        SwingUtilities.computeIntersection(0, 0, width, height, clip);
+        if (clip.isEmpty()) return;
+
+        int rows = snapshot.getGameRows();
+        int cols = snapshot.getGameCols();
+        if (width / cols < MIN_SPRITE_SIZE || height / rows < MIN_SPRITE_SIZE) {
+            paintPixels(g, clip, width, height);
+            return;
+        }
+        long elapsed = nanoClock.getAsLong() - animationStart;
+        if (animating && elapsed < fallNanos + slideNanos) {
+            paintAnimation(g, clip, width, height, elapsed);
+        } else {
+            paintSprites(g, clip, width, height);
+        }
+    }
+
+    /**
+     * Paints a frame of the running animation: every remaining tile of the new board between its position before
+     * the move and its position in the new board, first falling, then sliding, with an ease-out motion.
+     */
+    private void paintAnimation(Graphics g, Rectangle clip, int width, int height, long elapsed) {
+        int rows = snapshot.getGameRows();
+        int cols = snapshot.getGameCols();
+        updateSprites(getGraphicsConfiguration(), width / cols, height / rows);
+        double fall = easeOut(fallNanos == 0 ? 1 : Math.min(1, (double) elapsed / fallNanos));
+        double slide = easeOut(slideNanos == 0 ? 1 : Math.max(0, Math.min(1, (double) (elapsed - fallNanos) / slideNanos)));
+        PersistentBoard board = snapshot.getBoard();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        for (int col = 0; col < cols && fromCol[col] >= 0; col++) {
+            int x = lerp(cellStart(fromCol[col], width, cols), cellStart(col, width, cols), slide);
+            int w = lerp(cellStart(fromCol[col] + 1, width, cols), cellStart(col + 1, width, cols), slide) - x;
+            if (x >= clip.x + clip.width || x + w <= clip.x) continue;
+            for (int row = rows - 1; row >= 0 && fromRow[col * rows + row] >= 0; row--) {
+                int from = fromRow[col * rows + row];
+                int y = lerp(cellStart(from, height, rows), cellStart(row, height, rows), fall);
+                int h = lerp(cellStart(from + 1, height, rows), cellStart(row + 1, height, rows), fall) - y;
+                if (y >= clip.y + clip.height || y + h <= clip.y) continue;
+                g.drawImage(sprites[board.get(row, col)][(w - spriteWidth) * 2 + h - spriteHeight], x, y, null);
+            }
+        }
+    }
+
+    /**
+     * Interpolates a pixel position; both edges of a tile are interpolated, so a moving tile keeps one of the
+     * sprite sizes and starts and ends exactly on the cells of the boards.
+     */
+    private static int lerp(int from, int to, double t) {
+        return from + (int) Math.round((to - from) * t);
+    }
+
+    private static double easeOut(double t) {
+        return 1 - (1 - t) * (1 - t);
+    }
+
+    /**
+     * Paints the visible cells from the board surface, after bringing the surface up to date.
+     */
+    private void paintSprites(Graphics g, Rectangle clip, int width, int height) {
+        int rows = snapshot.getGameRows();
+        int cols = snapshot.getGameCols();
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        boolean full = updateSprites(gc, width / cols, height / rows);
+        Rectangle area = visibleBounds;
+        computeVisibleRect(area);
+        if (!area.contains(clip) || (long) area.width * area.height > MAX_SURFACE_PIXELS) area = clip;
+        PersistentBoard board = snapshot.getBoard();
+        full |= !area.equals(surfaceArea) || width != surfaceWidth || height != surfaceHeight || surfaceBoard == null
+                || surfaceBoard.getRows() != rows || surfaceBoard.getCols() != cols;
+
+        if (gc == null) {
+            if (bufferedSurface == null || bufferedSurface.getWidth() != area.width || bufferedSurface.getHeight() != area.height) {
+                bufferedSurface = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+                full = true;
+            }
+            renderSurface(bufferedSurface.createGraphics(), area, width, height, board, full);
+            blitSurface(g, bufferedSurface, clip, area);
+        } else {
+            do {
+                int status = volatileSurface == null || volatileSurface.getWidth() != area.width
+                        || volatileSurface.getHeight() != area.height
+                        ? VolatileImage.IMAGE_INCOMPATIBLE : volatileSurface.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    if (volatileSurface != null) volatileSurface.flush();
+                    volatileSurface = gc.createCompatibleVolatileImage(area.width, area.height, Transparency.OPAQUE);
+                    full = true;
+                } else if (status == VolatileImage.IMAGE_RESTORED) {
+                    full = true;
+                }
+                renderSurface(volatileSurface.createGraphics(), area, width, height, board, full);
+                blitSurface(g, volatileSurface, clip, area);
+                full = true; // if the contents were lost meanwhile, the next attempt paints everything
+            } while (volatileSurface.contentsLost());
+        }
+        surfaceArea.setBounds(area);
+        surfaceWidth = width;
+        surfaceHeight = height;
+        surfaceBoard = board;
+    }
+
+    /**
+     * Blits the sprites of the cells inside the surface area into the surface:
+     * all cells, or only the columns that changed since the painted board version.
+     *
+     * @param sg     graphics of the surface, disposed by this method
+     * @param area   part of the panel held by the surface
+     * @param width  width of the panel
+     * @param height height of the panel
+     * @param board  board version to be painted
+     * @param full   {@code true} to paint all cells
+     */
+    private void renderSurface(Graphics2D sg, Rectangle area, int width, int height, PersistentBoard board, boolean full) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        sg.translate(-area.x, -area.y);
+        sg.setColor(getBackground());
+        if (full) sg.fillRect(area.x, area.y, area.width, area.height);
+        int firstCol = cellAt(area.x, width, cols);
+        int lastCol = cellAt(area.x + area.width - 1, width, cols);
+        int firstRow = cellAt(area.y, height, rows);
+        int lastRow = cellAt(area.y + area.height - 1, height, rows);
+        for (int col = firstCol; col <= lastCol; col++) {
+            if (!full && board.sharesColumn(surfaceBoard, col)) continue;
+            int x = cellStart(col, width, cols);
+            int w = cellStart(col + 1, width, cols) - x;
+            if (!full) sg.fillRect(x, area.y, w, area.height);
+            for (int row = firstRow; row <= lastRow; row++) {
+                int cell = board.get(row, col);
+                if (cell == CompactBoard.EMPTY) continue;
+                int y = cellStart(row, height, rows);
+                int h = cellStart(row + 1, height, rows) - y;
+                sg.drawImage(sprites[cell][(w - spriteWidth) * 2 + h - spriteHeight], x, y, null);
+            }
+        }
+        sg.dispose();
+    }
+
+    /**
+     * Copies the clip area from the surface to the panel in one blit.
+     */
+    private static void blitSurface(Graphics g, Image surface, Rectangle clip, Rectangle area) {
+        int sx = clip.x - area.x;
+        int sy = clip.y - area.y;
+        g.drawImage(surface, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                sx, sy, sx + clip.width, sy + clip.height, null);
+    }
+
+    /**
+     * Renders the sprites of all colors for the given cell size, unless they exist already.
+     * Cells are {@code width} or {@code width + 1} pixels wide and {@code height} or {@code height + 1} pixels high,
+     * so there are four size variants per color. The sprites are compatible with the screen if it is known.
+     *
+     * @return {@code true} if the sprites were rendered again, so the surface has to be painted again as well
+     */
+    private boolean updateSprites(GraphicsConfiguration gc, int width, int height) {
+        if (width == spriteWidth && height == spriteHeight && Arrays.equals(palette, spritePalette)) return false;
+        sprites = new BufferedImage[palette.length + 1][4];
+        for (int color = 1; color <= palette.length; color++) {
+            for (int variant = 0; variant < 4; variant++) {
+                int w = width + variant / 2;
+                int h = height + variant % 2;
+                BufferedImage sprite = gc == null ? new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB)
+                        : gc.createCompatibleImage(w, h, Transparency.OPAQUE);
+                Graphics2D g = sprite.createGraphics();
+                g.setColor(palette[color - 1]);
+                g.fillRect(0, 0, w, h);
+                g.setColor(Color.black);
+                g.drawRect(0, 0, w - 1, h - 1);
+                g.dispose();
+                sprites[color][variant] = sprite;
+            }
+        }
+        spritePalette = palette;
+        spriteWidth = width;
+        spriteHeight = height;
+        return true;
+    }
+
+    /**
+     * Paints the visible area pixel by pixel, each pixel in the color of the cell at its position.
+     */
+    private void paintPixels(Graphics g, Rectangle clip, int width, int height) {
+        int rows = snapshot.getGameRows();
+        int cols = snapshot.getGameCols();
+        if (raster == null || raster.getWidth() < clip.width || raster.getHeight() < clip.height) {
+            raster = new BufferedImage(Math.max(clip.width, getVisibleRect().width),
+                    Math.max(clip.height, getVisibleRect().height), BufferedImage.TYPE_INT_RGB);
+        }
+        if (colForX.length < clip.width) colForX = new int[raster.getWidth()];
+        if (rowForY.length < clip.height) rowForY = new int[raster.getHeight()];
+        for (int x = 0; x < clip.width; x++) colForX[x] = cellAt(clip.x + x, width, cols);
+        for (int y = 0; y < clip.height; y++) rowForY[y] = cellAt(clip.y + y, height, rows);
+
+        int[] rgb = new int[palette.length + 1];
+        rgb[CompactBoard.EMPTY] = getBackground().getRGB();
+        for (int color = 1; color < rgb.length; color++) rgb[color] = palette[color - 1].getRGB();
+
+        int[] pixels = ((DataBufferInt) raster.getRaster().getDataBuffer()).getData();
+        int stride = raster.getWidth();
+        for (int y = 0; y < clip.height; y++) {
+            int row = rowForY[y];
+            int offset = y * stride;
+            for (int x = 0; x < clip.width; x++) {
+                pixels[offset + x] = rgb[snapshot.getCell(row, colForX[x])];
+            }
+        }
+        g.drawImage(raster, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                0, 0, clip.width, clip.height, null);
+    }
+
+    /**
+     * Returns the size of the zoomed board, or the current size while the board is fitted into the visible area.
+     *
+     * @return preferred size of the panel
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        if (cellSize == 0 || snapshot == null) return super.getPreferredSize();
+        return new Dimension((int) Math.ceil(snapshot.getGameCols() * cellSize),
+                (int) Math.ceil(snapshot.getGameRows() * cellSize));
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    /**
+     * Scrolls by one cell.
+     */
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return Math.max(1, (int) cellSize);
+    }
+
+    /**
+     * Scrolls by the visible area minus one cell.
+     */
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int visible = orientation == SwingConstants.HORIZONTAL ? visibleRect.width : visibleRect.height;
+        return Math.max(1, visible - (int) cellSize);
+    }
+
+    /**
+     * The panel takes the width of the visible area while the board is fitted.
+     */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return cellSize == 0;
+    }
+
+    /**
+     * The panel takes the height of the visible area while the board is fitted.
+     */
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return cellSize == 0;
+    }
+
+    /**
+     * Calculates the first pixel of a cell.
+     *
+     * @param cell  row or col index
+     * @param size  height or width of the panel in pixels
+     * @param cells number of rows or cols of the grid
+     * @return first pixel of the cell
+     */
+    public static int cellStart(int cell, int size, int cells) {
+        return (int) (((long) cell * size + cells - 1) / cells);
+    }
+
+    /**
+     * Maps a pixel to the cell painted there.
+     *
+     * @param pixel y or x coordinate in pixels
+     * @param size  height or width of the panel in pixels
+     * @param cells number of rows or cols of the grid
+     * @return row or col index, -1 if outside the grid
+     */
+    public static int cellAt(int pixel, int size, int cells) {
+        if (pixel < 0 || pixel >= size) return -1;
+        return (int) ((long) pixel * cells / size);
+    }
+}
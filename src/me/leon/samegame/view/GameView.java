@@ -1,5 +1,7 @@
 package me.leon.samegame.view;
 
+import me.leon.samegame.model.GameSnapshot;
+
 import javax.swing.*;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
@@ -21,6 +23,17 @@ public interface GameView {
      */
     void updateView();
 
+    /**
+     * Updates the view to reflect the given state of the game.
+     * Views that read the model directly can keep the default, which calls {@link #updateView()}
+     * on the thread that changes the model.
+     *
+     * @param snapshot immutable state of the game to be shown
+     */
+    default void updateView(GameSnapshot snapshot) {
+        updateView();
+    }
+
     /**
      * Adds a {@link MouseListener} to the game view to handle mouse events.
      *
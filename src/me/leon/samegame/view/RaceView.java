@@ -0,0 +1,150 @@
+package me.leon.samegame.view;
+
+import me.leon.samegame.model.GameSnapshot;
+import me.leon.samegame.race.RaceClient;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.Serial;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code RaceView} class shows a race of a {@link RaceClient}: the own board on the left, which is played by
+ * clicking, and the boards of all opponents in a grid on the right, each painted by its own {@link BoardPanel}.
+ * <p>
+ * The client calls the view on its reader thread after every delta. The view only marks the player as changed and
+ * schedules one update on the event dispatch thread for all changes that arrive until it runs, so a fast race
+ * costs one snapshot per changed board and frame instead of one per delta.
+ */
+public class RaceView extends JFrame implements RaceClient.Listener {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final DecimalFormat decimalFormat = new DecimalFormat("#,###");
+    private final BoardPanel ownPanel = new BoardPanel();
+    private final JLabel ownLabel = new JLabel(" ");
+    private final JPanel opponentsPanel = new JPanel(new GridLayout(0, 2, 4, 4));
+    private final Map<Integer, BoardPanel> opponentPanels = new HashMap<>(); // accessed on the event dispatch thread
+    private final Map<Integer, JPanel> opponentBoxes = new HashMap<>(); // titled box around every opponent panel
+    private final Set<Integer> changed = new HashSet<>(); // guarded by changed
+    private boolean updateScheduled; // guarded by changed
+    private volatile RaceClient client;
+
+    /**
+     * Constructs a new {@code RaceView}. The boards are shown after {@link #setClient(RaceClient)}.
+     */
+    public RaceView() {
+        setTitle("SameGame Race");
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel ownBoard = new JPanel(new BorderLayout());
+        ownBoard.add(ownLabel, BorderLayout.NORTH);
+        ownBoard.add(ownPanel, BorderLayout.CENTER);
+        ownPanel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                onBoardClicked(e);
+            }
+        });
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, ownBoard, new JScrollPane(opponentsPanel));
+        split.setResizeWeight(0.6);
+        add(split, BorderLayout.CENTER);
+
+        setSize(1000, 600);
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * Shows the race of a client. The client must have been created with this view as listener.
+     *
+     * @param client connection to the race
+     */
+    public void setClient(RaceClient client) {
+        this.client = client;
+        setTitle("SameGame Race on seed " + client.getSeed());
+        for (int player : client.getPlayers()) {
+            boardChanged(player, client.getMoves(player));
+        }
+    }
+
+    @Override
+    public void boardChanged(int player, int moves) {
+        schedule(player);
+    }
+
+    @Override
+    public void playerLeft(int player) {
+        schedule(player);
+    }
+
+    private void schedule(int player) {
+        synchronized (changed) {
+            changed.add(player);
+            if (updateScheduled) return;
+            updateScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::update);
+    }
+
+    /**
+     * Shows the boards of all players that changed since the last update. Runs on the event dispatch thread.
+     */
+    private void update() {
+        RaceClient client = this.client;
+        Integer[] players;
+        synchronized (changed) {
+            updateScheduled = false;
+            if (client == null) return; // shown after setClient
+            players = changed.toArray(new Integer[0]);
+            changed.clear();
+        }
+        for (int player : players) {
+            GameSnapshot snapshot = client.snapshot(player);
+            if (player == client.getPlayer()) {
+                if (snapshot == null) continue;
+                ownPanel.setSnapshot(snapshot);
+                ownLabel.setText("Score: " + decimalFormat.format(snapshot.getPoints())
+                        + (snapshot.getGameOver() ? " | Game over" : ""));
+            } else if (snapshot == null) {
+                opponentPanels.remove(player);
+                JPanel box = opponentBoxes.remove(player);
+                if (box != null) opponentsPanel.remove(box);
+                opponentsPanel.revalidate();
+                opponentsPanel.repaint();
+            } else {
+                BoardPanel panel = opponentPanels.get(player);
+                if (panel == null) {
+                    panel = new BoardPanel();
+                    panel.setPreferredSize(new Dimension(180, 120));
+                    JPanel box = new JPanel(new BorderLayout());
+                    box.add(panel, BorderLayout.CENTER);
+                    opponentPanels.put(player, panel);
+                    opponentBoxes.put(player, box);
+                    opponentsPanel.add(box);
+                    opponentsPanel.revalidate();
+                }
+                panel.setSnapshot(snapshot);
+                opponentBoxes.get(player).setBorder(BorderFactory.createTitledBorder(client.getName(player) + ": "
+                        + decimalFormat.format(snapshot.getPoints()) + (snapshot.getGameOver() ? " (done)" : "")));
+            }
+        }
+    }
+
+    private void onBoardClicked(MouseEvent e) {
+        RaceClient client = this.client;
+        if (client == null) return;
+        int row = BoardPanel.cellAt(e.getY(), ownPanel.getHeight(), client.getRows());
+        int col = BoardPanel.cellAt(e.getX(), ownPanel.getWidth(), client.getCols());
+        try {
+            client.move(row, col);
+        } catch (IOException ex) {
+            System.err.println("Move could not be sent: " + ex);
+        }
+    }
+}
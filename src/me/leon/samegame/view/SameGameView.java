@@ -1,7 +1,7 @@
 package me.leon.samegame.view;
 
 import me.leon.samegame.model.GameModel;
-import me.leon.samegame.model.Tile;
+import me.leon.samegame.model.GameSnapshot;
 
 import javax.swing.*;
 import java.awt.*;
@@ -13,10 +13,11 @@ import java.util.List;
 /**
  * Represents the GUI view for the SameGame application.
  * Extends {@link JFrame} and implements {@link GameView} interface.
+ * The board is painted by a {@link BoardPanel} inside a scroll pane, so large boards can be zoomed and scrolled.
  */
 public class SameGameView extends JFrame implements GameView {
     private GameModel gameModel;
-    private JPanel gamePanel;
+    private BoardPanel gamePanel;
     private JLabel infoLabel;
     private DecimalFormat decimalFormat;
 
@@ -36,9 +37,10 @@ public class SameGameView extends JFrame implements GameView {
         infoLabel.setHorizontalAlignment(SwingConstants.RIGHT);
         add(infoLabel, BorderLayout.NORTH);
 
-        gamePanel = new JPanel();
-        gamePanel.setLayout(new GridLayout(gameModel.getGameRows(), gameModel.getGameCols()));
-        add(gamePanel, BorderLayout.CENTER);
+        gamePanel = new BoardPanel(); // fitted into the scroll pane until zoomed with Ctrl + mouse wheel
+        JScrollPane scrollPane = new JScrollPane(gamePanel);
+        scrollPane.setBorder(null);
+        add(scrollPane, BorderLayout.CENTER);
 
         initializeView();
 
@@ -57,35 +59,34 @@ public class SameGameView extends JFrame implements GameView {
     }
 
     /**
-     * Updates the view by redrawing the game panel and updating the information label.<br>
-     *
-     * <u>Future Work</u>: Very jiggly - only update views objects where necessary based on models change
+     * Updates the view from the current state of the model.
+     * Only to be used while no other thread changes the model, e.g. during initialization.
      */
     @Override
     public void updateView() {
-        gamePanel.removeAll();
-
-        // Redraw
-        Tile[][] tiles = gameModel.getTiles();
-        for (int row = 0; row < gameModel.getGameRows(); row++) {
-            for (int col = 0; col < gameModel.getGameCols(); col++) {
-                gamePanel.add(tiles[row][col]);
-            }
-        }
+        updateView(GameSnapshot.of(gameModel, 0, 0));
+    }
+
+    /**
+     * Updates the view by handing the snapshot to the game panel and updating the information label.
+     * Must be called on the event dispatch thread.
+     *
+     * @param snapshot immutable state of the game to be shown
+     */
+    @Override
+    public void updateView(GameSnapshot snapshot) {
+        gamePanel.setSnapshot(snapshot);
 
         // Update Info label
-        String info = "Escape: Exit | X: Unplug Console View | C: Plugin Console View | Score: " + decimalFormat.format(gameModel.getPoints());
-        if (gameModel.getGameOver()) {
+        String info = "Escape: Exit | X: Unplug Console View | C: Plugin Console View | Score: " + decimalFormat.format(snapshot.getPoints());
+        if (snapshot.getGameOver()) {
             info += " | Game Over!";
         } else {
-            int[] nextBestMove = gameModel.getNextBestMove();
+            int[] nextBestMove = snapshot.getNextBestMove();
             info += " | " + "Next best move: row=" + nextBestMove[0] + ", col=" + nextBestMove[1];
+            if (snapshot.isNextBestMoveProven()) info += " (optimal)";
         }
         infoLabel.setText(info);
-
-        pack();
-        setSize(800, 600);
-        repaint();
     }
 
     /**